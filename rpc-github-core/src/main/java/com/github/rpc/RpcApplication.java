@@ -1,7 +1,12 @@
 package com.github.rpc;
 
+import com.github.rpc.common.loadblanace.impl.ConsistentHashLoadBalancer;
+import com.github.rpc.common.proxy.HedgeBudget;
 import com.github.rpc.common.registry.Registry;
 import com.github.rpc.common.registry.RegistryFactory;
+import com.github.rpc.common.retry.RetryBudget;
+import com.github.rpc.common.serializer.KryoSerializer;
+import com.github.rpc.common.tolerant.CircuitBreaker;
 import com.github.rpc.common.utils.ConfigUtils;
 import com.github.rpc.config.ConfigCenterConfig;
 import com.github.rpc.config.GlobalRpcConfig;
@@ -9,16 +14,23 @@ import com.github.rpc.config.RegistryConfig;
 import com.github.rpc.config.center.ConfigCenter;
 import com.github.rpc.config.center.ConfigCenterFactory;
 import com.github.rpc.constants.RpcLoadConstant;
+import com.github.rpc.service.dispatch.RequestDispatcher;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Slf4j
 public class RpcApplication {
 
     private static volatile GlobalRpcConfig rpcConfig;
 
+    /**
+     * 全局配置版本，每次初始化或热更新后递增，服务引用据此重建调用链
+     */
+    private static final AtomicLong CONFIG_VERSION = new AtomicLong();
+
     // 配置中心实例
     private static volatile ConfigCenter configCenter;
 
@@ -63,7 +75,11 @@ public class RpcApplication {
     public static void init(GlobalRpcConfig newRpcConfig) {
         // 赋值给静态变量
         rpcConfig = newRpcConfig;
+        CONFIG_VERSION.incrementAndGet();
         log.info("RPC初始化, 配置 = {}", newRpcConfig);
+
+        // 各组件按配置初始化
+        configureComponents(newRpcConfig);
         
         // 初始化配置中心
         initConfigCenter(newRpcConfig.getConfigCenterConfig());
@@ -86,6 +102,31 @@ public class RpcApplication {
         }));
     }
     
+    /**
+     * 把配置下发到各组件，启动和配置热更新时都会调用
+     *
+     * @param config RPC配置
+     */
+    private static void configureComponents(GlobalRpcConfig config) {
+        // 按配置重建 Kryo 对象池
+        KryoSerializer.configure(config.getKryoConfig());
+
+        // 一致性哈希负载均衡配置
+        ConsistentHashLoadBalancer.configure(config.getConsistentHashConfig());
+
+        // 对冲请求预算
+        HedgeBudget.configure(config.getHedgeBudgetRatio());
+
+        // 节点熔断配置
+        CircuitBreaker.configure(config.getCircuitBreakerConfig());
+
+        // 重试预算
+        RetryBudget.configure(config.getRetryBudgetRatio(), config.getRetryBudgetLogInterval());
+
+        // 服务端请求派发，已创建的独立线程池保持原大小
+        RequestDispatcher.configure(config.getDispatchConfig());
+    }
+
     /**
      * 初始化配置中心
      * 
@@ -157,11 +198,10 @@ public class RpcApplication {
      * @param newConfig 新配置
      */
     private static void updateConfig(GlobalRpcConfig newConfig) {
-        // 更新全局配置
+        // 更新全局配置，先下发到各组件再递增版本，服务引用重建调用链时各组件已是新配置
         rpcConfig = newConfig;
-        
-        // 这里可以添加更多的配置更新逻辑
-        // 例如更新序列化器、负载均衡器等
+        configureComponents(newConfig);
+        CONFIG_VERSION.incrementAndGet();
         
         // 通知配置变更监听器
         notifyConfigChangeListeners();
@@ -192,6 +232,15 @@ public class RpcApplication {
         return rpcConfig;
     }
     
+    /**
+     * 获取全局配置版本
+     *
+     * @return 配置版本
+     */
+    public static long getConfigVersion() {
+        return CONFIG_VERSION.get();
+    }
+
     /**
      * 获取配置中心实例
      * 
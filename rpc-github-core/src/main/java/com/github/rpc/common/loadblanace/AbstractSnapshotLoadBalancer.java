@@ -0,0 +1,81 @@
+package com.github.rpc.common.loadblanace;
+
+import com.github.rpc.constants.LoadBalancerConstant;
+import com.github.rpc.model.dto.ServiceMetaInfoDTO;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按服务发现快照缓存选择状态的负载均衡器
+ * 注册中心缓存中的实例列表不可变，列表对象不变即实例未变，
+ * 因此每个服务键只在列表对象变化时重建一次状态，选择时直接使用
+ *
+ * @param <S> 选择状态
+ */
+public abstract class AbstractSnapshotLoadBalancer<S> implements LoadBalancerStrategy {
+
+    /**
+     * 服务键 => 快照及其状态
+     */
+    private final Map<String, SnapshotState<S>> stateMap = new ConcurrentHashMap<>();
+
+    @Override
+    public ServiceMetaInfoDTO select(Map<String, Object> requestParams, List<ServiceMetaInfoDTO> serviceMetaInfoList) {
+        int size = serviceMetaInfoList.size();
+        if (size == 0) {
+            return null;
+        }
+        if (size == 1) {
+            return serviceMetaInfoList.get(0);
+        }
+        return doSelect(requestParams, serviceMetaInfoList, getState(requestParams, serviceMetaInfoList));
+    }
+
+    /**
+     * 为实例列表构建选择状态，每个快照只调用一次
+     */
+    protected abstract S buildState(List<ServiceMetaInfoDTO> serviceMetaInfoList);
+
+    /**
+     * 从至少 2 个实例中选择
+     */
+    protected abstract ServiceMetaInfoDTO doSelect(Map<String, Object> requestParams, List<ServiceMetaInfoDTO> serviceMetaInfoList, S state);
+
+    private S getState(Map<String, Object> requestParams, List<ServiceMetaInfoDTO> serviceMetaInfoList) {
+        String serviceKey = serviceKey(requestParams, serviceMetaInfoList);
+        SnapshotState<S> snapshotState = stateMap.get(serviceKey);
+        if (snapshotState == null || snapshotState.serviceMetaInfoList != serviceMetaInfoList) {
+            // 并发重建时后写入的覆盖先写入的，只影响切换瞬间的选择顺序
+            snapshotState = new SnapshotState<>(serviceMetaInfoList, buildState(serviceMetaInfoList));
+            stateMap.put(serviceKey, snapshotState);
+        }
+        return snapshotState.state;
+    }
+
+    private String serviceKey(Map<String, Object> requestParams, List<ServiceMetaInfoDTO> serviceMetaInfoList) {
+        Object serviceKey = requestParams == null ? null : requestParams.get(LoadBalancerConstant.PARAM_SERVICE_KEY);
+        return serviceKey != null ? serviceKey.toString() : serviceMetaInfoList.get(0).getServiceKey();
+    }
+
+    /**
+     * 实例权重，未设置或不合法时使用默认权重
+     */
+    protected static int weight(ServiceMetaInfoDTO serviceMetaInfo) {
+        Integer weight = serviceMetaInfo.getWeight();
+        return weight == null || weight <= 0 ? LoadBalancerConstant.DEFAULT_WEIGHT : weight;
+    }
+
+    private static class SnapshotState<S> {
+
+        private final List<ServiceMetaInfoDTO> serviceMetaInfoList;
+
+        private final S state;
+
+        SnapshotState(List<ServiceMetaInfoDTO> serviceMetaInfoList, S state) {
+            this.serviceMetaInfoList = serviceMetaInfoList;
+            this.state = state;
+        }
+    }
+}
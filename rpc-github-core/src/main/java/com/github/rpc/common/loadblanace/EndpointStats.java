@@ -0,0 +1,155 @@
+package com.github.rpc.common.loadblanace;
+
+import com.github.rpc.model.dto.ServiceMetaInfoDTO;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单个服务提供者（host:port）的调用统计，由传输层在请求发出和完成时更新
+ * 记录在途请求数和响应耗时的峰值 EWMA：耗时高于当前值时直接取该耗时，
+ * 否则按距上次更新的时间衰减合并，慢节点能被立即发现、恢复后逐渐回落；
+ * 另外记录成功请求的耗时分布，供对冲请求按分位数决定延迟
+ */
+public class EndpointStats {
+
+    /**
+     * EWMA 衰减时间常数
+     */
+    private static final long DECAY_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * 请求失败时按至少该耗时计入，避免快速失败的节点吸引流量
+     */
+    private static final long FAILURE_PENALTY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * host:port => 统计
+     */
+    private static final Map<String, EndpointStats> STATS_MAP = new ConcurrentHashMap<>();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * 峰值 EWMA 耗时（纳秒），0 表示尚无样本
+     */
+    private double ewmaNanos;
+
+    private long lastUpdateNanos = System.nanoTime();
+
+    /**
+     * 成功请求的耗时分布
+     */
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    /**
+     * 获取服务提供者的统计
+     */
+    public static EndpointStats of(ServiceMetaInfoDTO serviceMetaInfo) {
+        return of(serviceMetaInfo.getServiceHost() + ":" + serviceMetaInfo.getServicePort());
+    }
+
+    /**
+     * 获取服务提供者的统计
+     *
+     * @param address host:port
+     */
+    public static EndpointStats of(String address) {
+        return STATS_MAP.computeIfAbsent(address, key -> new EndpointStats());
+    }
+
+    /**
+     * 服务提供者已从服务发现中下线，丢弃其统计
+     *
+     * @param address host:port
+     */
+    public static void remove(String address) {
+        STATS_MAP.remove(address);
+    }
+
+    /**
+     * 请求发出
+     *
+     * @return 开始时间，完成时传回 {@link #finish(long, boolean)}
+     */
+    public long start() {
+        inFlight.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    /**
+     * 请求完成（成功、失败或超时）
+     *
+     * @param startNanos {@link #start()} 返回的开始时间
+     * @param success    是否成功
+     */
+    public void finish(long startNanos, boolean success) {
+        inFlight.decrementAndGet();
+        long now = System.nanoTime();
+        long rtt = now - startNanos;
+        if (success) {
+            histogram.record(rtt);
+        } else {
+            rtt = Math.max(rtt, FAILURE_PENALTY_NANOS);
+        }
+        updateEwma(rtt, now);
+    }
+
+    /**
+     * 请求被调用方取消，已等待的时间只是耗时下限，计入 EWMA 但不计入耗时分布
+     *
+     * @param startNanos {@link #start()} 返回的开始时间
+     */
+    public void cancel(long startNanos) {
+        inFlight.decrementAndGet();
+        long now = System.nanoTime();
+        updateEwma(now - startNanos, now);
+    }
+
+    private synchronized void updateEwma(long rtt, long now) {
+        if (rtt > ewmaNanos) {
+            ewmaNanos = rtt;
+        } else {
+            double weight = Math.exp(-(double) (now - lastUpdateNanos) / DECAY_NANOS);
+            ewmaNanos = ewmaNanos * weight + rtt * (1 - weight);
+        }
+        lastUpdateNanos = Math.max(lastUpdateNanos, now);
+    }
+
+    /**
+     * 最近成功请求的耗时分位数（纳秒）
+     *
+     * @param quantile 分位，如 0.95
+     * @return 样本不足时返回 -1
+     */
+    public long percentileNanos(double quantile) {
+        return histogram.percentileNanos(quantile);
+    }
+
+    /**
+     * 在途请求数
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * 负载评分，越小越好：衰减到当前时刻的 EWMA 耗时 * (在途请求数 + 1)
+     * 尚无样本的节点评分为 0，会优先得到探测流量
+     */
+    public double cost() {
+        int active = inFlight.get();
+        double ewma;
+        synchronized (this) {
+            long elapsed = Math.max(0L, System.nanoTime() - lastUpdateNanos);
+            ewma = ewmaNanos * Math.exp(-(double) elapsed / DECAY_NANOS);
+        }
+        if (ewma == 0 && active > 0) {
+            // 有在途请求但还没有样本，按惩罚值估计，避免新节点被瞬间打满
+            return FAILURE_PENALTY_NANOS + active;
+        }
+        return ewma * (active + 1);
+    }
+}
@@ -0,0 +1,110 @@
+package com.github.rpc.common.loadblanace;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 滑动窗口的耗时直方图
+ * 按微秒计，每个 2 的幂区间再分 4 个桶（相对误差约 25%），记录只做一次原子自增；
+ * 保留当前和上一个窗口，分位数按两个窗口合并计算，旧数据每个窗口周期淘汰一次
+ */
+class LatencyHistogram {
+
+    private static final int BUCKET_COUNT = 128;
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * 样本数少于该值时不给出分位数
+     */
+    private static final int MIN_SAMPLES = 20;
+
+    private volatile Window current = new Window(System.nanoTime());
+
+    private volatile Window previous = new Window(0L);
+
+    void record(long nanos) {
+        long now = System.nanoTime();
+        Window window = current;
+        if (now - window.startNanos > WINDOW_NANOS) {
+            window = rotate(window, now);
+        }
+        window.counts.incrementAndGet(bucket(Math.max(1L, nanos / 1000)));
+    }
+
+    /**
+     * 分位数耗时（纳秒，取所在桶的上界）
+     *
+     * @param quantile 分位，如 0.95
+     * @return 样本不足时返回 -1
+     */
+    long percentileNanos(double quantile) {
+        Window window = current;
+        Window last = previous;
+        if (System.nanoTime() - window.startNanos > 2 * WINDOW_NANOS) {
+            // 长时间没有请求，历史数据已失效
+            return -1L;
+        }
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = window.counts.get(i) + last.counts.get(i);
+            total += counts[i];
+        }
+        if (total < MIN_SAMPLES) {
+            return -1L;
+        }
+        long target = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return upperBoundMicros(i) * 1000;
+            }
+        }
+        return upperBoundMicros(BUCKET_COUNT - 1) * 1000;
+    }
+
+    private synchronized Window rotate(Window expected, long now) {
+        if (current != expected) {
+            return current;
+        }
+        // 超过两个窗口没有记录时上一个窗口也已过期
+        previous = now - expected.startNanos > 2 * WINDOW_NANOS ? new Window(0L) : expected;
+        Window window = new Window(now);
+        current = window;
+        return window;
+    }
+
+    /**
+     * 桶下标：小于 4 微秒时直接取值；否则由最高位（2 的幂区间）和其后两位（区间内的 4 等分）组成
+     */
+    static int bucket(long micros) {
+        if (micros < 4) {
+            return (int) micros;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (msb - 2)) & 3;
+        return Math.min(BUCKET_COUNT - 1, 4 * (msb - 1) + sub);
+    }
+
+    static long upperBoundMicros(int bucket) {
+        if (bucket < 4) {
+            return bucket + 1;
+        }
+        int msb = bucket / 4 + 1;
+        int sub = bucket % 4;
+        return ((4L + sub) << (msb - 2)) + (1L << (msb - 2));
+    }
+
+    private static class Window {
+
+        private final long startNanos;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+        Window(long startNanos) {
+            this.startNanos = startNanos;
+        }
+    }
+}
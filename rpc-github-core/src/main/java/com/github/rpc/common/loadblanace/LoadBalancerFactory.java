@@ -2,7 +2,6 @@ package com.github.rpc.common.loadblanace;
 
 import com.github.rpc.common.loadblanace.impl.RandomLoadBalancer;
 import com.github.rpc.common.spi.SpiLoader;
-import io.grpc.LoadBalancer;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.zookeeper.common.StringUtils;
 
@@ -12,7 +11,7 @@ import java.util.Objects;
 public class LoadBalancerFactory {
 
     static {
-        SpiLoader.load(LoadBalancerFactory.class);
+        SpiLoader.load(LoadBalancerStrategy.class);
     }
 
     /**
@@ -29,7 +28,7 @@ public class LoadBalancerFactory {
     public static LoadBalancerStrategy getInstance(String key) {
         // 1. 参数校验：使用 Objects 和 StringUtils
         if (Objects.nonNull(key) && !StringUtils.isBlank(key)) {
-            LoadBalancerStrategy loadBalancer = SpiLoader.getInstance(LoadBalancer.class, key);
+            LoadBalancerStrategy loadBalancer = SpiLoader.getInstance(LoadBalancerStrategy.class, key);
             if (loadBalancer != null) {
                 log.debug("使用 SPI 加载负载均衡器: key='{}', 实现类={}", key, loadBalancer.getClass().getSimpleName());
                 return loadBalancer;
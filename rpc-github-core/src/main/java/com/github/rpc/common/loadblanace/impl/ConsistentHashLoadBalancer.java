@@ -0,0 +1,129 @@
+package com.github.rpc.common.loadblanace.impl;
+
+import cn.hutool.core.lang.hash.MurmurHash;
+import cn.hutool.core.util.NumberUtil;
+import cn.hutool.core.util.StrUtil;
+import com.github.rpc.common.loadblanace.AbstractSnapshotLoadBalancer;
+import com.github.rpc.config.ConsistentHashConfig;
+import com.github.rpc.constants.LoadBalancerConstant;
+import com.github.rpc.model.dto.ServiceMetaInfoDTO;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * 一致性哈希负载均衡器
+ * 每个实例在环上放置若干虚拟节点，哈希环按服务发现快照构建一次并缓存；
+ * 请求按选定参数（没有时按方法名）哈希后顺时针找到第一个节点，
+ * 实例增减时只有相邻区间的请求会换到其他实例
+ */
+@Slf4j
+public class ConsistentHashLoadBalancer extends AbstractSnapshotLoadBalancer<ConsistentHashLoadBalancer.Ring> {
+
+    private static volatile int virtualNodes = 160;
+
+    private static volatile int[] hashArguments = {0};
+
+    /**
+     * 按配置设置虚拟节点数与哈希参数，已构建的哈希环在下次快照变化时生效
+     *
+     * @param consistentHashConfig 一致性哈希配置
+     */
+    public static void configure(ConsistentHashConfig consistentHashConfig) {
+        if (consistentHashConfig == null) {
+            return;
+        }
+        virtualNodes = Math.max(1, Optional.ofNullable(consistentHashConfig.getVirtualNodes()).orElse(160));
+        List<String> indexes = StrUtil.split(StrUtil.nullToEmpty(consistentHashConfig.getHashArguments()), ',', true, true);
+        // 配置错误的下标跳过，不影响启动
+        hashArguments = indexes.stream()
+                .filter(ConsistentHashLoadBalancer::isValidIndex)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+    }
+
+    private static boolean isValidIndex(String index) {
+        if (NumberUtil.isInteger(index) && Integer.parseInt(index) >= 0) {
+            return true;
+        }
+        log.warn("一致性哈希参数下标无效，已忽略: {}", index);
+        return false;
+    }
+
+    @Override
+    protected Ring buildState(List<ServiceMetaInfoDTO> serviceMetaInfoList) {
+        int replicas = virtualNodes;
+        TreeMap<Long, Integer> ring = new TreeMap<>();
+        for (int i = 0; i < serviceMetaInfoList.size(); i++) {
+            ServiceMetaInfoDTO serviceMetaInfo = serviceMetaInfoList.get(i);
+            String address = serviceMetaInfo.getServiceHost() + ":" + serviceMetaInfo.getServicePort();
+            for (int n = 0; n < replicas; n++) {
+                // 哈希冲突时保留先放置的节点
+                ring.putIfAbsent(MurmurHash.hash64(address + "#" + n), i);
+            }
+        }
+        long[] hashes = new long[ring.size()];
+        int[] owners = new int[ring.size()];
+        int index = 0;
+        for (Map.Entry<Long, Integer> node : ring.entrySet()) {
+            hashes[index] = node.getKey();
+            owners[index] = node.getValue();
+            index++;
+        }
+        return new Ring(hashes, owners);
+    }
+
+    @Override
+    protected ServiceMetaInfoDTO doSelect(Map<String, Object> requestParams, List<ServiceMetaInfoDTO> serviceMetaInfoList, Ring ring) {
+        long hash = MurmurHash.hash64(hashKey(requestParams));
+        int index = Arrays.binarySearch(ring.hashes, hash);
+        if (index < 0) {
+            index = -index - 1;
+            if (index == ring.hashes.length) {
+                index = 0;
+            }
+        }
+        return serviceMetaInfoList.get(ring.owners[index]);
+    }
+
+    /**
+     * 哈希键：选定参数的值，方法没有这些参数时使用方法名
+     */
+    private String hashKey(Map<String, Object> requestParams) {
+        Object[] args = (Object[]) requestParams.get(LoadBalancerConstant.PARAM_ARGS);
+        int[] arguments = hashArguments;
+        if (args != null && arguments.length > 0) {
+            StringBuilder builder = new StringBuilder();
+            boolean found = false;
+            for (int argument : arguments) {
+                if (argument >= 0 && argument < args.length) {
+                    builder.append(args[argument]).append(',');
+                    found = true;
+                }
+            }
+            if (found) {
+                return builder.toString();
+            }
+        }
+        return String.valueOf(requestParams.get(LoadBalancerConstant.PARAM_METHOD_NAME));
+    }
+
+    /**
+     * 哈希环：按哈希值排序的虚拟节点及其所属实例下标
+     */
+    static class Ring {
+
+        private final long[] hashes;
+
+        private final int[] owners;
+
+        Ring(long[] hashes, int[] owners) {
+            this.hashes = hashes;
+            this.owners = owners;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.github.rpc.common.loadblanace.impl;
+
+import com.github.rpc.common.loadblanace.AbstractSnapshotLoadBalancer;
+import com.github.rpc.common.loadblanace.EndpointStats;
+import com.github.rpc.model.dto.ServiceMetaInfoDTO;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 基于峰值 EWMA 的 P2C（两次随机选择）负载均衡器
+ * 随机取两个不同的实例，选择负载评分（耗时 EWMA * 在途请求数）较低的一个；
+ * 各实例的统计对象按服务发现快照缓存，选择时不查表
+ */
+public class PeakEwmaLoadBalancer extends AbstractSnapshotLoadBalancer<EndpointStats[]> {
+
+    @Override
+    protected EndpointStats[] buildState(List<ServiceMetaInfoDTO> serviceMetaInfoList) {
+        EndpointStats[] stats = new EndpointStats[serviceMetaInfoList.size()];
+        for (int i = 0; i < stats.length; i++) {
+            stats[i] = EndpointStats.of(serviceMetaInfoList.get(i));
+        }
+        return stats;
+    }
+
+    @Override
+    protected ServiceMetaInfoDTO doSelect(Map<String, Object> requestParams, List<ServiceMetaInfoDTO> serviceMetaInfoList, EndpointStats[] stats) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int size = serviceMetaInfoList.size();
+        int first = random.nextInt(size);
+        // 第二个候选从其余实例中取，保证两者不同
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        return serviceMetaInfoList.get(stats[first].cost() <= stats[second].cost() ? first : second);
+    }
+}
@@ -1,21 +1,17 @@
 package com.github.rpc.common.loadblanace.impl;
 
-import cn.hutool.json.JSONUtil;
 import com.github.rpc.common.loadblanace.LoadBalancerStrategy;
 import com.github.rpc.model.dto.ServiceMetaInfoDTO;
 
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 public  class RandomLoadBalancer implements LoadBalancerStrategy {
 
-    private final Random random = new Random();
-
     @Override
     public ServiceMetaInfoDTO select(Map<String, Object> requestParams, List<ServiceMetaInfoDTO> serviceMetaInfoList) {
         int size = serviceMetaInfoList.size();
-        System.out.println("size:"+size);
         if (size == 0) {
             return null;
         }
@@ -24,9 +20,6 @@ public  class RandomLoadBalancer implements LoadBalancerStrategy {
             return serviceMetaInfoList.get(0);
         }
 
-        System.out.println("随机选择对应的服务节点--~");
-        ServiceMetaInfoDTO serviceMetaInfoDTO = serviceMetaInfoList.get(random.nextInt(size));
-        System.out.println(JSONUtil.toJsonStr(serviceMetaInfoList));
-        return serviceMetaInfoDTO;
+        return serviceMetaInfoList.get(ThreadLocalRandom.current().nextInt(size));
     }
-}
\ No newline at end of file
+}
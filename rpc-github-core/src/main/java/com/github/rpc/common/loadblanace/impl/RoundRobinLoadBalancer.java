@@ -0,0 +1,27 @@
+package com.github.rpc.common.loadblanace.impl;
+
+import com.github.rpc.common.loadblanace.AbstractSnapshotLoadBalancer;
+import com.github.rpc.model.dto.ServiceMetaInfoDTO;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 轮询负载均衡器
+ * 每个服务快照一个原子计数器，不加锁
+ */
+public class RoundRobinLoadBalancer extends AbstractSnapshotLoadBalancer<AtomicInteger> {
+
+    @Override
+    protected AtomicInteger buildState(List<ServiceMetaInfoDTO> serviceMetaInfoList) {
+        return new AtomicInteger();
+    }
+
+    @Override
+    protected ServiceMetaInfoDTO doSelect(Map<String, Object> requestParams, List<ServiceMetaInfoDTO> serviceMetaInfoList, AtomicInteger counter) {
+        // 计数器溢出为负数时取正
+        int index = (counter.getAndIncrement() & Integer.MAX_VALUE) % serviceMetaInfoList.size();
+        return serviceMetaInfoList.get(index);
+    }
+}
@@ -0,0 +1,93 @@
+package com.github.rpc.common.loadblanace.impl;
+
+import com.github.rpc.common.loadblanace.AbstractSnapshotLoadBalancer;
+import com.github.rpc.model.dto.ServiceMetaInfoDTO;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 平滑加权轮询负载均衡器
+ * 快照变化时按平滑加权算法（同 nginx）预先生成一轮的选择序列，
+ * 选择时用原子计数器在序列上轮询，O(1) 且不分配对象；
+ * 权重先按最大公约数约分，总权重过大时按比例缩小，控制序列长度
+ */
+public class SmoothWeightedRoundRobinLoadBalancer extends AbstractSnapshotLoadBalancer<SmoothWeightedRoundRobinLoadBalancer.Schedule> {
+
+    /**
+     * 一轮选择序列的最大长度
+     */
+    private static final int MAX_SCHEDULE_LENGTH = 1024;
+
+    @Override
+    protected Schedule buildState(List<ServiceMetaInfoDTO> serviceMetaInfoList) {
+        int size = serviceMetaInfoList.size();
+        int[] weights = new int[size];
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            weights[i] = weight(serviceMetaInfoList.get(i));
+            total += weights[i];
+        }
+        if (total > MAX_SCHEDULE_LENGTH) {
+            for (int i = 0; i < size; i++) {
+                weights[i] = (int) Math.max(1L, weights[i] * MAX_SCHEDULE_LENGTH / total);
+            }
+        }
+        int gcd = 0;
+        for (int weight : weights) {
+            gcd = gcd(gcd, weight);
+        }
+        int length = 0;
+        for (int i = 0; i < size; i++) {
+            weights[i] /= gcd;
+            length += weights[i];
+        }
+
+        // 平滑加权：每轮所有实例加上自身权重，选出当前值最大的实例后减去总权重
+        int[] sequence = new int[length];
+        int[] current = new int[size];
+        for (int n = 0; n < length; n++) {
+            int best = 0;
+            for (int i = 0; i < size; i++) {
+                current[i] += weights[i];
+                if (current[i] > current[best]) {
+                    best = i;
+                }
+            }
+            current[best] -= length;
+            sequence[n] = best;
+        }
+        return new Schedule(sequence);
+    }
+
+    @Override
+    protected ServiceMetaInfoDTO doSelect(Map<String, Object> requestParams, List<ServiceMetaInfoDTO> serviceMetaInfoList, Schedule schedule) {
+        int[] sequence = schedule.sequence;
+        int index = (schedule.counter.getAndIncrement() & Integer.MAX_VALUE) % sequence.length;
+        return serviceMetaInfoList.get(sequence[index]);
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    /**
+     * 一轮选择序列（实例下标）及轮询计数器
+     */
+    static class Schedule {
+
+        private final int[] sequence;
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        Schedule(int[] sequence) {
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.rpc.common.proxy;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 全局对冲预算（令牌桶）
+ * 启用对冲的方法每发起一次调用存入 ratio 个令牌，每发一个对冲请求消耗 1 个，
+ * 对冲请求数因此不超过这些调用的 ratio 倍，下游变慢时不会成倍放大负载
+ */
+public class HedgeBudget {
+
+    /**
+     * 1 个令牌的内部计数
+     */
+    private static final long TOKEN = 1000L;
+
+    /**
+     * 最多积攒的令牌，限制空闲后的突发对冲
+     */
+    private static final long MAX_BALANCE = 100 * TOKEN;
+
+    private static final AtomicLong BALANCE = new AtomicLong();
+
+    private static volatile long depositPerCall = 100L;
+
+    /**
+     * 按配置设置预算比例
+     *
+     * @param ratio 对冲请求数占启用对冲的调用数的最大比例，如 0.1
+     */
+    public static void configure(Double ratio) {
+        double value = Optional.ofNullable(ratio).orElse(0.1D);
+        depositPerCall = Math.max(0L, Math.round(value * TOKEN));
+    }
+
+    /**
+     * 记录一次启用对冲的调用
+     */
+    static void deposit() {
+        long deposit = depositPerCall;
+        if (deposit > 0 && BALANCE.get() < MAX_BALANCE) {
+            BALANCE.accumulateAndGet(deposit, (balance, x) -> Math.min(balance + x, MAX_BALANCE));
+        }
+    }
+
+    /**
+     * 申请发一个对冲请求
+     *
+     * @return 预算不足时返回 false
+     */
+    static boolean tryAcquire() {
+        while (true) {
+            long balance = BALANCE.get();
+            if (balance < TOKEN) {
+                return false;
+            }
+            if (BALANCE.compareAndSet(balance, balance - TOKEN)) {
+                return true;
+            }
+        }
+    }
+}
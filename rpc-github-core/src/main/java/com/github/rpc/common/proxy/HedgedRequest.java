@@ -0,0 +1,87 @@
+package com.github.rpc.common.proxy;
+
+import com.github.rpc.model.RpcResponse;
+import com.github.rpc.model.dto.ServiceMetaInfoDTO;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 对冲请求：主请求在给定延迟内未返回时，向另一个节点再发一次，
+ * 先成功的响应作为结果，另一方被取消；两个都失败时以后失败的异常结束
+ */
+@Slf4j
+final class HedgedRequest {
+
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "rpc-hedge-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private HedgedRequest() {
+    }
+
+    /**
+     * @param sender        向指定节点异步发送请求
+     * @param primary       主请求节点
+     * @param backupChooser 选择对冲节点，没有可用节点时返回 null
+     * @param delayMillis   对冲延迟（毫秒）
+     * @return 响应
+     */
+    static CompletableFuture<RpcResponse> send(Function<ServiceMetaInfoDTO, CompletableFuture<RpcResponse>> sender,
+                                               ServiceMetaInfoDTO primary,
+                                               Supplier<ServiceMetaInfoDTO> backupChooser,
+                                               long delayMillis) {
+        CompletableFuture<RpcResponse> result = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        AtomicReference<CompletableFuture<RpcResponse>> backupRef = new AtomicReference<>();
+
+        CompletableFuture<RpcResponse> first = sender.apply(primary);
+        first.whenComplete((response, e) -> onComplete(result, pending, response, e));
+        ScheduledFuture<?> timer = TIMER.schedule(() -> {
+            if (result.isDone() || !HedgeBudget.tryAcquire()) {
+                return;
+            }
+            ServiceMetaInfoDTO backup = backupChooser.get();
+            if (backup == null) {
+                return;
+            }
+            log.debug("主请求 {}ms 内未返回，对冲到 {}", delayMillis, backup.getServiceNodeKey());
+            pending.incrementAndGet();
+            CompletableFuture<RpcResponse> second = sender.apply(backup);
+            backupRef.set(second);
+            second.whenComplete((response, e) -> onComplete(result, pending, response, e));
+            if (result.isDone()) {
+                second.cancel(false);
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+
+        // 有结果后取消定时器和落后的请求
+        result.whenComplete((response, e) -> {
+            timer.cancel(false);
+            first.cancel(false);
+            CompletableFuture<RpcResponse> second = backupRef.get();
+            if (second != null) {
+                second.cancel(false);
+            }
+        });
+        return result;
+    }
+
+    private static void onComplete(CompletableFuture<RpcResponse> result, AtomicInteger pending, RpcResponse response, Throwable e) {
+        if (e == null) {
+            result.complete(response);
+        } else if (pending.decrementAndGet() == 0) {
+            result.completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.github.rpc.common.proxy;
+
+import com.github.rpc.common.utils.MethodSignatureUtils;
+import lombok.Getter;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 接口方法的调用元数据，每个方法首次调用时解析一次
+ */
+@Getter
+class MethodMetadata {
+
+    private final String methodName;
+
+    /**
+     * 参数类型，只读共享，不要修改
+     */
+    private final Class<?>[] parameterTypes;
+
+    /**
+     * 方法签名，握手后据此换成方法 id
+     */
+    private final String signature;
+
+    /**
+     * 返回 CompletableFuture / CompletionStage 时视为异步方法
+     */
+    private final boolean async;
+
+    /**
+     * @param serviceKey 服务提供者本地注册的服务键，见 ServiceMetaInfoDTO#buildKey
+     * @param method     接口方法
+     */
+    MethodMetadata(String serviceKey, Method method) {
+        this.methodName = method.getName();
+        this.parameterTypes = method.getParameterTypes();
+        this.signature = MethodSignatureUtils.signature(serviceKey, methodName, parameterTypes);
+        Class<?> returnType = method.getReturnType();
+        this.async = returnType == CompletableFuture.class || returnType == CompletionStage.class;
+    }
+}
@@ -0,0 +1,455 @@
+package com.github.rpc.common.proxy;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.http.HttpRequest;
+import cn.hutool.http.HttpResponse;
+import com.github.rpc.common.loadblanace.EndpointStats;
+import com.github.rpc.common.loadblanace.LoadBalancerFactory;
+import com.github.rpc.common.loadblanace.LoadBalancerStrategy;
+import com.github.rpc.common.registry.Registry;
+import com.github.rpc.common.registry.RegistryFactory;
+import com.github.rpc.common.retry.RetryPolicy;
+import com.github.rpc.common.retry.RetryStrategy;
+import com.github.rpc.common.retry.RetryStrategyFactory;
+import com.github.rpc.common.serializer.Serializer;
+import com.github.rpc.common.serializer.SerializerFactory;
+import com.github.rpc.common.tolerant.CircuitBreaker;
+import com.github.rpc.common.tolerant.RequestSender;
+import com.github.rpc.common.tolerant.TolerantStrategy;
+import com.github.rpc.common.tolerant.TolerantStrategyFactory;
+import com.github.rpc.config.GlobalRpcConfig;
+import com.github.rpc.config.RpcReferenceConfig;
+import com.github.rpc.config.RpcThreadPool;
+import com.github.rpc.constants.LoadBalancerConstant;
+import com.github.rpc.constants.TolerantStrategyConstant;
+import com.github.rpc.constants.TransportConstant;
+import com.github.rpc.enums.ResponseCodeEnum;
+import com.github.rpc.exception.BizException;
+import com.github.rpc.model.RpcRequest;
+import com.github.rpc.model.RpcResponse;
+import com.github.rpc.model.dto.ServiceMetaInfoDTO;
+import com.github.rpc.service.web.VertxTcpClient;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个服务引用的调用链：服务发现 -> 负载均衡（跳过已熔断节点） -> 编码 -> 熔断 -> 传输（对冲） -> 重试 -> 容错
+ * 创建代理时组装一次，各环节实例全部预先解析好，调用时只做数据流转；
+ * 全局配置变更后由 ServiceProxy 按配置版本整体重建
+ */
+@Slf4j
+@Getter
+class ReferenceInvoker {
+
+    /**
+     * 组装时的全局配置版本
+     */
+    private final long configVersion;
+
+    private final String serviceName;
+
+    private final String serviceVersion;
+
+    /**
+     * 服务发现使用的服务键，预先拼好
+     */
+    private final String serviceKey;
+
+    /**
+     * 服务提供者本地注册使用的服务键（服务名:分组:版本），方法签名按此生成，与握手下发的方法 id 表对齐
+     */
+    private final String registeredServiceKey;
+
+    private final Registry registry;
+
+    private final LoadBalancerStrategy loadBalancer;
+
+    private final Serializer serializer;
+
+    /**
+     * tcp 长连接由传输层按协议编码，http 需要预先序列化请求体
+     */
+    private final boolean useTcp;
+
+    private final RetryStrategy retryStrategy;
+
+    /**
+     * 重试参数，组装时按全局配置创建一次
+     */
+    private final RetryPolicy retryPolicy;
+
+    private final TolerantStrategy tolerantStrategy;
+
+    /**
+     * 单次请求超时时间（毫秒）
+     */
+    private final long timeoutMillis;
+
+    /**
+     * 故障转移最多尝试的节点数
+     */
+    private final int maxFailoverAttempts;
+
+    /**
+     * 容错策略为故障转移
+     */
+    private final boolean failOver;
+
+    /**
+     * 幂等方法名，超时后也可以故障转移
+     */
+    private final Set<String> idempotentMethods;
+
+    /**
+     * 启用对冲请求的方法名
+     */
+    private final Set<String> hedgeMethods;
+
+    /**
+     * 对冲延迟（毫秒），不大于 0 时按节点的 p95 耗时
+     */
+    private final long hedgeDelayMillis;
+
+    /**
+     * 未配置对冲延迟时使用的耗时分位
+     */
+    private static final double HEDGE_QUANTILE = 0.95;
+
+    /**
+     * 选中节点不可用时经过负载均衡器重选的次数
+     */
+    private static final int MAX_RESELECT_TIMES = 2;
+
+    ReferenceInvoker(long configVersion, GlobalRpcConfig rpcConfig, RpcReferenceConfig referenceConfig) {
+        this.configVersion = configVersion;
+        this.serviceName = referenceConfig.getServiceName();
+        this.serviceVersion = referenceConfig.getServiceVersion();
+        ServiceMetaInfoDTO serviceMetaInfo = new ServiceMetaInfoDTO();
+        serviceMetaInfo.setServiceName(serviceName);
+        serviceMetaInfo.setServiceVersion(serviceVersion);
+        this.serviceKey = serviceMetaInfo.getServiceKey();
+        this.registeredServiceKey = ServiceMetaInfoDTO.buildKey(serviceName, serviceMetaInfo.getServiceGroup(), serviceVersion);
+        this.registry = RegistryFactory.getInstance(rpcConfig.getRegistryConfig().getRegistry());
+        this.loadBalancer = LoadBalancerFactory.getInstance(referenceConfig.getLoadBalancer());
+        this.serializer = SerializerFactory.getInstance(rpcConfig.getSerializer());
+        this.useTcp = !TransportConstant.HTTP.equals(rpcConfig.getTransport());
+        this.retryStrategy = RetryStrategyFactory.getInstance(referenceConfig.getRetryStrategy());
+        this.retryPolicy = RetryPolicy.from(rpcConfig, serviceKey);
+        this.tolerantStrategy = TolerantStrategyFactory.getInstance(referenceConfig.getTolerantStrategy());
+        this.timeoutMillis = referenceConfig.getTimeout();
+        this.maxFailoverAttempts = Optional.ofNullable(rpcConfig.getMaxFailoverAttempts()).orElse(2);
+        this.failOver = TolerantStrategyConstant.FAIL_OVER.equals(referenceConfig.getTolerantStrategy());
+        this.idempotentMethods = referenceConfig.getIdempotentMethods() == null
+                ? Collections.emptySet() : referenceConfig.getIdempotentMethods();
+        this.hedgeMethods = referenceConfig.getHedgeMethods() == null
+                ? Collections.emptySet() : referenceConfig.getHedgeMethods();
+        this.hedgeDelayMillis = referenceConfig.getHedgeDelay();
+    }
+
+    /**
+     * 同步调用，调用线程只等待结果，请求、退避重试都不占用线程池
+     */
+    Object invoke(MethodMetadata metadata, Object[] args) throws Exception {
+        CompletableFuture<RpcResponse> future = call(metadata, args);
+        RpcResponse rpcResponse;
+        try {
+            rpcResponse = future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            // 超时后停止后续的重试
+            future.cancel(false);
+            log.warn("服务调用存在错误");
+            return RpcResponse.fail("服务发生错误");
+        }
+        return rpcResponse.getData();
+    }
+
+    /**
+     * 异步调用
+     * tcp 传输时结果直接在 I/O 回调中完成，调用线程不阻塞；
+     * 注意后续回调默认运行在 I/O 线程上，耗时逻辑请使用 xxxAsync 方法切换线程；
+     * 发起前的失败（无可用节点、编码失败等）同样通过返回的 Future 抛出，不直接抛给调用方
+     */
+    CompletableFuture<Object> invokeAsync(MethodMetadata metadata, Object[] args) {
+        CompletableFuture<RpcResponse> future;
+        try {
+            future = call(metadata, args);
+        } catch (Exception e) {
+            CompletableFuture<Object> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        return future.thenApply(RpcResponse::getData);
+    }
+
+    /**
+     * 发起调用：对冲、故障转移或非阻塞重试，失败时在线程池中执行容错
+     */
+    private CompletableFuture<RpcResponse> call(MethodMetadata metadata, Object[] args) throws Exception {
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        RpcRequest rpcRequest = buildRequest(metadata, args);
+        List<ServiceMetaInfoDTO> serviceMetaInfoList = discover();
+        Map<String, Object> requestParams = buildRequestParams(rpcRequest);
+        ServiceMetaInfoDTO selectedServiceMetaInfo = select(requestParams, serviceMetaInfoList);
+        byte[] bodyBytes = useTcp ? null : serializer.serialize(rpcRequest);
+        CompletableFuture<RpcResponse> responseFuture;
+        if (hedgeMethods.contains(metadata.getMethodName())) {
+            // 对冲请求本身就会换节点补发，不再叠加重试
+            responseFuture = sendHedged(rpcRequest, metadata, bodyBytes, serviceMetaInfoList, requestParams,
+                    selectedServiceMetaInfo, deadlineNanos);
+        } else if (failOver) {
+            // 故障转移会换节点重发，不再在失败节点上重试
+            responseFuture = sendAsync(rpcRequest, metadata, bodyBytes, selectedServiceMetaInfo,
+                    firstAttemptMillis(deadlineNanos, idempotentMethods.contains(metadata.getMethodName())));
+        } else {
+            // 每次尝试的超时时间由重试调度按剩余时间给出
+            responseFuture = retryStrategy.doRetryAsync(
+                    attemptTimeoutMillis -> sendAsync(rpcRequest, metadata, bodyBytes, selectedServiceMetaInfo, attemptTimeoutMillis),
+                    retryPolicy, deadlineNanos);
+        }
+        CompletableFuture<RpcResponse> result = responseFuture
+                .handle((response, e) -> {
+                    if (e == null) {
+                        // 所有成功的调用都为重试预算存入令牌，不只是经过重试的调用
+                        retryPolicy.onSuccess();
+                        return CompletableFuture.completedFuture(response);
+                    }
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    Exception exception = cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+                    // 容错策略可能同步重发请求，不能在 I/O 线程上执行；重发请求的超时时间取距截止时间的剩余时间
+                    RequestSender requestSender = serviceMetaInfo -> {
+                        RpcResponse rpcResponse = send(rpcRequest, metadata, bodyBytes, serviceMetaInfo,
+                                remainingMillis(deadlineNanos));
+                        retryPolicy.onSuccess();
+                        return rpcResponse;
+                    };
+                    Map<String, Object> context = buildTolerantContext(serviceMetaInfoList, selectedServiceMetaInfo,
+                            requestParams, requestSender, idempotentMethods.contains(metadata.getMethodName()), deadlineNanos);
+                    try {
+                        return CompletableFuture.supplyAsync(() -> tolerantStrategy.doTolerant(context, exception),
+                                RpcThreadPool.tolerantExecutor());
+                    } catch (RejectedExecutionException rejected) {
+                        log.warn("容错线程池已满，不执行容错: {}", serviceKey);
+                        CompletableFuture<RpcResponse> failed = new CompletableFuture<>();
+                        failed.completeExceptionally(exception);
+                        return failed;
+                    }
+                })
+                .thenCompose(future -> future);
+        // 取消结果时一并取消进行中的请求与重试
+        result.whenComplete((response, e) -> {
+            if (result.isCancelled()) {
+                responseFuture.cancel(false);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 向指定节点同步发送请求，经过节点熔断器
+     */
+    private RpcResponse send(RpcRequest rpcRequest, MethodMetadata metadata, byte[] bodyBytes,
+                             ServiceMetaInfoDTO serviceMetaInfo, long requestTimeoutMillis) throws Exception {
+        CircuitBreaker circuitBreaker = CircuitBreaker.of(serviceMetaInfo);
+        circuitBreaker.acquirePermission();
+        long startNanos = System.nanoTime();
+        try {
+            RpcResponse rpcResponse = useTcp
+                    ? VertxTcpClient.doRequest(rpcRequest, metadata.getSignature(), serviceMetaInfo, requestTimeoutMillis)
+                    : doHttpRequest(serviceMetaInfo, bodyBytes, requestTimeoutMillis);
+            circuitBreaker.onComplete(startNanos, null);
+            return rpcResponse;
+        } catch (Exception e) {
+            circuitBreaker.onComplete(startNanos, e);
+            throw e;
+        }
+    }
+
+    /**
+     * 向指定节点异步发送请求，经过节点熔断器
+     *
+     * @param attemptTimeoutMillis 本次请求的超时时间（毫秒），不超过距调用截止时间的剩余时间
+     */
+    private CompletableFuture<RpcResponse> sendAsync(RpcRequest rpcRequest, MethodMetadata metadata, byte[] bodyBytes,
+                                                     ServiceMetaInfoDTO serviceMetaInfo, long attemptTimeoutMillis) {
+        CircuitBreaker circuitBreaker = CircuitBreaker.of(serviceMetaInfo);
+        if (!circuitBreaker.tryAcquire()) {
+            CompletableFuture<RpcResponse> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(new BizException(ResponseCodeEnum.CIRCUIT_BREAKER_OPEN));
+            return rejected;
+        }
+        long startNanos = System.nanoTime();
+        CompletableFuture<RpcResponse> responseFuture;
+        if (useTcp) {
+            responseFuture = VertxTcpClient.doRequestAsync(rpcRequest, metadata.getSignature(), serviceMetaInfo, attemptTimeoutMillis);
+        } else {
+            // hutool http 只有同步 API，只能交给线程池
+            responseFuture = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return doHttpRequest(serviceMetaInfo, bodyBytes, attemptTimeoutMillis);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, RpcThreadPool.newExecutor());
+        }
+        // 返回原 Future，对冲取消时回调收到 CancellationException 并归还试探名额
+        responseFuture.whenComplete((response, e) -> circuitBreaker.onComplete(startNanos, e));
+        return responseFuture;
+    }
+
+    /**
+     * 对冲发送：主请求超过对冲延迟未返回时，在预算允许的情况下向另一个节点补发
+     * 延迟未配置时取主请求节点最近的 p95 耗时，样本不足或只有一个节点时不对冲
+     */
+    private CompletableFuture<RpcResponse> sendHedged(RpcRequest rpcRequest, MethodMetadata metadata, byte[] bodyBytes,
+                                                      List<ServiceMetaInfoDTO> serviceMetaInfoList, Map<String, Object> requestParams,
+                                                      ServiceMetaInfoDTO selectedServiceMetaInfo, long deadlineNanos) {
+        HedgeBudget.deposit();
+        long delayMillis = hedgeDelayMillis;
+        if (delayMillis <= 0) {
+            long p95Nanos = EndpointStats.of(selectedServiceMetaInfo).percentileNanos(HEDGE_QUANTILE);
+            delayMillis = p95Nanos < 0 ? -1L : Math.max(1L, TimeUnit.NANOSECONDS.toMillis(p95Nanos));
+        }
+        if (delayMillis <= 0 || delayMillis >= timeoutMillis || serviceMetaInfoList.size() < 2) {
+            return sendAsync(rpcRequest, metadata, bodyBytes, selectedServiceMetaInfo, remainingMillis(deadlineNanos));
+        }
+        // 对冲请求延迟发出，超时时间同样取发出时的剩余时间
+        return HedgedRequest.send(
+                serviceMetaInfo -> sendAsync(rpcRequest, metadata, bodyBytes, serviceMetaInfo, remainingMillis(deadlineNanos)),
+                selectedServiceMetaInfo,
+                () -> selectOther(requestParams, serviceMetaInfoList, selectedServiceMetaInfo),
+                delayMillis);
+    }
+
+    /**
+     * 负载均衡选择节点，跳过熔断器打开的节点
+     * 仍把完整列表交给负载均衡器（过滤后的列表会使其按快照缓存的状态失效），选中已熔断节点时重选，
+     * 重选仍不可用时从随机位置顺序查找；全部熔断时保留负载均衡的结果，由熔断器快速失败
+     */
+    private ServiceMetaInfoDTO select(Map<String, Object> requestParams, List<ServiceMetaInfoDTO> serviceMetaInfoList) {
+        ServiceMetaInfoDTO selected = loadBalancer.select(requestParams, serviceMetaInfoList);
+        if (selected == null || !CircuitBreaker.isEnabled() || CircuitBreaker.of(selected).isCallPermitted()) {
+            return selected;
+        }
+        ServiceMetaInfoDTO available = selectOther(requestParams, serviceMetaInfoList, selected);
+        return available == null ? selected : available;
+    }
+
+    /**
+     * 选择与给定节点不同且未熔断的节点，优先经过负载均衡器
+     */
+    private ServiceMetaInfoDTO selectOther(Map<String, Object> requestParams, List<ServiceMetaInfoDTO> serviceMetaInfoList,
+                                           ServiceMetaInfoDTO excluded) {
+        for (int i = 0; i < MAX_RESELECT_TIMES; i++) {
+            ServiceMetaInfoDTO selected = loadBalancer.select(requestParams, serviceMetaInfoList);
+            if (selected != null && selected != excluded && CircuitBreaker.of(selected).isCallPermitted()) {
+                return selected;
+            }
+        }
+        int size = serviceMetaInfoList.size();
+        int offset = ThreadLocalRandom.current().nextInt(size);
+        for (int i = 0; i < size; i++) {
+            ServiceMetaInfoDTO serviceMetaInfo = serviceMetaInfoList.get((offset + i) % size);
+            if (serviceMetaInfo != excluded && CircuitBreaker.of(serviceMetaInfo).isCallPermitted()) {
+                return serviceMetaInfo;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 故障转移时首次请求的超时时间：幂等方法超时后还要换节点重发，只分到与各次转移均等的一份；
+     * 非幂等方法超时后不会转移，使用全部剩余时间
+     */
+    private long firstAttemptMillis(long deadlineNanos, boolean idempotent) {
+        long remaining = remainingMillis(deadlineNanos);
+        return idempotent ? Math.max(1L, remaining / (maxFailoverAttempts + 1)) : remaining;
+    }
+
+    /**
+     * 距调用截止时间的剩余毫秒数，至少为 1
+     */
+    private static long remainingMillis(long deadlineNanos) {
+        return Math.max(1L, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+    }
+
+    private RpcRequest buildRequest(MethodMetadata metadata, Object[] args) {
+        return RpcRequest.builder()
+                .serviceName(serviceName)
+                .serviceVersion(serviceVersion)
+                .methodName(metadata.getMethodName())
+                .parameterTypes(metadata.getParameterTypes())
+                .args(args)
+                .build();
+    }
+
+    /**
+     * 服务发现
+     */
+    private List<ServiceMetaInfoDTO> discover() {
+        List<ServiceMetaInfoDTO> serviceMetaInfoList = registry.serviceDiscovery(serviceKey);
+        if (CollUtil.isEmpty(serviceMetaInfoList)) {
+            throw new BizException("暂无服务地址");
+        }
+        return serviceMetaInfoList;
+    }
+
+    private Map<String, Object> buildRequestParams(RpcRequest rpcRequest) {
+        // 将服务键、调用方法名（请求路径）和参数作为负载均衡参数
+        Map<String, Object> requestParams = new HashMap<>();
+        requestParams.put(LoadBalancerConstant.PARAM_SERVICE_KEY, serviceKey);
+        requestParams.put(LoadBalancerConstant.PARAM_METHOD_NAME, rpcRequest.getMethodName());
+        requestParams.put(LoadBalancerConstant.PARAM_ARGS, rpcRequest.getArgs());
+        return requestParams;
+    }
+
+    /**
+     * 容错上下文，故障转移等策略据此换节点重发
+     */
+    private Map<String, Object> buildTolerantContext(List<ServiceMetaInfoDTO> serviceMetaInfoList, ServiceMetaInfoDTO selectedServiceMetaInfo,
+                                                     Map<String, Object> requestParams, RequestSender requestSender,
+                                                     boolean idempotent, long deadlineNanos) {
+        Map<String, Object> context = new HashMap<>();
+        context.put(TolerantStrategyConstant.CONTEXT_SERVICE_LIST, serviceMetaInfoList);
+        context.put(TolerantStrategyConstant.CONTEXT_SELECTED_SERVICE, selectedServiceMetaInfo);
+        context.put(TolerantStrategyConstant.CONTEXT_LOAD_BALANCER, loadBalancer);
+        context.put(TolerantStrategyConstant.CONTEXT_REQUEST_PARAMS, requestParams);
+        context.put(TolerantStrategyConstant.CONTEXT_REQUEST_SENDER, requestSender);
+        context.put(TolerantStrategyConstant.CONTEXT_MAX_ATTEMPTS, maxFailoverAttempts);
+        context.put(TolerantStrategyConstant.CONTEXT_IDEMPOTENT, idempotent);
+        context.put(TolerantStrategyConstant.CONTEXT_DEADLINE_NANOS, deadlineNanos);
+        return context;
+    }
+
+    //发送http请求到vertix服务器
+    private RpcResponse doHttpRequest(ServiceMetaInfoDTO selectedServiceMetaInfo, byte[] bodyBytes, long requestTimeoutMillis) throws IOException {
+        EndpointStats stats = EndpointStats.of(selectedServiceMetaInfo);
+        long startNanos = stats.start();
+        boolean success = false;
+        // 发送 HTTP 请求 POST 自动关闭资源
+        try (HttpResponse httpResponse = HttpRequest.post(selectedServiceMetaInfo.getServiceAddress())
+                .body(bodyBytes)
+                .timeout((int) Math.min(Integer.MAX_VALUE, requestTimeoutMillis))
+                .execute()) {
+            byte[] result = httpResponse.bodyBytes();
+            // 反序列化
+            RpcResponse rpcResponse = serializer.deserialize(result, RpcResponse.class);
+            success = true;
+            return rpcResponse;
+        } finally {
+            stats.finish(startNanos, success);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.github.rpc.common.proxy;
 import com.github.rpc.constants.LoadBalancerConstant;
 import com.github.rpc.constants.RetryStrategyConstant;
 import com.github.rpc.constants.RpcLoadConstant;
+import com.github.rpc.constants.TolerantStrategyConstant;
 
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
@@ -36,7 +37,28 @@ public @interface RpcReference {
     /**
      * 容错策略
      */
-    String tolerantStrategy() default "failsafe";
+    String tolerantStrategy() default TolerantStrategyConstant.FAIL_SAFE;
+
+    /**
+     * 单次请求超时时间（毫秒），不大于 0 时使用全局配置
+     */
+    long timeout() default 0;
+
+    /**
+     * 幂等方法名，超时等结果不确定的失败也可以故障转移到其他节点重发；
+     * 其余方法只在请求确定未发出（连接失败、节点熔断）时故障转移
+     */
+    String[] idempotentMethods() default {};
+
+    /**
+     * 启用对冲请求的方法名，只应配置只读、幂等的方法
+     */
+    String[] hedgeMethods() default {};
+
+    /**
+     * 对冲延迟（毫秒），不大于 0 时按主请求节点最近的 p95 耗时
+     */
+    long hedgeDelay() default 0;
 
     /**
      * 模拟调用
@@ -1,51 +1,39 @@
 package com.github.rpc.common.proxy;
 
-import cn.hutool.core.collection.CollUtil;
-import cn.hutool.http.HttpRequest;
-import cn.hutool.http.HttpResponse;
 import com.github.rpc.RpcApplication;
-import com.github.rpc.common.loadblanace.LoadBalancerFactory;
-import com.github.rpc.common.loadblanace.LoadBalancerStrategy;
-import com.github.rpc.common.registry.Registry;
-import com.github.rpc.common.registry.RegistryFactory;
-import com.github.rpc.common.retry.RetryStrategy;
-import com.github.rpc.common.retry.RetryStrategyFactory;
-import com.github.rpc.common.serializer.KryoSerializer;
-import com.github.rpc.common.serializer.Serializer;
-import com.github.rpc.common.serializer.SerializerFactory;
-import com.github.rpc.common.tolerant.TolerantStrategy;
-import com.github.rpc.common.tolerant.TolerantStrategyFactory;
-import com.github.rpc.config.GlobalRpcConfig;
-import com.github.rpc.config.RpcReferenceConfig;
-import com.github.rpc.config.RpcThreadPool;
-import com.github.rpc.constants.RpcLoadConstant;
-import com.github.rpc.constants.TolerantStrategyConstant;
-import com.github.rpc.exception.BizException;
-import com.github.rpc.model.RpcRequest;
-import com.github.rpc.model.RpcResponse;
-import com.github.rpc.model.dto.ServiceMetaInfoDTO;
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.IOException;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * TODO 这里默认适用服务类代理对象
+ * 调用链在创建代理时组装，调用时只比较一次配置版本
  */
 @Slf4j
 
 public class ServiceProxy implements InvocationHandler {
 
-    private RpcReferenceConfig config;
+    private final Class<?> interfaceClass;
 
-    public void setConfig(RpcReferenceConfig config) {
-        this.config = config;
+    private final RpcReference rpcReference;
+
+    /**
+     * 当前调用链，全局配置变更后重建
+     */
+    private volatile ReferenceInvoker invoker;
+
+    /**
+     * 方法元数据缓存
+     */
+    private final Map<Method, MethodMetadata> methodMetadataMap = new ConcurrentHashMap<>();
+
+    public ServiceProxy(Class<?> interfaceClass, RpcReference rpcReference) {
+        this.interfaceClass = interfaceClass;
+        this.rpcReference = rpcReference;
+        this.invoker = buildInvoker();
     }
 
 
@@ -57,85 +45,65 @@ public class ServiceProxy implements InvocationHandler {
      */
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-        // 构造请求
-        String serviceName = method.getDeclaringClass().getName();
-        RpcRequest rpcRequest = RpcRequest.builder()
-                .serviceName(serviceName)
-                .methodName(method.getName())
-                .parameterTypes(method.getParameterTypes())
-                .args(args)
-                .build();
-
-        // 从注册中心获取服务提供者请求地址
-        GlobalRpcConfig rpcConfig = RpcApplication.getRpcConfig();
-        RpcReferenceConfig thisConfig = config;
-        Registry registry = RegistryFactory.getInstance(rpcConfig.getRegistryConfig().getRegistry());
-        ServiceMetaInfoDTO serviceMetaInfo = new ServiceMetaInfoDTO();
-        serviceMetaInfo.setServiceName(serviceName);
-        serviceMetaInfo.setServiceVersion(RpcLoadConstant.DEFAULT_SERVICE_VERSION);
-        List<ServiceMetaInfoDTO> serviceMetaInfoList = registry.serviceDiscovery(serviceMetaInfo.getServiceKey());
-        if (CollUtil.isEmpty(serviceMetaInfoList)) {
-            throw new BizException("暂无服务地址");
+        // equals/hashCode/toString 在本地处理，不发起远程调用
+        if (isLocalObjectMethod(method)) {
+            return invokeObjectMethod(proxy, method, args);
+        }
+        ReferenceInvoker currentInvoker = getInvoker();
+        MethodMetadata metadata = methodMetadataMap.computeIfAbsent(method,
+                m -> new MethodMetadata(currentInvoker.getRegisteredServiceKey(), m));
+        // 返回 CompletableFuture 的方法走异步调用，不占用任何阻塞线程
+        if (metadata.isAsync()) {
+            return currentInvoker.invokeAsync(metadata, args);
         }
+        return currentInvoker.invoke(metadata, args);
+    }
 
-        // 负载均衡
-        LoadBalancerStrategy loadBalancer = LoadBalancerFactory.getInstance(thisConfig.getLoadBalancer());
-        // 将调用方法名（请求路径）作为负载均衡参数
-        Map<String, Object> requestParams = new HashMap<>();
-        //调用方法
-        requestParams.put("methodName", rpcRequest.getMethodName());
-        ServiceMetaInfoDTO selectedServiceMetaInfo = loadBalancer.select(requestParams, serviceMetaInfoList);
-        // http 请求
-        // 指定序列化器
-        Serializer serializer = SerializerFactory.getInstance(RpcApplication.getRpcConfig().getSerializer());
-        byte[] bodyBytes = serializer.serialize(rpcRequest);
-        // 使用重试机制
-        RpcResponse rpcResponse = null;
-        RetryStrategy retryStrategy = RetryStrategyFactory.getInstance(thisConfig.getRetryStrategy());
-        //假设这里使用空字符拆n TODO 待实现
-        TolerantStrategy tolerantStrategy = TolerantStrategyFactory.getInstance(TolerantStrategyConstant.FAIL_FAST);
-        // 使用线程池执行 HTTP 请求（异步执行，但主线程阻塞等待结果）子线程进行处理
-        Future<RpcResponse> future = RpcThreadPool.newExecutor().submit(() -> {
-            try {
-                return retryStrategy.doRetry(() ->
-                        doHttpRequest(selectedServiceMetaInfo, bodyBytes, serializer)
-        );
-            } catch (Exception e) {
-                return tolerantStrategy.doTolerant(null, e);
-            }finally {
-                //清理ThreadLocal
-                KryoSerializer.resetKryo();
+    private ReferenceInvoker getInvoker() {
+        ReferenceInvoker currentInvoker = invoker;
+        if (currentInvoker.getConfigVersion() == RpcApplication.getConfigVersion()) {
+            return currentInvoker;
+        }
+        synchronized (this) {
+            if (invoker.getConfigVersion() != RpcApplication.getConfigVersion()) {
+                log.info("全局配置已变更，重建服务引用调用链: {}", interfaceClass.getName());
+                invoker = buildInvoker();
             }
-        });
-
-        try {
-             rpcResponse = future.get(1, TimeUnit.SECONDS);
-        } catch (Exception e){
-            log.warn("服务调用存在错误");
-            return RpcResponse.fail("服务发生错误");
-
+            return invoker;
         }
-
-        //返回调用结果
-        return rpcResponse.getData();
-
-
     }
 
+    private ReferenceInvoker buildInvoker() {
+        // 确保已初始化；先取版本再取配置，并发更新时最多多重建一次
+        RpcApplication.getRpcConfig();
+        long configVersion = RpcApplication.getConfigVersion();
+        return new ReferenceInvoker(configVersion, RpcApplication.getRpcConfig(),
+                ServiceProxyFactory.buildConfig(interfaceClass, rpcReference));
+    }
 
-    //发送http请求到vertix服务器
-    private static RpcResponse doHttpRequest(ServiceMetaInfoDTO selectedServiceMetaInfo, byte[] bodyBytes,Serializer serializer) throws IOException {
+    /**
+     * 动态代理只会把 Object 的 equals、hashCode、toString 转发给 InvocationHandler，
+     * 其余 Object 方法是 final 或 protected，不会到达这里；接口中重新声明的同名方法也按这三个方法处理
+     */
+    private static boolean isLocalObjectMethod(Method method) {
+        switch (method.getName()) {
+            case "equals":
+                return method.getParameterCount() == 1 && method.getParameterTypes()[0] == Object.class;
+            case "hashCode":
+            case "toString":
+                return method.getParameterCount() == 0;
+            default:
+                return false;
+        }
+    }
 
-        //序列化处理 加载 默认Json
-        // 发送 HTTP 请求 POST 自动关闭资源
-        try (HttpResponse httpResponse = HttpRequest.post(selectedServiceMetaInfo.getServiceAddress())
-                .body(bodyBytes)
-                .execute()) {
-            byte[] result = httpResponse.bodyBytes();
-            // 反序列化
-            RpcResponse rpcResponse = serializer.deserialize(result, RpcResponse.class);
-            return rpcResponse;
+    private Object invokeObjectMethod(Object proxy, Method method, Object[] args) {
+        if ("equals".equals(method.getName())) {
+            return proxy == args[0];
         }
+        if ("hashCode".equals(method.getName())) {
+            return System.identityHashCode(proxy);
+        }
+        return "RpcProxy(" + interfaceClass.getName() + ")";
     }
 }
-
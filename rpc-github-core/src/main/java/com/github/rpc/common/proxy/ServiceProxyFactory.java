@@ -7,22 +7,26 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 
 import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Optional;
 
 @Slf4j
 public class ServiceProxyFactory {
 
+    /**
+     * 默认单次请求超时时间（毫秒）
+     */
+    private static final long DEFAULT_TIMEOUT_MILLIS = 1000L;
+
     /**
      * 根据接口和注解配置生成代理对象
      */
     public static <T> T getProxy(Class<T> interfaceClass, RpcReference rpcReference) {
-        // 1. 构建最终的引用配置（全局配置 + 注解覆盖）
-        RpcReferenceConfig config = buildConfig(interfaceClass, rpcReference);
-
-        // 2. 创建代理处理器
-        ServiceProxy serviceProxy = new ServiceProxy();
-        serviceProxy.setConfig(config); // 注入合并后的配置
+        // 1. 创建代理处理器，同时按合并后的配置（全局配置 + 注解覆盖）组装调用链
+        ServiceProxy serviceProxy = new ServiceProxy(interfaceClass, rpcReference);
 
-        // 3. 创建动态代理
+        // 2. 创建动态代理
         return (T) Proxy.newProxyInstance(
                 interfaceClass.getClassLoader(),
                 new Class[]{interfaceClass},
@@ -33,7 +37,7 @@ public class ServiceProxyFactory {
     /**
      * 合并全局配置与注解配置
      */
-    private static RpcReferenceConfig buildConfig(Class<?> interfaceClass, RpcReference rpcReference) {
+    static RpcReferenceConfig buildConfig(Class<?> interfaceClass, RpcReference rpcReference) {
         GlobalRpcConfig globalConfig = RpcApplication.getRpcConfig();
 
         return RpcReferenceConfig.builder()
@@ -43,6 +47,11 @@ public class ServiceProxyFactory {
                 .retryStrategy(StringUtils.defaultIfBlank(rpcReference.retryStrategy(), globalConfig.getRetryStrategy()))
                 .tolerantStrategy(StringUtils.defaultIfBlank(rpcReference.tolerantStrategy(), globalConfig.getTolerantStrategy()))
                 .mock(rpcReference.mock() || globalConfig.isMock()) // mock 可来自全局或注解
+                .timeout(rpcReference.timeout() > 0 ? rpcReference.timeout()
+                        : Optional.ofNullable(globalConfig.getTimeout()).orElse(DEFAULT_TIMEOUT_MILLIS))
+                .idempotentMethods(new HashSet<>(Arrays.asList(rpcReference.idempotentMethods())))
+                .hedgeMethods(new HashSet<>(Arrays.asList(rpcReference.hedgeMethods())))
+                .hedgeDelay(rpcReference.hedgeDelay())
                 .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.github.rpc.common.registry;
+
+import com.github.rpc.common.loadblanace.EndpointStats;
+import com.github.rpc.common.tolerant.CircuitBreaker;
+import com.github.rpc.model.RegistryServiceMultiCache;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 服务提供者从服务发现中下线时，丢弃按节点保存的熔断器和按地址保存的调用统计，避免节点频繁上下线时无限增长
+ */
+@Slf4j
+public class EndpointEvictionListener implements RegistryServiceMultiCache.EvictionListener {
+
+    public static final EndpointEvictionListener INSTANCE = new EndpointEvictionListener();
+
+    private EndpointEvictionListener() {
+    }
+
+    @Override
+    public void onNodeRemoved(String serviceNodeKey) {
+        log.debug("服务节点已下线，丢弃熔断器: {}", serviceNodeKey);
+        CircuitBreaker.remove(serviceNodeKey);
+    }
+
+    @Override
+    public void onAddressRemoved(String address) {
+        log.debug("服务提供者已下线，丢弃调用统计: {}", address);
+        EndpointStats.remove(address);
+    }
+}
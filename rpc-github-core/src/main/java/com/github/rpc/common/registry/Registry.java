@@ -22,6 +22,18 @@ public interface Registry {
      */
     void register(ServiceMetaInfoDTO ServiceMetaInfoDTO) throws Exception;
 
+    /**
+     * 批量注册本节点导出的所有服务（服务端）
+     * 默认逐个注册，支持租约的注册中心可合并为一次写入
+     *
+     * @param serviceMetaInfoList
+     */
+    default void registerBatch(List<ServiceMetaInfoDTO> serviceMetaInfoList) throws Exception {
+        for (ServiceMetaInfoDTO serviceMetaInfo : serviceMetaInfoList) {
+            register(serviceMetaInfo);
+        }
+    }
+
     /**
      * 注销服务（服务端）
      *
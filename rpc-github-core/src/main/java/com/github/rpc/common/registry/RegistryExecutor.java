@@ -0,0 +1,46 @@
+package com.github.rpc.common.registry;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 注册中心后台任务线程池
+ * 后台刷新服务列表会阻塞等待注册中心响应，使用独立的小线程池，注册中心变慢时不占用调用链使用的线程；
+ * 同一服务键的刷新已由 SingleFlight 合并，排队任务数不超过服务数，队列满时直接拒绝，调用方继续使用旧数据
+ */
+public class RegistryExecutor {
+
+    private static final int THREADS = 2;
+
+    private static final int QUEUE_CAPACITY = 256;
+
+    private static final long KEEP_ALIVE_SECONDS = 60L;
+
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    private static final ThreadPoolExecutor EXECUTOR = newExecutor();
+
+    private static ThreadPoolExecutor newExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS, THREADS,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                r -> {
+                    Thread thread = new Thread(r, "rpc-registry-refresh-" + THREAD_NUMBER.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 后台刷新服务列表使用的线程池
+     */
+    public static Executor refreshExecutor() {
+        return EXECUTOR;
+    }
+}
@@ -0,0 +1,235 @@
+package com.github.rpc.common.registry;
+
+import cn.hutool.core.util.StrUtil;
+import com.github.rpc.config.RegistryConfig;
+import com.github.rpc.model.RegistryServiceMultiCache;
+import com.github.rpc.model.dto.ServiceMetaInfoDTO;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 服务发现结果的本地快照
+ * 定时把 RegistryServiceMultiCache 写成紧凑的二进制文件（先写临时文件再原子替换），
+ * 启动时内存映射读回，注册中心不可用时消费端仍可用上次的服务列表发起调用
+ * <p>
+ * 文件格式：magic(int) version(byte) 服务数(int)
+ * 每个服务：服务键(str) 实例数(int)，每个实例：serviceName(str) serviceVersion(str) serviceHost(str) servicePort(int) weight(int) serviceGroup(str)
+ * str 为 长度(short) + UTF-8 字节，null 长度记 -1；int 为 null 时记 -1
+ */
+@Slf4j
+public class RegistrySnapshotStore {
+
+    private static final int MAGIC = 0x52504353;
+
+    private static final byte VERSION = 1;
+
+    /**
+     * 所有注册中心共用一个写快照的后台线程
+     */
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "rpc-registry-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Path file;
+
+    private final RegistryServiceMultiCache cache;
+
+    private final long intervalSeconds;
+
+    /**
+     * 上次写入时缓存的修改次数，未变化时跳过写入
+     */
+    private volatile long savedModCount = -1;
+
+    private ScheduledFuture<?> saveTask;
+
+    private RegistrySnapshotStore(Path file, RegistryServiceMultiCache cache, long intervalSeconds) {
+        this.file = file;
+        this.cache = cache;
+        this.intervalSeconds = intervalSeconds;
+    }
+
+    /**
+     * 按注册中心配置创建快照
+     *
+     * @return 快照间隔不大于 0 时返回 null（不启用快照）
+     */
+    public static RegistrySnapshotStore create(RegistryConfig registryConfig, RegistryServiceMultiCache cache) {
+        long intervalSeconds = Optional.ofNullable(registryConfig.getSnapshotInterval()).orElse(0L);
+        if (intervalSeconds <= 0) {
+            return null;
+        }
+        String snapshotFile = registryConfig.getSnapshotFile();
+        if (StrUtil.isBlank(snapshotFile)) {
+            snapshotFile = Paths.get(System.getProperty("user.home"), ".rpc",
+                    "registry-" + registryConfig.getRegistry() + ".snapshot").toString();
+        }
+        return new RegistrySnapshotStore(Paths.get(snapshotFile), cache, intervalSeconds);
+    }
+
+    /**
+     * 读回快照到缓存并开始定时写入
+     */
+    public void start() {
+        load();
+        saveTask = SCHEDULER.scheduleWithFixedDelay(this::save, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 停止定时写入并写入最后一次
+     */
+    public void close() {
+        if (saveTask != null) {
+            saveTask.cancel(false);
+        }
+        save();
+    }
+
+    /**
+     * 内存映射读取快照文件，文件不存在或损坏时忽略
+     */
+    void load() {
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Map<String, List<ServiceMetaInfoDTO>> services = read(buffer);
+            cache.loadStaleCache(services);
+            log.info("已读取服务发现快照 {}，共 {} 个服务", file, services.size());
+        } catch (Exception e) {
+            log.warn("服务发现快照读取失败，忽略: {}", file, e);
+        }
+    }
+
+    /**
+     * 缓存有变化时写入快照
+     */
+    void save() {
+        long modCount = cache.getModCount();
+        if (modCount == savedModCount) {
+            return;
+        }
+        Map<String, List<ServiceMetaInfoDTO>> services = cache.export();
+        if (services.isEmpty()) {
+            return;
+        }
+        try {
+            Path dir = file.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+            try {
+                try (OutputStream out = Files.newOutputStream(tmp)) {
+                    write(new DataOutputStream(new BufferedOutputStream(out)), services);
+                }
+                move(tmp);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            savedModCount = modCount;
+        } catch (Exception e) {
+            log.warn("服务发现快照写入失败: {}", file, e);
+        }
+    }
+
+    private void move(Path tmp) throws IOException {
+        try {
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    static void write(DataOutputStream out, Map<String, List<ServiceMetaInfoDTO>> services) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(services.size());
+        for (Map.Entry<String, List<ServiceMetaInfoDTO>> entry : services.entrySet()) {
+            writeString(out, entry.getKey());
+            out.writeInt(entry.getValue().size());
+            for (ServiceMetaInfoDTO serviceMetaInfo : entry.getValue()) {
+                writeString(out, serviceMetaInfo.getServiceName());
+                writeString(out, serviceMetaInfo.getServiceVersion());
+                writeString(out, serviceMetaInfo.getServiceHost());
+                out.writeInt(Optional.ofNullable(serviceMetaInfo.getServicePort()).orElse(-1));
+                out.writeInt(Optional.ofNullable(serviceMetaInfo.getWeight()).orElse(-1));
+                writeString(out, serviceMetaInfo.getServiceGroup());
+            }
+        }
+        out.flush();
+    }
+
+    static Map<String, List<ServiceMetaInfoDTO>> read(ByteBuffer buffer) {
+        if (buffer.getInt() != MAGIC || buffer.get() != VERSION) {
+            log.warn("服务发现快照格式不匹配，忽略");
+            return Collections.emptyMap();
+        }
+        int serviceCount = buffer.getInt();
+        Map<String, List<ServiceMetaInfoDTO>> services = new LinkedHashMap<>(serviceCount * 2);
+        for (int i = 0; i < serviceCount; i++) {
+            String serviceKey = readString(buffer);
+            int instanceCount = buffer.getInt();
+            List<ServiceMetaInfoDTO> instances = new ArrayList<>(instanceCount);
+            for (int j = 0; j < instanceCount; j++) {
+                ServiceMetaInfoDTO serviceMetaInfo = new ServiceMetaInfoDTO();
+                serviceMetaInfo.setServiceName(readString(buffer));
+                serviceMetaInfo.setServiceVersion(readString(buffer));
+                serviceMetaInfo.setServiceHost(readString(buffer));
+                int port = buffer.getInt();
+                serviceMetaInfo.setServicePort(port < 0 ? null : port);
+                int weight = buffer.getInt();
+                serviceMetaInfo.setWeight(weight < 0 ? null : weight);
+                serviceMetaInfo.setServiceGroup(readString(buffer));
+                instances.add(serviceMetaInfo);
+            }
+            services.put(serviceKey, instances);
+        }
+        return services;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeShort(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -2,16 +2,23 @@ package com.github.rpc.common.registry.impl;
 
 import cn.hutool.core.collection.ConcurrentHashSet;
 import cn.hutool.json.JSONUtil;
+import com.github.rpc.common.registry.EndpointEvictionListener;
 import com.github.rpc.common.registry.Registry;
+import com.github.rpc.common.registry.RegistryExecutor;
+import com.github.rpc.common.registry.RegistrySnapshotStore;
+import com.github.rpc.common.utils.SingleFlight;
 import com.github.rpc.config.RegistryConfig;
 import com.github.rpc.model.RegistryServiceCache;
 import com.github.rpc.model.RegistryServiceMultiCache;
 import com.github.rpc.model.dto.ServiceMetaInfoDTO;
 import io.etcd.jetcd.*;
-import io.etcd.jetcd.lease.LeaseGrantResponse;
+import io.etcd.jetcd.common.exception.CompactedException;
+import io.etcd.jetcd.kv.GetResponse;
 import io.etcd.jetcd.lease.LeaseKeepAliveResponse;
+import io.etcd.jetcd.op.Op;
 import io.etcd.jetcd.options.GetOption;
 import io.etcd.jetcd.options.PutOption;
+import io.etcd.jetcd.options.WatchOption;
 import io.etcd.jetcd.support.CloseableClient;
 import io.etcd.jetcd.watch.WatchEvent;
 import io.grpc.stub.StreamObserver;
@@ -21,7 +28,9 @@ import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 public class EtcdRegistry implements Registry {
@@ -31,9 +40,9 @@ public class EtcdRegistry implements Registry {
     private KV kvClient;
 
     /**
-     * 本机注册的节点 key 集合（用于维护续期）
+     * 本机注册的节点 etcd key => 节点信息（用于续期失败后重新注册）
      */
-    private final Set<String> localRegisterNodeKeySet = new HashSet<>();
+    private final Map<String, String> localRegisterNodeMap = new ConcurrentHashMap<>();
 
     /**
      * 注册中心服务缓存（只支持单个服务缓存，已废弃，请使用下方的 RegistryServiceMultiCache）
@@ -42,30 +51,85 @@ public class EtcdRegistry implements Registry {
     private final RegistryServiceCache registryServiceCache = new RegistryServiceCache();
 
     /**
-     * 正在监听的 Watch 实例集合（用于后续取消监听）
+     * 正在监听的 Watch 实例 服务键 => 前缀监听（用于后续取消监听）
      */
     private final Map<String, Watch.Watcher> watchMap = new ConcurrentHashMap<>();
     /**
      * 注册中心服务缓存（支持多个服务键）
      */
-    private final RegistryServiceMultiCache registryServiceMultiCache = new RegistryServiceMultiCache();
+    private final RegistryServiceMultiCache registryServiceMultiCache = new RegistryServiceMultiCache(EndpointEvictionListener.INSTANCE);
 
     /**
-     * 续期对应的服务MAP
+     * 正在监听的服务键集合
      */
-    private Map<String, Long> serviceLeaseMap = new ConcurrentHashMap<>();
+    private final Set<String> watchingKeySet = new ConcurrentHashSet<>();
+
     /**
-     * 正在监听的 key 集合
+     * 每个服务键最后处理的事件版本，监听中断后从下一版本继续
      */
-    private final Set<String> watchingKeySet = new ConcurrentHashSet<>();
-    // 1. 定义一个容器，保存每个 Lease 的 KeepAlive 连接
-    private final Map<String, CloseableClient> keepAliveMap = new ConcurrentHashMap<>();
+    private final Map<String, Long> watchRevisionMap = new ConcurrentHashMap<>();
+
+    /**
+     * 服务键 => 进行中的服务列表加载，合并同一服务键的并发缓存未命中
+     */
+    private final SingleFlight<String, List<ServiceMetaInfoDTO>> serviceLoader = new SingleFlight<>();
+
+    /**
+     * 全量查询超时时间（毫秒），并发的缓存未命中都在等同一次查询
+     */
+    private long timeoutMillis = 5000L;
+
+    /**
+     * 服务发现结果的本地快照，未启用时为 null
+     */
+    private RegistrySnapshotStore snapshotStore;
+
+    private volatile boolean destroyed;
+
+    /**
+     * 本节点所有服务共用的租约，0 表示尚未申请
+     */
+    private volatile long nodeLeaseId;
+
+    /**
+     * 节点租约的 KeepAlive 连接
+     */
+    private CloseableClient nodeKeepAlive;
+
+    /**
+     * 租约申请、节点写入与重新注册互斥
+     */
+    private final Object leaseLock = new Object();
+
+    /**
+     * 续期失败后重新注册的调度线程
+     */
+    private final ScheduledExecutorService reRegisterScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "rpc-etcd-register");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     /**
      * 根节点
      */
     private static final String ETCD_ROOT_PATH = "/rpc/";
 
+    /**
+     * 节点租约 TTL（秒）
+     */
+    private static final long LEASE_TTL_SECONDS = 10L;
+
+    /**
+     * 单个事务最多的操作数（etcd 默认 --max-txn-ops=128）
+     */
+    private static final int MAX_TXN_OPS = 128;
+
+    /**
+     * 重新注册的最大退避时间（毫秒）
+     */
+    private static final long MAX_RE_REGISTER_DELAY_MILLIS = 30000L;
+
     @Override
     public void init(RegistryConfig registryConfig) {
         client = Client.builder()
@@ -73,91 +137,188 @@ public class EtcdRegistry implements Registry {
                 .connectTimeout(Duration.ofMillis(registryConfig.getTimeout()))
                 .build();
         kvClient = client.getKVClient();
+        timeoutMillis = Optional.ofNullable(registryConfig.getTimeout()).orElse(timeoutMillis);
+
+        snapshotStore = RegistrySnapshotStore.create(registryConfig, registryServiceMultiCache);
+        if (snapshotStore != null) {
+            snapshotStore.start();
+        }
     }
 
 
 
     @Override
     public void register(ServiceMetaInfoDTO serviceMetaInfo) throws Exception {
-        // 创建 Lease 和 KV 客户端
-        Lease leaseClient = client.getLeaseClient();
-
-
-        // 创建租约，TTL 设置为 10 秒
-        LeaseGrantResponse leaseGrantResponse = client.getLeaseClient().grant(10).get();
-        long leaseId = leaseGrantResponse.getID();
+        registerBatch(Collections.singletonList(serviceMetaInfo));
+    }
 
-        // 设置要存储的键值对
-        String registerKey = ETCD_ROOT_PATH + serviceMetaInfo.getServiceNodeKey();
-        ByteSequence key = ByteSequence.from(registerKey, StandardCharsets.UTF_8);
-        ByteSequence value = ByteSequence.from(JSONUtil.toJsonStr(serviceMetaInfo), StandardCharsets.UTF_8);
-        //本地映射 方便keepAlive对应租期
-        serviceLeaseMap.put(registerKey, leaseId);
-        // 将键值对与租约关联起来，并设置过期时间
-        PutOption putOption = PutOption.builder().withLeaseId(leaseId).build();
-        kvClient.put(key, value, putOption).get();
-        // 添加节点信息到本地缓存
-        localRegisterNodeKeySet.add(registerKey);
+    /**
+     * 批量注册：本节点的所有服务共用一个租约和一条 KeepAlive，
+     * 节点信息在事务中一次写入；续期失败时按本地记录整体重新注册
+     */
+    @Override
+    public void registerBatch(List<ServiceMetaInfoDTO> serviceMetaInfoList) throws Exception {
+        Map<String, String> nodes = new LinkedHashMap<>();
+        for (ServiceMetaInfoDTO serviceMetaInfo : serviceMetaInfoList) {
+            nodes.put(ETCD_ROOT_PATH + serviceMetaInfo.getServiceNodeKey(), JSONUtil.toJsonStr(serviceMetaInfo));
+        }
+        synchronized (leaseLock) {
+            putNodes(nodes, ensureLease());
+            localRegisterNodeMap.putAll(nodes);
+        }
+        log.info("已注册 {} 个服务节点，租约 {}", nodes.size(), nodeLeaseId);
+    }
 
-        // 启动 KeepAlive
-        // 启动 KeepAlive
+    /**
+     * 获取节点租约，不存在时创建并启动 KeepAlive
+     */
+    private long ensureLease() throws Exception {
+        if (nodeLeaseId != 0L) {
+            return nodeLeaseId;
+        }
+        long leaseId = client.getLeaseClient().grant(LEASE_TTL_SECONDS).get(timeoutMillis, TimeUnit.MILLISECONDS).getID();
         StreamObserver<LeaseKeepAliveResponse> responseObserver = new StreamObserver<LeaseKeepAliveResponse>() {
             @Override
             public void onNext(LeaseKeepAliveResponse response) {
-                System.out.println("Lease " + leaseId + " 续期成功，剩余 TTL: " + response.getTTL());
+                log.debug("Lease {} 续期成功，剩余 TTL: {}", leaseId, response.getTTL());
             }
 
             @Override
             public void onError(Throwable throwable) {
-                System.err.println("Lease " + leaseId + " 续期失败: " + throwable.getMessage());
-                // 在这里可以考虑重新注册服务
+                log.warn("Lease {} 续期失败，准备重新注册", leaseId, throwable);
+                scheduleReRegister(leaseId, 0L);
             }
 
             @Override
             public void onCompleted() {
-                System.out.println("Lease " + leaseId + " KeepAlive 完成");
+                log.info("Lease {} KeepAlive 完成", leaseId);
+                scheduleReRegister(leaseId, 0L);
             }
         };
-        //加入对应
-        CloseableClient keepAliveClient = client.getLeaseClient().keepAlive(leaseId, responseObserver);
+        // 保存引用，防止被 GC 回收导致连接断开
+        nodeKeepAlive = client.getLeaseClient().keepAlive(leaseId, responseObserver);
+        nodeLeaseId = leaseId;
+        return leaseId;
+    }
 
-        // ✅ 保存引用，防止被 GC 回收导致连接断开
-        keepAliveMap.put(registerKey, keepAliveClient);
-        log.info("启动keepAlive服务~ 成功");
+    /**
+     * 在事务中写入节点，单个事务的操作数有上限，超出时分批提交
+     */
+    private void putNodes(Map<String, String> nodes, long leaseId) throws Exception {
+        PutOption putOption = PutOption.builder().withLeaseId(leaseId).build();
+        List<Op> ops = new ArrayList<>(Math.min(nodes.size(), MAX_TXN_OPS));
+        for (Map.Entry<String, String> node : nodes.entrySet()) {
+            ops.add(Op.put(ByteSequence.from(node.getKey(), StandardCharsets.UTF_8),
+                    ByteSequence.from(node.getValue(), StandardCharsets.UTF_8), putOption));
+            if (ops.size() == MAX_TXN_OPS) {
+                commitTxn(ops);
+                ops.clear();
+            }
+        }
+        if (!ops.isEmpty()) {
+            commitTxn(ops);
+        }
+    }
 
+    private void commitTxn(List<Op> ops) throws Exception {
+        kvClient.txn().Then(ops.toArray(new Op[0])).commit().get(timeoutMillis, TimeUnit.MILLISECONDS);
     }
 
+    /**
+     * 租约失效后重新申请租约并写入本节点的全部服务，失败时退避重试
+     *
+     * @param failedLeaseId 失效的租约，已被其他任务替换时不再处理
+     * @param delayMillis   延迟时间
+     */
+    private void scheduleReRegister(long failedLeaseId, long delayMillis) {
+        if (destroyed) {
+            return;
+        }
+        reRegisterScheduler.schedule(() -> {
+            synchronized (leaseLock) {
+                if (destroyed || nodeLeaseId != failedLeaseId) {
+                    return;
+                }
+                closeLease(false);
+                if (localRegisterNodeMap.isEmpty()) {
+                    return;
+                }
+                try {
+                    putNodes(new LinkedHashMap<>(localRegisterNodeMap), ensureLease());
+                    log.info("已重新注册 {} 个服务节点，租约 {}", localRegisterNodeMap.size(), nodeLeaseId);
+                } catch (Exception e) {
+                    long nextDelay = Math.min(Math.max(delayMillis * 2, 1000L), MAX_RE_REGISTER_DELAY_MILLIS);
+                    log.warn("重新注册失败，{} 毫秒后重试", nextDelay, e);
+                    // 记录当前租约（可能已申请成功），下次重试时替换
+                    scheduleReRegister(nodeLeaseId, nextDelay);
+                }
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 关闭节点租约的 KeepAlive
+     *
+     * @param revoke 是否撤销租约（撤销后租约下的节点立即删除）
+     */
+    private void closeLease(boolean revoke) {
+        long leaseId = detachLease();
+        if (revoke) {
+            revokeLease(leaseId);
+        }
+    }
+
+    /**
+     * 停止 KeepAlive 并清除当前租约，需持有 leaseLock
+     *
+     * @return 原租约，没有租约时为 0
+     */
+    private long detachLease() {
+        if (nodeKeepAlive != null) {
+            nodeKeepAlive.close();
+            nodeKeepAlive = null;
+        }
+        long leaseId = nodeLeaseId;
+        nodeLeaseId = 0L;
+        return leaseId;
+    }
 
-    //取消注册 如果一个节点发生下线 rafte协议 存在续期 等到续期自动过期
+    /**
+     * 撤销租约，租约下的节点立即删除
+     */
+    private void revokeLease(long leaseId) {
+        if (leaseId == 0L) {
+            return;
+        }
+        try {
+            client.getLeaseClient().revoke(leaseId).get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.warn("撤销租约失败: {}", leaseId, e);
+        }
+    }
+
+
+    //取消注册 节点与其他服务共用租约，只删除节点；最后一个服务注销时撤销租约
+    //锁内只修改本地状态，删除节点和撤销租约在锁外执行并限制等待时间，etcd 变慢时不阻塞注册和续期
     @Override
     public void unRegister(ServiceMetaInfoDTO serviceMetaInfo) {
         String registerKey = ETCD_ROOT_PATH + serviceMetaInfo.getServiceNodeKey();
-        ByteSequence key = ByteSequence.from(registerKey, StandardCharsets.UTF_8);
 
         try {
-            // 1. 先关闭 KeepAlive
-            CloseableClient keepAliveClient = keepAliveMap.remove(registerKey);
-            if (keepAliveClient != null) {
-                keepAliveClient.close();
-            }
-
-            // 2. 撤销 Lease（立即删除 key） 删除缓存id
-            Long leaseId = serviceLeaseMap.remove(registerKey);
-            if (leaseId != null) {
-                client.getLeaseClient().revoke(leaseId).get();
+            long detachedLeaseId = 0L;
+            synchronized (leaseLock) {
+                // 1. 从本地记录移除，续期失败重新注册时不再写入
+                localRegisterNodeMap.remove(registerKey);
+
+                // 2. 没有服务时停止续期，租约在锁外撤销
+                if (localRegisterNodeMap.isEmpty()) {
+                    detachedLeaseId = detachLease();
+                }
             }
 
             // 3. 删除 key
-            kvClient.delete(ByteSequence.from(registerKey, StandardCharsets.UTF_8)).get();
-
-            // 4. 清理监听（如果是本机注册的服务）
-            if (watchMap.containsKey(registerKey)) {
-                cleanupWatchResources(registerKey);
-            }
-
-
-            // 4. 从本地缓存移除
-            localRegisterNodeKeySet.remove(registerKey);
+            kvClient.delete(ByteSequence.from(registerKey, StandardCharsets.UTF_8)).get(timeoutMillis, TimeUnit.MILLISECONDS);
+            revokeLease(detachedLeaseId);
 
             log.info("服务已注销: {}", registerKey);
 
@@ -174,64 +335,74 @@ public class EtcdRegistry implements Registry {
             throw new IllegalArgumentException("serviceKey 不能为空");
         }
         serviceKey = serviceKey.trim();
-        // 优先从缓存获取服务
-        // 原教程代码，不支持多个服务同时缓存
-        // List<ServiceMetaInfo> cachedServiceMetaInfoList = registryServiceCache.readCache();
-        // 优化后的代码，支持多个服务同时缓存 根据请求键值
+        // 优先从缓存获取服务，缓存由前缀监听增量维护
         List<ServiceMetaInfoDTO> cachedServiceMetaInfoList = registryServiceMultiCache.readCache(serviceKey);
         if (cachedServiceMetaInfoList != null) {
             return cachedServiceMetaInfoList;
         }
 
+        // 有旧数据（本地快照或被清空前的列表）时先用旧数据，后台加载实时数据
+        List<ServiceMetaInfoDTO> staleServiceMetaInfoList = registryServiceMultiCache.readStaleCache(serviceKey);
+        if (staleServiceMetaInfoList != null) {
+            refreshAsync(serviceKey);
+            return staleServiceMetaInfoList;
+        }
+        return loadServicesOnce(serviceKey);
+    }
+
+    /**
+     * 加载实时数据，同一服务键的并发加载合并为一次注册中心查询
+     */
+    private List<ServiceMetaInfoDTO> loadServicesOnce(String serviceKey) {
+        try {
+            return serviceLoader.call(serviceKey, () -> loadServices(serviceKey));
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("获取服务列表失败", e);
+        }
+    }
+
+    /**
+     * 后台加载实时数据，已有进行中的加载时不重复发起
+     */
+    private void refreshAsync(String serviceKey) {
+        serviceLoader.callAsync(serviceKey, () -> loadServices(serviceKey), RegistryExecutor.refreshExecutor())
+                .whenComplete((serviceMetaInfoList, e) -> {
+                    if (e != null) {
+                        log.warn("后台加载服务列表失败，继续使用旧数据: {}", serviceKey, e);
+                    }
+                });
+    }
+
+    /**
+     * 从 etcd 全量加载服务列表写入缓存，并从查询版本之后开始监听
+     */
+    private List<ServiceMetaInfoDTO> loadServices(String serviceKey) {
         // 前缀搜索，结尾一定要加 '/'
         String searchPrefix = ETCD_ROOT_PATH + serviceKey + "/";
 
         try {
             // 前缀查询
             GetOption getOption = GetOption.builder().isPrefix(true).build();
-            List<KeyValue> keyValues = kvClient.get(
+            GetResponse getResponse = kvClient.get(
                             ByteSequence.from(searchPrefix, StandardCharsets.UTF_8),
                             getOption)
-                    .get()
-                    .getKvs();
-            // 解析服务信息 得到注册中心服务实例 存在异常 导致无法监听的可能
-//            List<ServiceMetaInfoDTO> serviceMetaInfoList = keyValues.stream()
-//                    .map(keyValue -> {
-//                        String key = keyValue.getKey().toString(StandardCharsets.UTF_8);
-//                        // 监听 key 的变化 如果节点发生变化 进行删除对应缓存
-//                        watch(key);
-//                        String value = keyValue.getValue().toString(StandardCharsets.UTF_8);
-//                        return JSONUtil.toBean(value, ServiceMetaInfoDTO.class);
-//                    })
-//                    .collect(Collectors.toList());
-            // 分开化处理逻辑
+                    .get(timeoutMillis, TimeUnit.MILLISECONDS);
             List<ServiceMetaInfoDTO> serviceMetaInfoList = new ArrayList<>();
-            List<String> nodeKeysToWatch = new ArrayList<>();
-
-            for (KeyValue kv : keyValues) {
+            for (KeyValue kv : getResponse.getKvs()) {
                 try {
-                    String key = kv.getKey().toString(StandardCharsets.UTF_8);
                     String value = kv.getValue().toString(StandardCharsets.UTF_8);
-                    ServiceMetaInfoDTO service = JSONUtil.toBean(value, ServiceMetaInfoDTO.class);
-                    serviceMetaInfoList.add(service);
-                    nodeKeysToWatch.add(key);
+                    serviceMetaInfoList.add(JSONUtil.toBean(value, ServiceMetaInfoDTO.class));
                 } catch (Exception e) {
                     log.warn("解析服务实例失败，跳过: {}", kv.getKey(), e);
                 }
             }
-
-            // 第二步：统一启动监听（即使某个失败，不影响其他）
-            for (String nodeKey : nodeKeysToWatch) {
-                try {
-                    watch(nodeKey);
-                } catch (Exception e) {
-                    log.error("监听服务节点失败: {}", nodeKey, e);
-                    // 可考虑：后续定时重试监听
-                }
-            }
-
-            registryServiceMultiCache.writeCache(serviceKey, serviceMetaInfoList);
-            return serviceMetaInfoList;
+            long revision = getResponse.getHeader().getRevision();
+            registryServiceMultiCache.writeCache(serviceKey, serviceMetaInfoList, revision);
+            // 从查询时的版本之后开始监听，中间发生的变更不会丢失
+            watchService(serviceKey, revision + 1);
+            return registryServiceMultiCache.readCache(serviceKey);
         } catch (Exception e) {
             throw new RuntimeException("获取服务列表失败", e);
         }
@@ -245,71 +416,116 @@ public class EtcdRegistry implements Registry {
 
     /**
      * 监听（消费端）
-     * 根据监听到各个逻辑 对应各自的处理策略
+     * 对服务键做前缀监听，从当前版本开始
      *
-     * @param serviceNodeKey
+     * @param serviceKey
      */
     @Override
-    public void watch(String serviceNodeKey) {
+    public void watch(String serviceKey) {
+        watchService(serviceKey, 0L);
+    }
+
+    /**
+     * 每个服务键一个前缀监听，PUT / DELETE 事件直接增删缓存中的实例
+     *
+     * @param serviceKey    服务键
+     * @param startRevision 起始版本，0 表示从当前版本开始
+     */
+    private void watchService(String serviceKey, long startRevision) {
         // 避免重复监听
-        if (watchingKeySet.contains(serviceNodeKey)) {
+        if (!watchingKeySet.add(serviceKey)) {
             return;
         }
+        String watchPrefix = ETCD_ROOT_PATH + serviceKey + "/";
+        WatchOption.Builder optionBuilder = WatchOption.builder().isPrefix(true);
+        if (startRevision > 0) {
+            optionBuilder.withRevision(startRevision);
+            watchRevisionMap.merge(serviceKey, startRevision - 1, Math::max);
+        }
 
-        Watch watchClient = client.getWatchClient();
-        ByteSequence key = ByteSequence.from(serviceNodeKey, StandardCharsets.UTF_8);
-
-        Watch.Watcher watcher = watchClient.watch(key, response -> {
-            for (WatchEvent event : response.getEvents()) {
-                switch (event.getEventType()) {
-                    case DELETE:
-                        handleServiceDelete(serviceNodeKey);
-                        break;
-                    case PUT:
-                        handleServiceUpdate(serviceNodeKey, event.getKeyValue());
-                        break;
-                    default:
-                        break;
-                }
-            }
-        }, error -> {
-            log.error("监听发生错误，服务节点: {}", serviceNodeKey, error);
-            // 错误后也应清理资源
-            cleanupWatchResources(serviceNodeKey);
-        });
+        Watch.Watcher watcher = client.getWatchClient().watch(
+                ByteSequence.from(watchPrefix, StandardCharsets.UTF_8),
+                optionBuilder.build(),
+                response -> {
+                    for (WatchEvent event : response.getEvents()) {
+                        KeyValue keyValue = event.getKeyValue();
+                        String nodeKey = keyValue.getKey().toString(StandardCharsets.UTF_8);
+                        long revision = keyValue.getModRevision();
+                        switch (event.getEventType()) {
+                            case DELETE:
+                                handleServiceDelete(serviceKey, nodeKey, revision);
+                                break;
+                            case PUT:
+                                handleServiceUpdate(serviceKey, nodeKey, keyValue, revision);
+                                break;
+                            default:
+                                break;
+                        }
+                        watchRevisionMap.merge(serviceKey, revision, Math::max);
+                    }
+                },
+                error -> handleWatchError(serviceKey, error));
+
+        watchMap.put(serviceKey, watcher);
+        log.debug("已启动前缀监听: {}, 起始版本 {}", watchPrefix, startRevision);
+    }
 
-        // 保存监听状态
+    /**
+     * 监听中断：从最后处理的版本之后继续监听；
+     * 版本已被压缩时无法补齐事件，清空缓存，下次发现时全量加载
+     */
+    private void handleWatchError(String serviceKey, Throwable error) {
+        cleanupWatchResources(serviceKey);
+        Long lastRevision = watchRevisionMap.remove(serviceKey);
+        if (destroyed) {
+            return;
+        }
+        if (error instanceof CompactedException || lastRevision == null) {
+            log.warn("服务监听中断，清空缓存等待全量加载: {}", serviceKey, error);
+            registryServiceMultiCache.clearCache(serviceKey);
+            return;
+        }
+        log.warn("服务监听中断，从版本 {} 继续监听: {}", lastRevision + 1, serviceKey, error);
         try {
-            watchingKeySet.add(serviceNodeKey);
-            watchMap.put(serviceNodeKey, watcher);
+            watchService(serviceKey, lastRevision + 1);
         } catch (Exception e) {
-            throw new RuntimeException(e);
+            log.error("重新监听失败，清空缓存: {}", serviceKey, e);
+            cleanupWatchResources(serviceKey);
+            registryServiceMultiCache.clearCache(serviceKey);
         }
-        log.debug("已启动监听: {}", serviceNodeKey);
     }
 
     @Override
     public void destroy() {
         log.warn("ETCD客户端连接下线");
+        destroyed = true;
 
-        // 1. 注销所有本地服务
-        for (String key : new HashSet<>(localRegisterNodeKeySet)) {
-            try {
-                ByteSequence keyBs = ByteSequence.from(key, StandardCharsets.UTF_8);
-                kvClient.delete(keyBs).get();
-            } catch (Exception e) {
-                log.error("节点下线失败: {}", key, e);
+        // 1. 注销所有本地服务，撤销租约
+        synchronized (leaseLock) {
+            for (String key : localRegisterNodeMap.keySet()) {
+                try {
+                    ByteSequence keyBs = ByteSequence.from(key, StandardCharsets.UTF_8);
+                    kvClient.delete(keyBs).get(timeoutMillis, TimeUnit.MILLISECONDS);
+                } catch (Exception e) {
+                    log.error("节点下线失败: {}", key, e);
+                }
             }
-        }
+            localRegisterNodeMap.clear();
 
-        // 2. 关闭所有 KeepAlive
-        keepAliveMap.values().forEach(CloseableClient::close);
-        keepAliveMap.clear();
+            // 2. 关闭 KeepAlive
+            closeLease(true);
+        }
+        reRegisterScheduler.shutdownNow();
 
         // 3. 关闭所有 Watch
         watchMap.values().forEach(Watch.Watcher::close);
         watchMap.clear();
         watchingKeySet.clear();
+        watchRevisionMap.clear();
+
+        if (snapshotStore != null) {
+            snapshotStore.close();
+        }
 
         // 4. 关闭客户端
         if (kvClient != null) {
@@ -323,77 +539,33 @@ public class EtcdRegistry implements Registry {
     }
 
     /**
-     * 从注册路径中提取 serviceKey
-     * 例如：/rpc/userService/127.0.0.1:8080 -> userService
+     * 从 etcd key 中得到实例节点键名
+     * 例如：/rpc/userService/127.0.0.1:8080 -> userService/127.0.0.1:8080
      */
-    private String extractServiceKeyFromNodeKey(String serviceNodeKey) {
-        // 去除前缀 /rpc/
-        if (serviceNodeKey.startsWith(ETCD_ROOT_PATH)) {
-            String subPath = serviceNodeKey.substring(ETCD_ROOT_PATH.length());
-            int firstSlash = subPath.indexOf('/');
-            if (firstSlash > 0) {
-                return subPath.substring(0, firstSlash);
-            }
-            return subPath;
-        }
-        return serviceNodeKey;
+    private String toServiceNodeKey(String etcdKey) {
+        return etcdKey.startsWith(ETCD_ROOT_PATH) ? etcdKey.substring(ETCD_ROOT_PATH.length()) : etcdKey;
     }
 
     /**
-     * 监听删除 处理逻辑
-     * @param serviceNodeKey
+     * 监听删除 处理逻辑：只从缓存中移除该实例
      */
-    private void handleServiceDelete(String serviceNodeKey) {
-        log.info("服务节点被删除: {}", serviceNodeKey);
-        String serviceKey = extractServiceKeyFromNodeKey(serviceNodeKey);
-
-        // 1. 清除本地服务缓存
-        registryServiceMultiCache.clearCache(serviceKey);
-
-        //2.同时清理监听数据
-        cleanupWatchResources(serviceNodeKey);
-
-        // 3. 如果是本机注册的服务，也从租期 map 移除
-        if (localRegisterNodeKeySet.contains(serviceNodeKey)) {
-            Long leaseId = serviceLeaseMap.remove(serviceNodeKey);
-            if (leaseId != null) {
-                log.debug("已移除租期信息: {}, LeaseId={}", serviceNodeKey, leaseId);
-            }
-        }
+    private void handleServiceDelete(String serviceKey, String nodeKey, long revision) {
+        log.info("服务节点被删除: {}", nodeKey);
+        registryServiceMultiCache.removeInstance(serviceKey, toServiceNodeKey(nodeKey), revision);
     }
 
-
-    private void handleServiceUpdate(String serviceNodeKey, KeyValue updatedKv) {
-        log.debug("服务节点更新: {}", serviceNodeKey);
-
+    /**
+     * 监听新增 / 更新 处理逻辑：新增或替换缓存中的该实例
+     */
+    private void handleServiceUpdate(String serviceKey, String nodeKey, KeyValue updatedKv, long revision) {
+        log.debug("服务节点更新: {}", nodeKey);
         try {
             String value = updatedKv.getValue().toString(StandardCharsets.UTF_8);
-            //更新服务实例元信息
             ServiceMetaInfoDTO updatedService = JSONUtil.toBean(value, ServiceMetaInfoDTO.class);
-
-            // 例如：更新了权重、版本、标签等
-            String serviceKey = extractServiceKeyFromNodeKey(serviceNodeKey);
-
-            // 刷新缓存：先读取当前缓存，再替换对应实例
-            List<ServiceMetaInfoDTO> cachedList = registryServiceMultiCache.readCache(serviceKey);
-            if (cachedList != null) {
-                List<ServiceMetaInfoDTO> updatedList = cachedList.stream()
-                        .map(cached -> {
-                            if (cached.getServiceNodeKey().equals(updatedService.getServiceNodeKey())) {
-                                return updatedService; // 替换为新数据
-                            }
-                            return cached;
-                        })
-                        .collect(Collectors.toList());
-
-                registryServiceMultiCache.writeCache(serviceKey, updatedList);
-                log.debug("服务缓存已更新: {}", serviceKey);
-            }
-
+            registryServiceMultiCache.putInstance(serviceKey, updatedService, revision);
         } catch (Exception e) {
-            log.warn("解析服务更新数据失败: {}", serviceNodeKey, e);
-            // 失败后可选择清空缓存，触发下次重新拉取 对应实例缓存
-            String serviceKey = extractServiceKeyFromNodeKey(serviceNodeKey);
+            log.warn("解析服务更新数据失败: {}", nodeKey, e);
+            // 失败后清空缓存，触发下次重新拉取
             registryServiceMultiCache.clearCache(serviceKey);
         }
     }
@@ -401,21 +573,21 @@ public class EtcdRegistry implements Registry {
     /**
      * 清理监听相关资源
      */
-    private void cleanupWatchResources(String serviceNodeKey) {
+    private void cleanupWatchResources(String serviceKey) {
         // 1. 关闭 Watcher
-        Watch.Watcher watcher = watchMap.remove(serviceNodeKey);
+        Watch.Watcher watcher = watchMap.remove(serviceKey);
         if (watcher != null) {
             try {
                 watcher.close();
             } catch (Exception e) {
-                log.warn("关闭 Watcher 失败: {}", serviceNodeKey, e);
+                log.warn("关闭 Watcher 失败: {}", serviceKey, e);
             }
         }
 
         // 2. 从监听集合移除
-        watchingKeySet.remove(serviceNodeKey);
+        watchingKeySet.remove(serviceKey);
 
-        log.debug("已清理监听资源: {}", serviceNodeKey);
+        log.debug("已清理监听资源: {}", serviceKey);
     }
 }
 
@@ -1,26 +1,36 @@
 package com.github.rpc.common.registry.impl;
 
-import cn.hutool.core.collection.ConcurrentHashSet;
+import com.github.rpc.common.registry.EndpointEvictionListener;
 import com.github.rpc.common.registry.Registry;
+import com.github.rpc.common.registry.RegistryExecutor;
+import com.github.rpc.common.registry.RegistrySnapshotStore;
+import com.github.rpc.common.utils.SingleFlight;
 import com.github.rpc.config.RegistryConfig;
 import com.github.rpc.exception.BizException;
-import com.github.rpc.model.RegistryServiceCache;
+import com.github.rpc.model.RegistryServiceMultiCache;
 import com.github.rpc.model.dto.ServiceMetaInfoDTO;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.framework.recipes.cache.ChildData;
 import org.apache.curator.framework.recipes.cache.CuratorCache;
 import org.apache.curator.framework.recipes.cache.CuratorCacheListener;
 import org.apache.curator.retry.ExponentialBackoffRetry;
+import org.apache.curator.utils.ZKPaths;
 import org.apache.curator.x.discovery.ServiceDiscovery;
 import org.apache.curator.x.discovery.ServiceDiscoveryBuilder;
 import org.apache.curator.x.discovery.ServiceInstance;
 import org.apache.curator.x.discovery.details.JsonInstanceSerializer;
 
-import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -36,14 +46,34 @@ public class ZooKeeperRegistry implements Registry {
     private final Set<String> localRegisterNodeKeySet = new HashSet<>();
 
     /**
-     * 注册中心服务缓存
+     * 注册中心服务缓存（每个服务键一份）
      */
-    private final RegistryServiceCache registryServiceCache = new RegistryServiceCache();
+    private final RegistryServiceMultiCache registryServiceMultiCache = new RegistryServiceMultiCache(EndpointEvictionListener.INSTANCE);
 
     /**
-     * 正在监听的 key 集合
+     * 服务键 => 服务父路径上的监听
      */
-    private final Set<String> watchingKeySet = new ConcurrentHashSet<>();
+    private final Map<String, ServiceWatch> serviceWatchMap = new ConcurrentHashMap<>();
+
+    /**
+     * 与 ServiceDiscovery 相同的实例序列化方式，用于解析监听到的节点数据
+     */
+    private final JsonInstanceSerializer<ServiceMetaInfoDTO> instanceSerializer = new JsonInstanceSerializer<>(ServiceMetaInfoDTO.class);
+
+    /**
+     * 服务键 => 进行中的服务列表加载，合并同一服务键的并发缓存未命中
+     */
+    private final SingleFlight<String, List<ServiceMetaInfoDTO>> serviceLoader = new SingleFlight<>();
+
+    /**
+     * 服务发现结果的本地快照，未启用时为 null
+     */
+    private RegistrySnapshotStore snapshotStore;
+
+    /**
+     * 首次同步等待时间（毫秒）
+     */
+    private long timeoutMillis = 5000L;
 
     /**
      * 根节点
@@ -60,11 +90,13 @@ public class ZooKeeperRegistry implements Registry {
                 .retryPolicy(new ExponentialBackoffRetry(Math.toIntExact(registryConfig.getTimeout()), 3))
                 .build();
 
+        timeoutMillis = Optional.ofNullable(registryConfig.getTimeout()).orElse(timeoutMillis);
+
         // 构建 serviceDiscovery 实例 ServiceMetaInfoDTO.class
         serviceDiscovery = ServiceDiscoveryBuilder.builder(ServiceMetaInfoDTO.class)
                 .client(client)
                 .basePath(ZK_ROOT_PATH)
-                .serializer(new JsonInstanceSerializer<>(ServiceMetaInfoDTO.class))
+                .serializer(instanceSerializer)
                 .build();
 
         try {
@@ -74,6 +106,11 @@ public class ZooKeeperRegistry implements Registry {
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
+
+        snapshotStore = RegistrySnapshotStore.create(registryConfig, registryServiceMultiCache);
+        if (snapshotStore != null) {
+            snapshotStore.start();
+        }
     }
 
     @Override
@@ -100,34 +137,137 @@ public class ZooKeeperRegistry implements Registry {
 
     /**
      * 给请求的代理消费者提供服务节点
+     * 每个服务键一份缓存，由该服务父路径上的 CuratorCache 增量维护
      * @param serviceKey 服务键名
      * @return
      */
     @Override
     public List<ServiceMetaInfoDTO> serviceDiscovery(String serviceKey) {
         // 优先从缓存获取服务
-        List<ServiceMetaInfoDTO> cachedServiceMetaInfoList = registryServiceCache.readCache();
+        List<ServiceMetaInfoDTO> cachedServiceMetaInfoList = registryServiceMultiCache.readCache(serviceKey);
         if (cachedServiceMetaInfoList != null) {
             return cachedServiceMetaInfoList;
         }
 
+        // 有旧数据（本地快照或被清空前的列表）时先用旧数据，后台加载实时数据
+        List<ServiceMetaInfoDTO> staleServiceMetaInfoList = registryServiceMultiCache.readStaleCache(serviceKey);
+        if (staleServiceMetaInfoList != null) {
+            refreshAsync(serviceKey);
+            return staleServiceMetaInfoList;
+        }
+        return loadServicesOnce(serviceKey);
+    }
+
+    /**
+     * 加载实时数据，同一服务键的并发加载合并为一次注册中心查询
+     */
+    private List<ServiceMetaInfoDTO> loadServicesOnce(String serviceKey) {
         try {
-            // 查询服务信息
-            Collection<ServiceInstance<ServiceMetaInfoDTO>> serviceInstanceList = serviceDiscovery.queryForInstances(serviceKey);
+            return serviceLoader.call(serviceKey, () -> loadServices(serviceKey));
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("获取服务列表失败", e);
+        }
+    }
+
+    /**
+     * 后台加载实时数据，已有进行中的加载时不重复发起
+     */
+    private void refreshAsync(String serviceKey) {
+        serviceLoader.callAsync(serviceKey, () -> loadServices(serviceKey), RegistryExecutor.refreshExecutor())
+                .whenComplete((serviceMetaInfoList, e) -> {
+                    if (e != null) {
+                        log.warn("后台加载服务列表失败，继续使用旧数据: {}", serviceKey, e);
+                    }
+                });
+    }
 
-            // 解析服务信息 返回给请求客户端
-            List<ServiceMetaInfoDTO> serviceMetaInfoList = serviceInstanceList.stream()
-                    .map(ServiceInstance::getPayload)
-                    .collect(Collectors.toList());
+    /**
+     * 启动该服务的监听，以首次同步到的节点作为缓存的初始列表
+     * 读取节点与写入缓存在监听的锁内完成，期间到达的事件等写入后再应用，不会丢失或被旧列表覆盖
+     */
+    private List<ServiceMetaInfoDTO> loadServices(String serviceKey) {
+        try {
+            ServiceWatch serviceWatch = watchService(serviceKey);
+            synchronized (serviceWatch) {
+                List<ServiceMetaInfoDTO> serviceMetaInfoList = serviceWatch.curatorCache.stream()
+                        .filter(childData -> !serviceWatch.servicePath.equals(childData.getPath()))
+                        .map(this::parseInstance)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList());
 
-            // 写入服务缓存
-            registryServiceCache.writeCache(serviceMetaInfoList);
-            return serviceMetaInfoList;
+                // 写入服务缓存
+                registryServiceMultiCache.writeCache(serviceKey, serviceMetaInfoList);
+                return registryServiceMultiCache.readCache(serviceKey);
+            }
         } catch (Exception e) {
             throw new RuntimeException("获取服务列表失败", e);
         }
     }
 
+    /**
+     * 在服务父路径上启动 CuratorCache，子节点的增删改直接更新该服务的缓存
+     * 监听在启动前注册；并发调用拿到的是同一个监听，都等待首次同步完成
+     *
+     * @param serviceKey 服务键名
+     * @return 已完成首次同步（或等待超时）的监听
+     */
+    private ServiceWatch watchService(String serviceKey) throws InterruptedException {
+        ServiceWatch serviceWatch = serviceWatchMap.get(serviceKey);
+        if (serviceWatch == null) {
+            ServiceWatch created = new ServiceWatch(serviceKey);
+            serviceWatch = serviceWatchMap.putIfAbsent(serviceKey, created);
+            if (serviceWatch == null) {
+                serviceWatch = created;
+                created.curatorCache.start();
+            }
+        }
+        if (!serviceWatch.initialized.await(timeoutMillis, TimeUnit.MILLISECONDS)) {
+            log.warn("服务监听首次同步超时，先使用已同步的节点: {}", serviceKey);
+        }
+        return serviceWatch;
+    }
+
+    private void handleServiceUpdate(ServiceWatch serviceWatch, ChildData childData) {
+        if (serviceWatch.servicePath.equals(childData.getPath())) {
+            return;
+        }
+        ServiceMetaInfoDTO serviceMetaInfo = parseInstance(childData);
+        if (serviceMetaInfo == null) {
+            return;
+        }
+        synchronized (serviceWatch) {
+            registryServiceMultiCache.putInstance(serviceWatch.serviceKey, serviceMetaInfo, 0L);
+        }
+    }
+
+    private void handleServiceDelete(ServiceWatch serviceWatch, ChildData childData) {
+        synchronized (serviceWatch) {
+            if (serviceWatch.servicePath.equals(childData.getPath())) {
+                // 服务父节点被删除，下次发现时重新加载
+                registryServiceMultiCache.clearCache(serviceWatch.serviceKey);
+                return;
+            }
+            // 节点名即实例 id host:port，与 ServiceMetaInfoDTO#getServiceNodeKey 格式一致
+            String serviceNodeKey = serviceWatch.serviceKey + "/" + ZKPaths.getNodeFromPath(childData.getPath());
+            registryServiceMultiCache.removeInstance(serviceWatch.serviceKey, serviceNodeKey, 0L);
+        }
+    }
+
+    private ServiceMetaInfoDTO parseInstance(ChildData childData) {
+        byte[] data = childData.getData();
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        try {
+            return instanceSerializer.deserialize(data).getPayload();
+        } catch (Exception e) {
+            log.warn("解析服务实例失败，跳过: {}", childData.getPath(), e);
+            return null;
+        }
+    }
+
 
     //注册服务节点的构建方法
     private ServiceInstance<ServiceMetaInfoDTO> buildServiceInstance(ServiceMetaInfoDTO serviceMetaInfo) {
@@ -166,27 +306,61 @@ public class ZooKeeperRegistry implements Registry {
             }
         }
 
+        // 关闭所有服务监听
+        serviceWatchMap.values().forEach(serviceWatch -> serviceWatch.curatorCache.close());
+        serviceWatchMap.clear();
+
+        if (snapshotStore != null) {
+            snapshotStore.close();
+        }
+
         // 释放资源
         if (client != null) {
             client.close();
         }
     }
 
-    //服务节点kEY
+    /**
+     * 监听（消费端），参数为服务键
+     *
+     * @param serviceKey
+     */
     @Override
-    public void watch(String serviceNodeKey) {
-        String watchKey = ZK_ROOT_PATH + "/" + serviceNodeKey;
-        boolean newWatch = watchingKeySet.add(watchKey);
-        if (newWatch) {
-            CuratorCache curatorCache = CuratorCache.build(client, watchKey);
-            curatorCache.start();
+    public void watch(String serviceKey) {
+        try {
+            watchService(serviceKey);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 单个服务的监听：CuratorCache 与首次同步状态；
+     * 首次写入缓存和之后的增量事件都在该对象的锁内执行，保证按顺序应用
+     */
+    private class ServiceWatch {
+
+        private final String serviceKey;
+
+        private final String servicePath;
+
+        private final CuratorCache curatorCache;
+
+        private final CountDownLatch initialized = new CountDownLatch(1);
+
+        ServiceWatch(String serviceKey) {
+            this.serviceKey = serviceKey;
+            this.servicePath = ZKPaths.makePath(ZK_ROOT_PATH, serviceKey);
+            this.curatorCache = CuratorCache.build(client, servicePath);
             curatorCache.listenable().addListener(
                     CuratorCacheListener
                             .builder()
-                            .forDeletes(childData -> registryServiceCache.clearCache())
-                            .forChanges(((oldNode, node) -> registryServiceCache.clearCache()))
+                            .forCreates(childData -> handleServiceUpdate(this, childData))
+                            .forChanges((oldNode, node) -> handleServiceUpdate(this, node))
+                            .forDeletes(childData -> handleServiceDelete(this, childData))
+                            .forInitialized(initialized::countDown)
                             .build()
             );
         }
     }
-    }
\ No newline at end of file
+}
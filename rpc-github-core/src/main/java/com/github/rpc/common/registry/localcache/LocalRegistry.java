@@ -1,8 +1,21 @@
 package com.github.rpc.common.registry.localcache;
 
+import com.github.rpc.constants.RpcLoadConstant;
+import com.github.rpc.exception.BizException;
+import com.github.rpc.model.dto.ServiceMetaInfoDTO;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
+@Slf4j
 public class LocalRegistry {
 
     /**
@@ -10,6 +23,26 @@ public class LocalRegistry {
      */
     private static final Map<String, Class<?>> map = new ConcurrentHashMap<>();
 
+    /**
+     * 方法调用器 服务名 => (方法名 => 同名重载方法的调用器)
+     */
+    private static final Map<String, Map<String, ServiceMethodInvoker[]>> invokerMap = new ConcurrentHashMap<>();
+
+    /**
+     * 方法 id => 方法调用器
+     */
+    private static final Map<Integer, ServiceMethodInvoker> methodIdInvokerMap = new ConcurrentHashMap<>();
+
+    /**
+     * 方法签名 => 方法 id，握手时整体下发
+     */
+    private static final Map<String, Integer> methodIdMap = new ConcurrentHashMap<>();
+
+    /**
+     * 方法 id 生成器，进程内递增，重新注册的服务分配新 id
+     */
+    private static final AtomicInteger METHOD_ID_GENERATOR = new AtomicInteger();
+
     /**
      * 注册服务
      *
@@ -17,7 +50,32 @@ public class LocalRegistry {
      * @param implClass
      */
     public static void register(String serviceName, Class<?> implClass) {
+        Object serviceInstance;
+        try {
+            serviceInstance = implClass.newInstance();
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new BizException(String.format("%s 服务实例化失败", implClass.getName()));
+        }
+        register(serviceName, implClass, serviceInstance);
+    }
+
+    /**
+     * 注册服务 使用已有的单例服务对象（如 Spring Bean）
+     *
+     * @param serviceName
+     * @param implClass
+     * @param serviceInstance
+     */
+    public static void register(String serviceName, Class<?> implClass, Object serviceInstance) {
+        Map<String, ServiceMethodInvoker[]> methodMap = buildInvokers(serviceName, implClass, serviceInstance);
         map.put(serviceName, implClass);
+        removeMethodIds(invokerMap.put(serviceName, methodMap));
+        for (ServiceMethodInvoker[] invokers : methodMap.values()) {
+            for (ServiceMethodInvoker invoker : invokers) {
+                methodIdInvokerMap.put(invoker.getMethodId(), invoker);
+                methodIdMap.put(invoker.getSignature(), invoker.getMethodId());
+            }
+        }
     }
 
     /**
@@ -30,6 +88,68 @@ public class LocalRegistry {
         return map.get(serviceKey);
     }
 
+    /**
+     * 获取方法调用器
+     *
+     * @param serviceKey     服务名
+     * @param methodName     方法名
+     * @param parameterTypes 参数类型
+     * @return 未注册时返回 null
+     */
+    public static ServiceMethodInvoker getInvoker(String serviceKey, String methodName, Class<?>[] parameterTypes) {
+        Map<String, ServiceMethodInvoker[]> methodMap = invokerMap.get(serviceKey);
+        if (methodMap == null) {
+            return null;
+        }
+        ServiceMethodInvoker[] invokers = methodMap.get(methodName);
+        if (invokers == null) {
+            return null;
+        }
+        for (ServiceMethodInvoker invoker : invokers) {
+            if (invoker.matches(parameterTypes)) {
+                return invoker;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 按请求中的服务名获取方法调用器，未找到时按 服务名:默认分组:版本 的服务键查找（Spring 按服务键注册的服务）
+     *
+     * @param serviceName    服务名
+     * @param serviceVersion 服务版本，为空时只按服务名查找
+     * @param methodName     方法名
+     * @param parameterTypes 参数类型
+     * @return 未注册时返回 null
+     */
+    public static ServiceMethodInvoker getInvoker(String serviceName, String serviceVersion, String methodName, Class<?>[] parameterTypes) {
+        ServiceMethodInvoker invoker = getInvoker(serviceName, methodName, parameterTypes);
+        if (invoker != null || serviceVersion == null) {
+            return invoker;
+        }
+        return getInvoker(ServiceMetaInfoDTO.buildKey(serviceName, RpcLoadConstant.DEFAULT_SERVICE_GROUP, serviceVersion),
+                methodName, parameterTypes);
+    }
+
+    /**
+     * 按方法 id 获取方法调用器
+     *
+     * @param methodId 握手时下发的方法 id
+     * @return 未注册或服务已删除时返回 null
+     */
+    public static ServiceMethodInvoker getInvoker(int methodId) {
+        return methodIdInvokerMap.get(methodId);
+    }
+
+    /**
+     * 获取方法 id 表（只读视图，仅供本地使用，发送前需复制）
+     *
+     * @return 方法签名 => 方法 id
+     */
+    public static Map<String, Integer> getMethodIds() {
+        return Collections.unmodifiableMap(methodIdMap);
+    }
+
     /**
      * 删除服务
      *
@@ -37,5 +157,40 @@ public class LocalRegistry {
      */
     public static void remove(String serviceKey) {
         map.remove(serviceKey);
+        removeMethodIds(invokerMap.remove(serviceKey));
+    }
+
+    private static void removeMethodIds(Map<String, ServiceMethodInvoker[]> methodMap) {
+        if (methodMap == null) {
+            return;
+        }
+        for (ServiceMethodInvoker[] invokers : methodMap.values()) {
+            for (ServiceMethodInvoker invoker : invokers) {
+                methodIdInvokerMap.remove(invoker.getMethodId());
+                methodIdMap.remove(invoker.getSignature(), invoker.getMethodId());
+            }
+        }
+    }
+
+    /**
+     * 为实现类的所有公共方法（不含 Object 的方法和桥接方法）生成调用器
+     */
+    private static Map<String, ServiceMethodInvoker[]> buildInvokers(String serviceName, Class<?> implClass, Object serviceInstance) {
+        Map<String, List<ServiceMethodInvoker>> grouped = new HashMap<>();
+        for (Method method : implClass.getMethods()) {
+            if (method.getDeclaringClass() == Object.class || method.isBridge() || Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            try {
+                grouped.computeIfAbsent(method.getName(), k -> new ArrayList<>())
+                        .add(new ServiceMethodInvoker(METHOD_ID_GENERATOR.incrementAndGet(), serviceName, method, serviceInstance));
+            } catch (Exception e) {
+                log.warn("服务方法调用器创建失败，跳过: {}#{}", implClass.getName(), method.getName(), e);
+            }
+        }
+        Map<String, ServiceMethodInvoker[]> methodMap = new HashMap<>(grouped.size() * 2);
+        grouped.forEach((methodName, invokers) ->
+                methodMap.put(methodName, invokers.toArray(new ServiceMethodInvoker[0])));
+        return methodMap;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,162 @@
+package com.github.rpc.common.registry.localcache;
+
+import com.github.rpc.common.utils.MethodSignatureUtils;
+import com.github.rpc.service.dispatch.RpcDispatch;
+import lombok.Getter;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 预编译的服务方法调用器
+ * 注册服务时解析一次，MethodHandle 绑定到单例服务对象，
+ * 调用时不再反射查找方法、不再创建服务对象，业务异常原样抛出
+ */
+@Getter
+public class ServiceMethodInvoker {
+
+    private static final Object[] EMPTY_ARGS = new Object[0];
+
+    /**
+     * 方法 id，握手时下发给消费者
+     */
+    private final int methodId;
+
+    /**
+     * 服务名
+     */
+    private final String serviceName;
+
+    /**
+     * 方法签名 服务名#方法名(参数类型)
+     */
+    private final String signature;
+
+    private final Method method;
+
+    private final Class<?>[] parameterTypes;
+
+    /**
+     * 响应数据类型，异步方法为 CompletableFuture<T> 中的 T
+     */
+    private final Class<?> dataType;
+
+    /**
+     * 是否返回 CompletionStage
+     */
+    private final boolean async;
+
+    /**
+     * (Object[]) -> Object
+     */
+    private final MethodHandle methodHandle;
+
+    /**
+     * 派发方式，为 null 时使用全局配置
+     */
+    private final String dispatchMode;
+
+    /**
+     * 独立线程池的线程数，0 表示使用全局配置
+     */
+    private final int dispatchThreads;
+
+    /**
+     * 独立线程池的队列长度，0 表示使用全局配置
+     */
+    private final int dispatchQueueSize;
+
+    public ServiceMethodInvoker(int methodId, String serviceName, Method method, Object serviceInstance) throws IllegalAccessException {
+        this.methodId = methodId;
+        this.serviceName = serviceName;
+        this.method = method;
+        this.parameterTypes = method.getParameterTypes();
+        this.signature = MethodSignatureUtils.signature(serviceName, method.getName(), parameterTypes);
+        this.async = CompletionStage.class.isAssignableFrom(method.getReturnType());
+        this.dataType = async ? resolveAsyncDataType(method) : method.getReturnType();
+        method.setAccessible(true);
+        this.methodHandle = MethodHandles.lookup()
+                .unreflect(method)
+                .bindTo(serviceInstance)
+                .asSpreader(Object[].class, parameterTypes.length)
+                .asType(MethodType.methodType(Object.class, Object[].class));
+        RpcDispatch dispatch = findDispatch(method, serviceInstance.getClass());
+        this.dispatchMode = dispatch == null || dispatch.mode().isEmpty() ? null : dispatch.mode();
+        this.dispatchThreads = dispatch == null ? 0 : dispatch.threads();
+        this.dispatchQueueSize = dispatch == null ? 0 : dispatch.queueSize();
+    }
+
+    /**
+     * 调用服务方法
+     *
+     * @param args 参数列表
+     * @return 方法返回值
+     */
+    public Object invoke(Object[] args) throws Exception {
+        try {
+            return (Object) methodHandle.invokeExact(args == null ? EMPTY_ARGS : args);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new RuntimeException(t);
+        }
+    }
+
+    /**
+     * 参数类型是否一致
+     */
+    public boolean matches(Class<?>[] types) {
+        if (types == null) {
+            return parameterTypes.length == 0;
+        }
+        if (types.length != parameterTypes.length) {
+            return false;
+        }
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] != parameterTypes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 查找派发注解：方法上的优先，其次是类上的
+     * 实现类是代理子类（如 Spring CGLIB）时，方法注解在父类的同名方法上，因此沿父类向上查找
+     */
+    private static RpcDispatch findDispatch(Method method, Class<?> implClass) {
+        for (Class<?> type = implClass; type != null && type != Object.class; type = type.getSuperclass()) {
+            try {
+                RpcDispatch dispatch = type.getDeclaredMethod(method.getName(), method.getParameterTypes()).getAnnotation(RpcDispatch.class);
+                if (dispatch != null) {
+                    return dispatch;
+                }
+            } catch (NoSuchMethodException e) {
+                // 该类未声明此方法，继续向上查找
+            }
+        }
+        return implClass.getAnnotation(RpcDispatch.class);
+    }
+
+    /**
+     * 异步方法的真实返回类型：取 CompletableFuture<T> 的泛型参数，无法确定时为 Object
+     */
+    private static Class<?> resolveAsyncDataType(Method method) {
+        Type genericReturnType = method.getGenericReturnType();
+        if (genericReturnType instanceof ParameterizedType) {
+            Type argument = ((ParameterizedType) genericReturnType).getActualTypeArguments()[0];
+            if (argument instanceof Class) {
+                return (Class<?>) argument;
+            }
+            if (argument instanceof ParameterizedType) {
+                return (Class<?>) ((ParameterizedType) argument).getRawType();
+            }
+        }
+        return Object.class;
+    }
+}
@@ -0,0 +1,207 @@
+package com.github.rpc.common.retry;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个服务的重试预算（令牌桶）
+ * 每次成功调用存入 ratio 个令牌，每次重试消耗 1 个，令牌不足时放弃重试，
+ * 重试数因此不超过最近成功调用数的 ratio 倍，下游变慢时重试不会成倍放大负载；
+ * 令牌有上限，长时间积攒的令牌不会在故障时一次性放出；
+ * 各服务的指标可通过 {@link #metrics()} 读取，并按配置的间隔输出到日志
+ */
+@Slf4j
+public class RetryBudget {
+
+    /**
+     * 1 个令牌的内部计数
+     */
+    private static final long TOKEN = 1000L;
+
+    /**
+     * 最多积攒的令牌
+     */
+    private static final long MAX_BALANCE = 100 * TOKEN;
+
+    /**
+     * 初始令牌，服务刚开始调用还没有成功记录时允许少量重试
+     */
+    private static final long INITIAL_BALANCE = 10 * TOKEN;
+
+    /**
+     * 服务键 => 预算
+     */
+    private static final Map<String, RetryBudget> BUDGET_MAP = new ConcurrentHashMap<>();
+
+    private static volatile long depositPerCall = 100L;
+
+    private static final ScheduledExecutorService LOG_SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "rpc-retry-budget-log");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static ScheduledFuture<?> logTask;
+
+    private static long logIntervalSeconds;
+
+    private final AtomicLong balance = new AtomicLong(INITIAL_BALANCE);
+
+    private final LongAdder successCount = new LongAdder();
+
+    private final LongAdder retryCount = new LongAdder();
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * 上次输出到日志的指标，没有变化时不重复输出
+     */
+    private volatile Metrics lastLogged;
+
+    /**
+     * 按配置设置预算比例
+     *
+     * @param ratio 重试数占成功调用数的最大比例，如 0.1
+     */
+    public static void configure(Double ratio) {
+        double value = Optional.ofNullable(ratio).orElse(0.1D);
+        depositPerCall = Math.max(0L, Math.round(value * TOKEN));
+    }
+
+    /**
+     * 按配置设置预算比例和指标日志间隔
+     *
+     * @param ratio              重试数占成功调用数的最大比例，如 0.1
+     * @param logIntervalSeconds 指标日志输出间隔（秒），不大于 0 时不输出
+     */
+    public static void configure(Double ratio, Long logIntervalSeconds) {
+        configure(ratio);
+        scheduleLog(Optional.ofNullable(logIntervalSeconds).orElse(60L));
+    }
+
+    private static synchronized void scheduleLog(long intervalSeconds) {
+        if (intervalSeconds == logIntervalSeconds && logTask != null) {
+            return;
+        }
+        if (logTask != null) {
+            logTask.cancel(false);
+            logTask = null;
+        }
+        logIntervalSeconds = intervalSeconds;
+        if (intervalSeconds > 0) {
+            logTask = LOG_SCHEDULER.scheduleWithFixedDelay(RetryBudget::logMetrics,
+                    intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 输出指标有变化的服务
+     */
+    static void logMetrics() {
+        BUDGET_MAP.forEach((serviceKey, budget) -> {
+            Metrics metrics = budget.snapshot();
+            if (metrics.equals(budget.lastLogged)) {
+                return;
+            }
+            budget.lastLogged = metrics;
+            log.info("重试预算: {}, 成功调用 {}, 重试 {}, 预算不足放弃 {}, 剩余令牌 {}", serviceKey,
+                    metrics.getSuccessCount(), metrics.getRetryCount(), metrics.getRejectedCount(),
+                    String.format("%.1f", metrics.getBalance()));
+        });
+    }
+
+    /**
+     * 获取服务的重试预算
+     */
+    public static RetryBudget of(String serviceKey) {
+        return BUDGET_MAP.computeIfAbsent(serviceKey, key -> new RetryBudget());
+    }
+
+    /**
+     * 各服务当前的预算指标
+     *
+     * @return 服务键 => 指标
+     */
+    public static Map<String, Metrics> metrics() {
+        Map<String, Metrics> metrics = new LinkedHashMap<>();
+        BUDGET_MAP.forEach((serviceKey, budget) -> metrics.put(serviceKey, budget.snapshot()));
+        return metrics;
+    }
+
+    /**
+     * 记录一次成功调用
+     */
+    public void deposit() {
+        successCount.increment();
+        long deposit = depositPerCall;
+        if (deposit > 0 && balance.get() < MAX_BALANCE) {
+            balance.accumulateAndGet(deposit, (current, x) -> Math.min(current + x, MAX_BALANCE));
+        }
+    }
+
+    /**
+     * 申请一次重试
+     *
+     * @return 预算不足时返回 false
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            long current = balance.get();
+            if (current < TOKEN) {
+                rejectedCount.increment();
+                return false;
+            }
+            if (balance.compareAndSet(current, current - TOKEN)) {
+                retryCount.increment();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 当前指标
+     */
+    public Metrics snapshot() {
+        return new Metrics(successCount.sum(), retryCount.sum(), rejectedCount.sum(), (double) balance.get() / TOKEN);
+    }
+
+    /**
+     * 重试预算指标
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Metrics {
+
+        /**
+         * 成功调用数
+         */
+        private long successCount;
+
+        /**
+         * 已放行的重试数
+         */
+        private long retryCount;
+
+        /**
+         * 因预算不足放弃的重试数
+         */
+        private long rejectedCount;
+
+        /**
+         * 剩余令牌
+         */
+        private double balance;
+    }
+}
@@ -0,0 +1,113 @@
+package com.github.rpc.common.retry;
+
+import com.github.rpc.config.GlobalRpcConfig;
+import com.github.rpc.enums.ResponseCodeEnum;
+import com.github.rpc.exception.BizException;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 重试策略参数，每个服务引用组装时创建一次，调用时只读
+ * 退避时间按指数增长并封顶，再在 [一半, 全部] 之间随机（equal jitter），避免多个调用方同时重试；
+ * 绑定服务时每次重试还需服务的重试预算放行
+ */
+@Getter
+public class RetryPolicy {
+
+    /**
+     * 最多尝试次数（含第一次）
+     */
+    private final int maxAttempts;
+
+    /**
+     * 第一次重试前的等待时间（毫秒）
+     */
+    private final long baseDelayMillis;
+
+    /**
+     * 单次等待时间上限（毫秒）
+     */
+    private final long maxDelayMillis;
+
+    /**
+     * 服务的重试预算，为 null 时不限制
+     */
+    private final RetryBudget retryBudget;
+
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis, RetryBudget retryBudget) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMillis = Math.max(0L, baseDelayMillis);
+        this.maxDelayMillis = Math.max(this.baseDelayMillis, maxDelayMillis);
+        this.retryBudget = retryBudget;
+    }
+
+    /**
+     * 按全局配置创建，不限制重试预算
+     */
+    public static RetryPolicy from(GlobalRpcConfig rpcConfig) {
+        return from(rpcConfig, null);
+    }
+
+    /**
+     * 按全局配置创建
+     *
+     * @param serviceKey 服务键，为 null 时不限制重试预算
+     */
+    public static RetryPolicy from(GlobalRpcConfig rpcConfig, String serviceKey) {
+        long baseDelayMillis = Optional.ofNullable(rpcConfig.getRetryInterval()).orElse(200L);
+        return new RetryPolicy(
+                Optional.ofNullable(rpcConfig.getMaxRetryAttempts()).orElse(3),
+                baseDelayMillis,
+                Optional.ofNullable(rpcConfig.getMaxRetryInterval()).orElse(baseDelayMillis * 10),
+                serviceKey == null ? null : RetryBudget.of(serviceKey));
+    }
+
+    /**
+     * 第 attemptNumber 次尝试失败后的等待时间
+     *
+     * @param attemptNumber 已完成的尝试次数，从 1 开始
+     * @return 等待时间（毫秒）
+     */
+    public long backoffMillis(int attemptNumber) {
+        if (baseDelayMillis == 0) {
+            return 0L;
+        }
+        int shift = Math.min(Math.max(attemptNumber - 1, 0), 20);
+        long delay = Math.min(maxDelayMillis, baseDelayMillis << shift);
+        long half = delay / 2;
+        return half + ThreadLocalRandom.current().nextLong(delay - half + 1);
+    }
+
+    /**
+     * 记录一次成功调用，为重试预算存入令牌；所有成功的调用都应记录，包括对冲和故障转移的调用
+     */
+    public void onSuccess() {
+        if (retryBudget != null) {
+            retryBudget.deposit();
+        }
+    }
+
+    /**
+     * 申请一次重试
+     *
+     * @return 重试预算不足时返回 false
+     */
+    public boolean tryAcquireRetry() {
+        return retryBudget == null || retryBudget.tryAcquire();
+    }
+
+    /**
+     * 异常是否可以重试：网络异常、超时和运行时异常可以重试，熔断器拒绝的调用重试也不会成功
+     */
+    public boolean isRetryable(Throwable e) {
+        if (e instanceof BizException
+                && ResponseCodeEnum.CIRCUIT_BREAKER_OPEN.getErrorCode().equals(((BizException) e).getErrorCode())) {
+            return false;
+        }
+        return e instanceof IOException || e instanceof TimeoutException || e instanceof RuntimeException;
+    }
+}
@@ -0,0 +1,102 @@
+package com.github.rpc.common.retry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongFunction;
+
+/**
+ * 非阻塞重试：每次尝试都是异步请求，失败后的退避等待交给定时器，等待期间不占用任何线程；
+ * 每次尝试的超时时间取发起时距截止时间的剩余时间，重试不会超出整个调用的截止时间；
+ * 每次重试需服务的重试预算放行，预算不足时不再重试；成功调用由调用方统一存入预算，不论是否经过重试
+ */
+@Slf4j
+public final class RetryScheduler {
+
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "rpc-retry-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private RetryScheduler() {
+    }
+
+    /**
+     * @param attempt       发起一次异步尝试，参数为本次尝试的超时时间（毫秒）
+     * @param retryPolicy   重试策略
+     * @param deadlineNanos 整个调用的截止时间（System.nanoTime），退避后会超过截止时间时不再重试
+     * @return 结果，取消该 Future 会同时取消进行中的尝试并停止重试
+     */
+    public static <T> CompletableFuture<T> retry(LongFunction<CompletableFuture<T>> attempt, RetryPolicy retryPolicy,
+                                                 long deadlineNanos) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<T>> current = new AtomicReference<>();
+        result.whenComplete((value, e) -> {
+            CompletableFuture<T> running = current.get();
+            if (result.isCancelled() && running != null) {
+                running.cancel(false);
+            }
+        });
+        run(attempt, retryPolicy, deadlineNanos, 1, result, current);
+        return result;
+    }
+
+    private static <T> void run(LongFunction<CompletableFuture<T>> attempt, RetryPolicy retryPolicy, long deadlineNanos,
+                                int attemptNumber, CompletableFuture<T> result, AtomicReference<CompletableFuture<T>> current) {
+        if (result.isDone()) {
+            return;
+        }
+        long timeoutMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+        if (timeoutMillis <= 0) {
+            // 定时器延迟导致已到截止时间
+            result.completeExceptionally(new TimeoutException(
+                    String.format("调用已到截止时间，第 %d 次尝试未发起", attemptNumber)));
+            return;
+        }
+        CompletableFuture<T> future;
+        try {
+            future = attempt.apply(timeoutMillis);
+        } catch (Throwable e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        current.set(future);
+        if (result.isCancelled()) {
+            // 发起尝试期间调用方已取消
+            future.cancel(false);
+        }
+        future.whenComplete((value, e) -> {
+            if (e == null) {
+                result.complete(value);
+                return;
+            }
+            if (result.isDone()) {
+                // 已取消，不再重试也不消耗重试预算
+                return;
+            }
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            long delayMillis = retryPolicy.backoffMillis(attemptNumber);
+            // 退避结束后至少还要留出 1ms 给下一次尝试
+            if (attemptNumber >= retryPolicy.getMaxAttempts() || !retryPolicy.isRetryable(cause)
+                    || System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis + 1) > deadlineNanos) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            if (!retryPolicy.tryAcquireRetry()) {
+                log.warn("【RPC重试】重试预算不足，放弃重试，异常: {}", cause.getMessage());
+                result.completeExceptionally(cause);
+                return;
+            }
+            log.warn("【RPC重试中】第 {} 次重试，{}ms 后执行，异常: {}", attemptNumber, delayMillis, cause.getMessage());
+            TIMER.schedule(() -> run(attempt, retryPolicy, deadlineNanos, attemptNumber + 1, result, current),
+                    delayMillis, TimeUnit.MILLISECONDS);
+        });
+    }
+}
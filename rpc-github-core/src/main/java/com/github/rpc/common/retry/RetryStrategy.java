@@ -3,6 +3,8 @@ package com.github.rpc.common.retry;
 import com.github.rpc.model.RpcResponse;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongFunction;
 
 public interface RetryStrategy {
 
@@ -14,4 +16,17 @@ public interface RetryStrategy {
      * @throws Exception
      */
     RpcResponse doRetry(Callable<RpcResponse> callable) throws Exception;
+
+    /**
+     * 非阻塞重试，退避等待在定时器上完成
+     *
+     * @param attempt       发起一次异步尝试，参数为本次尝试的超时时间（毫秒），不超过距截止时间的剩余时间
+     * @param retryPolicy   服务引用组装时创建的重试策略
+     * @param deadlineNanos 调用截止时间（System.nanoTime）
+     * @return 结果
+     */
+    default CompletableFuture<RpcResponse> doRetryAsync(LongFunction<CompletableFuture<RpcResponse>> attempt,
+                                                        RetryPolicy retryPolicy, long deadlineNanos) {
+        return RetryScheduler.retry(attempt, retryPolicy, deadlineNanos);
+    }
 }
@@ -2,37 +2,54 @@ package com.github.rpc.common.retry.impl;
 
 import com.github.rholder.retry.*;
 import com.github.rpc.RpcApplication;
+import com.github.rpc.common.retry.RetryPolicy;
 import com.github.rpc.common.retry.RetryStrategy;
 import com.github.rpc.config.GlobalRpcConfig;
 import com.github.rpc.model.RpcResponse;
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.IOException;
-import java.util.Optional;
 import java.util.concurrent.Callable;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 
+/**
+ * 同步重试，等待期间阻塞调用线程；服务引用的调用链使用非阻塞的 {@link #doRetryAsync}
+ */
 @Slf4j
 public class GuavaRetryStrategy implements RetryStrategy {
 
+    /**
+     * 按配置版本缓存的重试器，Retryer 本身无状态可以并发使用
+     */
+    private volatile CachedRetryer cachedRetryer;
+
     @Override
     public RpcResponse doRetry(Callable<RpcResponse> callable) throws Exception {
-        // 从配置中读取重试参数（你可以从 RpcConfig 或注解中获取）
-        GlobalRpcConfig config = RpcApplication.getRpcConfig();
-        int maxAttempts = Optional.ofNullable(config.getMaxRetryAttempts()).orElse(3);
-        long retryInterval = Optional.ofNullable(config.getRetryInterval()).orElse(100L); // ms
+        // 执行带重试的调用
+        return getRetryer().call(callable);
+    }
+
+    /**
+     * 全局配置变化后才重新构建重试器
+     */
+    private Retryer<RpcResponse> getRetryer() {
+        long configVersion = RpcApplication.getConfigVersion();
+        CachedRetryer cached = cachedRetryer;
+        if (cached == null || cached.configVersion != configVersion) {
+            cached = new CachedRetryer(configVersion, buildRetryer(RpcApplication.getRpcConfig()));
+            cachedRetryer = cached;
+        }
+        return cached.retryer;
+    }
 
+    private Retryer<RpcResponse> buildRetryer(GlobalRpcConfig config) {
+        RetryPolicy retryPolicy = RetryPolicy.from(config);
         // 构建重试器（核心：声明式编程，优雅永不过时）
-        Retryer<RpcResponse> retryer = RetryerBuilder.<RpcResponse>newBuilder()
-                // 仅在网络异常、连接超时等可恢复异常时重试 TODO待实现
-                .retryIfExceptionOfType(IOException.class)
-                .retryIfExceptionOfType(TimeoutException.class)
-                .retryIfRuntimeException()
+        return RetryerBuilder.<RpcResponse>newBuilder()
+                // 仅在网络异常、连接超时等可恢复异常时重试
+                .retryIfException(retryPolicy::isRetryable)
                 // 重试次数
-                .withStopStrategy(StopStrategies.stopAfterAttempt(maxAttempts))
-                // 固定间隔 or 指数退避？你说了算！
-                .withWaitStrategy(WaitStrategies.fixedWait(retryInterval, TimeUnit.MILLISECONDS))
+                .withStopStrategy(StopStrategies.stopAfterAttempt(retryPolicy.getMaxAttempts()))
+                // 指数退避 + 随机抖动
+                .withWaitStrategy(failedAttempt -> retryPolicy.backoffMillis((int) failedAttempt.getAttemptNumber()))
                 // 日志监听器（关键！不然出问题你都不知道重了几次）
                 .withRetryListener(new RetryListener() {
                     @Override
@@ -45,8 +62,17 @@ public class GuavaRetryStrategy implements RetryStrategy {
                     }
                 })
                 .build();
+    }
 
-        // 执行带重试的调用
-        return retryer.call(callable);
+    private static class CachedRetryer {
+
+        private final long configVersion;
+
+        private final Retryer<RpcResponse> retryer;
+
+        CachedRetryer(long configVersion, Retryer<RpcResponse> retryer) {
+            this.configVersion = configVersion;
+            this.retryer = retryer;
+        }
     }
-}
\ No newline at end of file
+}
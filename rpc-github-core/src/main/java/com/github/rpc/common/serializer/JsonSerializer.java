@@ -1,11 +1,25 @@
 package com.github.rpc.common.serializer;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.github.rpc.common.registry.localcache.LocalRegistry;
+import com.github.rpc.common.registry.localcache.ServiceMethodInvoker;
 import com.github.rpc.model.RpcRequest;
 import com.github.rpc.model.RpcResponse;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
+/**
+ * JSON 序列化器
+ * RpcRequest 先写 parameterTypes 再写 args，RpcResponse 先写 dataType 再写 data，
+ * 反序列化时用流式解析器边读边按目标类型解析，每个值只解析一次；
+ * 字段顺序不符（如其他语言的客户端）时先缓存为树，读完类型后再转换
+ */
 public class JsonSerializer implements Serializer {
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
@@ -20,6 +34,14 @@ public class JsonSerializer implements Serializer {
         return OBJECT_MAPPER.writeValueAsBytes(obj);
     }
 
+    /**
+     * 直接写入输出流，Jackson 内部复用缓冲区，不生成中间 byte[]
+     */
+    @Override
+    public <T> void serialize(T obj, OutputStream outputStream) throws IOException {
+        OBJECT_MAPPER.writeValue(outputStream, obj);
+    }
+
     /**
      * @param bytes
      * @param classType
@@ -29,40 +51,170 @@ public class JsonSerializer implements Serializer {
      */
     @Override
     public <T> T deserialize(byte[] bytes, Class<T> classType) throws IOException {
-        T obj = OBJECT_MAPPER.readValue(bytes, classType);
-        if (obj instanceof RpcRequest) {
-            return handleRequest((RpcRequest) obj, classType);
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(bytes)) {
+            return deserialize(parser, classType);
         }
-        if (obj instanceof RpcResponse) {
-            return handleResponse((RpcResponse) obj, classType);
-        }
-        return obj;
     }
 
 
-    private <T> T handleRequest(RpcRequest rpcRequest, Class<T> type) throws IOException {
-        Class<?>[] parameterTypes = rpcRequest.getParameterTypes();
-        Object[] args = rpcRequest.getArgs();
+    /**
+     * 直接从缓冲区视图反序列化，不复制数据
+     */
+    @Override
+    public <T> T deserialize(ByteBuffer buffer, Class<T> classType) throws IOException {
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(new ByteBufferBackedInputStream(buffer))) {
+            return deserialize(parser, classType);
+        }
+    }
+
+    private <T> T deserialize(JsonParser parser, Class<T> classType) throws IOException {
+        if (classType == RpcRequest.class) {
+            return classType.cast(readRequest(parser));
+        }
+        if (classType == RpcResponse.class) {
+            return classType.cast(readResponse(parser));
+        }
+        return OBJECT_MAPPER.readValue(parser, classType);
+    }
 
-        // 循环处理每个参数的类型
-        for (int i = 0; i < parameterTypes.length; i++) {
-            Class<?> clazz = parameterTypes[i];
-            // 如果类型不同，则重新处理一下类型
-            if (!clazz.isAssignableFrom(args[i].getClass())) {
-                byte[] argBytes = OBJECT_MAPPER.writeValueAsBytes(args[i]);
-                args[i] = OBJECT_MAPPER.readValue(argBytes, clazz);
+    private RpcRequest readRequest(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return null;
+        }
+        RpcRequest rpcRequest = new RpcRequest();
+        JsonNode pendingArgs = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            switch (fieldName) {
+                case "serviceName":
+                    rpcRequest.setServiceName(parser.getValueAsString());
+                    break;
+                case "methodName":
+                    rpcRequest.setMethodName(parser.getValueAsString());
+                    break;
+                case "serviceVersion":
+                    rpcRequest.setServiceVersion(parser.getValueAsString());
+                    break;
+                case "methodId":
+                    rpcRequest.setMethodId(token == JsonToken.VALUE_NULL ? null : parser.getIntValue());
+                    break;
+                case "parameterTypes":
+                    rpcRequest.setParameterTypes(OBJECT_MAPPER.readValue(parser, Class[].class));
+                    break;
+                case "args":
+                    Class<?>[] parameterTypes = resolveParameterTypes(rpcRequest);
+                    if (parameterTypes != null || token == JsonToken.VALUE_NULL) {
+                        rpcRequest.setArgs(readArgs(parser, parameterTypes));
+                    } else {
+                        // 还不知道参数类型，先缓存
+                        pendingArgs = OBJECT_MAPPER.readTree(parser);
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
             }
         }
-        return type.cast(rpcRequest);
+        if (pendingArgs != null) {
+            rpcRequest.setArgs(convertArgs(pendingArgs, resolveParameterTypes(rpcRequest)));
+        }
+        return rpcRequest;
+    }
 
+    /**
+     * 参数类型：优先取请求中的类型，只带方法 id 的请求取服务提供者本地的方法表
+     */
+    private Class<?>[] resolveParameterTypes(RpcRequest rpcRequest) {
+        if (rpcRequest.getParameterTypes() != null) {
+            return rpcRequest.getParameterTypes();
+        }
+        if (rpcRequest.getMethodId() != null) {
+            ServiceMethodInvoker invoker = LocalRegistry.getInvoker(rpcRequest.getMethodId());
+            return invoker == null ? null : invoker.getParameterTypes();
+        }
+        return null;
+    }
 
+    /**
+     * 按参数类型逐个解析 args 数组，解析器位于数组起始处
+     */
+    private Object[] readArgs(JsonParser parser, Class<?>[] parameterTypes) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        Object[] args = new Object[parameterTypes.length];
+        int i = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (i < args.length) {
+                args[i] = readValue(parser, parameterTypes[i]);
+            } else {
+                parser.skipChildren();
+            }
+            i++;
+        }
+        return args;
     }
 
-    private <T> T handleResponse(RpcResponse rpcResponse, Class<T> type) throws IOException {
-        // 处理响应数据
-        byte[] dataBytes = OBJECT_MAPPER.writeValueAsBytes(rpcResponse.getData());
-        rpcResponse.setData(OBJECT_MAPPER.readValue(dataBytes, rpcResponse.getDataType()));
-        return type.cast(rpcResponse);
+    private Object[] convertArgs(JsonNode argsNode, Class<?>[] parameterTypes) throws IOException {
+        Object[] args = new Object[argsNode.size()];
+        for (int i = 0; i < args.length; i++) {
+            Class<?> type = parameterTypes != null && i < parameterTypes.length ? parameterTypes[i] : Object.class;
+            args[i] = OBJECT_MAPPER.treeToValue(argsNode.get(i), type);
+        }
+        return args;
     }
 
+    private RpcResponse readResponse(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return null;
+        }
+        RpcResponse rpcResponse = new RpcResponse();
+        JsonNode pendingData = null;
+        boolean dataTypeRead = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+            switch (fieldName) {
+                case "dataType":
+                    rpcResponse.setDataType(OBJECT_MAPPER.readValue(parser, Class.class));
+                    dataTypeRead = true;
+                    break;
+                case "data":
+                    if (dataTypeRead) {
+                        rpcResponse.setData(readValue(parser, rpcResponse.getDataType()));
+                    } else {
+                        // 还不知道数据类型，先缓存
+                        pendingData = OBJECT_MAPPER.readTree(parser);
+                    }
+                    break;
+                case "message":
+                    rpcResponse.setMessage(parser.getValueAsString());
+                    break;
+                case "exception":
+                    rpcResponse.setException(readValue(parser, Exception.class));
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+        if (pendingData != null && !pendingData.isNull()) {
+            Class<?> dataType = rpcResponse.getDataType();
+            Class<?> targetType = dataType == null || dataType == void.class ? Object.class : dataType;
+            rpcResponse.setData(OBJECT_MAPPER.treeToValue(pendingData, targetType));
+        }
+        return rpcResponse;
     }
+
+    /**
+     * 解析当前值，null 直接返回，不去查找目标类型的反序列化器（如 void）
+     */
+    private <T> T readValue(JsonParser parser, Class<T> type) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        return OBJECT_MAPPER.readValue(parser, type == null || type == void.class ? (Class<T>) Object.class : type);
+    }
+
+}
@@ -1,26 +1,57 @@
 package com.github.rpc.common.serializer;
 
+import cn.hutool.core.util.StrUtil;
 import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.io.ByteBufferInput;
-import com.esotericsoftware.kryo.io.ByteBufferOutput;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.util.Pool;
+import com.github.rpc.common.spi.SpiLoader;
+import com.github.rpc.config.KryoConfig;
+import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
 
+@Slf4j
 public class KryoSerializer implements Serializer {
 
     /**
-     * ThreadLocal 为每个线程维护独立的 Kryo 实例，避免并发问题。
-     * Kryo 本身不是线程安全的，必须如此处理。
+     * 注册类 id 从 20 开始，避开 Kryo 内置的基本类型注册
      */
-    private static final ThreadLocal<Kryo> KRYO_THREAD_LOCAL = ThreadLocal.withInitial(() -> {
-        Kryo kryo = new Kryo();
-        // 允许对象循环引用
-        kryo.setReferences(true);
-        // 可在此注册常用类以提升性能（可配置化扩展点）
-        // kryo.register(User.class);
-        // kryo.register(Request.class);
-        return kryo;
-    });
+    private static final int FIRST_REGISTRATION_ID = 20;
+
+    /**
+     * Kryo 本身不是线程安全的，使用有界对象池复用实例，
+     * 实例内的类解析缓存随实例一起保留，不在每次调用后丢弃
+     */
+    private static volatile Pool<Kryo> kryoPool = createPool(new KryoConfig());
+
+    private static final int INITIAL_OUTPUT_SIZE = 4096;
+
+    /**
+     * 输出缓冲扩容超过该大小后不再复用，避免偶发的大对象让每个线程长期持有大数组
+     */
+    private static final int MAX_RETAINED_OUTPUT_SIZE = 64 * 1024;
+
+    /**
+     * 流式序列化使用的输出缓冲，按线程复用，写满时直接刷入目标流
+     */
+    private static final ThreadLocal<Output> OUTPUT_THREAD_LOCAL = ThreadLocal.withInitial(() -> new Output(INITIAL_OUTPUT_SIZE, -1));
+
+    /**
+     * 按配置重建对象池，已借出的实例归还后被丢弃
+     *
+     * @param kryoConfig Kryo 配置
+     */
+    public static void configure(KryoConfig kryoConfig) {
+        if (kryoConfig != null) {
+            kryoPool = createPool(kryoConfig);
+        }
+    }
 
     /**
      * 将对象序列化为字节数组
@@ -32,12 +63,45 @@ public class KryoSerializer implements Serializer {
      */
     @Override
     public <T> byte[] serialize(T object) throws IOException {
-        try (ByteBufferOutput output = new ByteBufferOutput(4096)) {
-            Kryo kryo = KRYO_THREAD_LOCAL.get();
+        Output output = OUTPUT_THREAD_LOCAL.get();
+        output.reset();
+        Pool<Kryo> pool = kryoPool;
+        Kryo kryo = pool.obtain();
+        try {
             kryo.writeObject(output, object);
             return output.toBytes();
         } catch (Exception e) {
             throw new IOException("Kryo serialization failed for object: " + object.getClass(), e);
+        } finally {
+            pool.free(kryo);
+            releaseIfOversized(output);
+        }
+    }
+
+    /**
+     * 将对象直接序列化到输出流
+     */
+    @Override
+    public <T> void serialize(T object, OutputStream outputStream) throws IOException {
+        Output output = OUTPUT_THREAD_LOCAL.get();
+        output.setOutputStream(outputStream);
+        Pool<Kryo> pool = kryoPool;
+        Kryo kryo = pool.obtain();
+        try {
+            kryo.writeObject(output, object);
+            output.flush();
+        } catch (Exception e) {
+            throw new IOException("Kryo serialization failed for object: " + object.getClass(), e);
+        } finally {
+            pool.free(kryo);
+            output.setOutputStream(null);
+            releaseIfOversized(output);
+        }
+    }
+
+    private static void releaseIfOversized(Output output) {
+        if (output.getBuffer().length > MAX_RETAINED_OUTPUT_SIZE) {
+            OUTPUT_THREAD_LOCAL.remove();
         }
     }
 
@@ -52,20 +116,67 @@ public class KryoSerializer implements Serializer {
      */
     @Override
     public <T> T deserialize(byte[] bytes, Class<T> tClass) throws IOException {
-        try (ByteBufferInput input = new ByteBufferInput(bytes)) {
-            Kryo kryo = KRYO_THREAD_LOCAL.get();
-            T result = kryo.readObject(input, tClass);
-            return result;
+        return deserialize(ByteBuffer.wrap(bytes), tClass);
+    }
+
+    /**
+     * 直接从缓冲区视图反序列化，不复制数据
+     */
+    @Override
+    public <T> T deserialize(ByteBuffer buffer, Class<T> tClass) throws IOException {
+        Pool<Kryo> pool = kryoPool;
+        Kryo kryo = pool.obtain();
+        try (ByteBufferInput input = new ByteBufferInput(buffer)) {
+            return kryo.readObject(input, tClass);
         } catch (Exception e) {
             throw new IOException("Kryo deserialization failed for class: " + tClass.getName(), e);
+        } finally {
+            pool.free(kryo);
         }
     }
 
+    private static Pool<Kryo> createPool(KryoConfig kryoConfig) {
+        Map<Integer, Class<?>> registrations = loadRegistrations(kryoConfig);
+        boolean references = Optional.ofNullable(kryoConfig.getReferences()).orElse(true);
+        boolean registrationRequired = Optional.ofNullable(kryoConfig.getRegistrationRequired()).orElse(false);
+        int poolSize = Optional.ofNullable(kryoConfig.getPoolSize()).orElse(16);
+        return new Pool<Kryo>(true, false, Math.max(poolSize, 1)) {
+            @Override
+            protected Kryo create() {
+                Kryo kryo = new Kryo();
+                kryo.setReferences(references);
+                kryo.setRegistrationRequired(registrationRequired);
+                // 已注册的类只写入一个小整数 id，不再写类名
+                registrations.forEach((id, clazz) -> kryo.register(clazz, id));
+                return kryo;
+            }
+        };
+    }
+
     /**
-     * 可选：重置 Kryo 实例状态（通常不需要）
-     * 如果希望每次使用后清理状态，可以调用此方法
+     * 注册表：先读 SPI 文件（id=类名），再按顺序追加配置中的类
      */
-    public static void resetKryo() {
-        KRYO_THREAD_LOCAL.remove();
+    private static Map<Integer, Class<?>> loadRegistrations(KryoConfig kryoConfig) {
+        TreeMap<Integer, Class<?>> registrations = new TreeMap<>();
+        SpiLoader.load(KryoSerializer.class).forEach((id, clazz) -> {
+            try {
+                registrations.put(Integer.parseInt(id.trim()), clazz);
+            } catch (NumberFormatException e) {
+                log.warn("Kryo 注册 id 不合法，跳过: {}={}", id, clazz.getName());
+            }
+        });
+        int nextId = registrations.isEmpty()
+                ? FIRST_REGISTRATION_ID
+                : Math.max(FIRST_REGISTRATION_ID, registrations.lastKey() + 1);
+        for (String className : StrUtil.split(StrUtil.nullToEmpty(kryoConfig.getRegisterClasses()), ',', true, true)) {
+            // 加载失败也占用 id，保证两端其余类的 id 不错位
+            int id = nextId++;
+            try {
+                registrations.put(id, Class.forName(className));
+            } catch (ClassNotFoundException e) {
+                log.warn("Kryo 注册类不存在，跳过: {}", className);
+            }
+        }
+        return registrations;
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,8 @@
 package com.github.rpc.common.serializer;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 public interface Serializer {
 
@@ -14,6 +16,19 @@ public interface Serializer {
      */
     <T> byte[] serialize(T object) throws IOException;
 
+    /**
+     * 序列化 直接写入输出流（如池化的 Netty 缓冲区），不生成中间 byte[]
+     * 默认实现仍会先生成 byte[]，具体序列化器可覆盖
+     *
+     * @param object
+     * @param outputStream
+     * @param <T>
+     * @throws IOException
+     */
+    default <T> void serialize(T object, OutputStream outputStream) throws IOException {
+        outputStream.write(serialize(object));
+    }
+
     /**
      * 反序列化
      *
@@ -24,4 +39,20 @@ public interface Serializer {
      * @throws IOException
      */
     <T> T deserialize(byte[] bytes, Class<T> tClass) throws IOException;
+
+    /**
+     * 反序列化 直接读取缓冲区视图（如 Netty 缓冲区切片），避免先复制成 byte[]
+     * 默认实现仍会复制一次，具体序列化器可覆盖
+     *
+     * @param buffer 从 position 到 limit 为完整数据
+     * @param tClass
+     * @param <T>
+     * @return
+     * @throws IOException
+     */
+    default <T> T deserialize(ByteBuffer buffer, Class<T> tClass) throws IOException {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return deserialize(bytes, tClass);
+    }
 }
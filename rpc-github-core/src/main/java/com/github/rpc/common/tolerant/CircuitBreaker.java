@@ -0,0 +1,316 @@
+package com.github.rpc.common.tolerant;
+
+import com.github.rpc.config.CircuitBreakerConfig;
+import com.github.rpc.enums.ResponseCodeEnum;
+import com.github.rpc.exception.BizException;
+import com.github.rpc.model.dto.ServiceMetaInfoDTO;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个服务节点的熔断器，按 ServiceMetaInfoDTO#getServiceNodeKey 区分
+ * 关闭：统计最近 windowSize 次调用（环形数组，无锁），失败率或慢调用比例达到阈值时打开；
+ * 打开：直接拒绝调用，openMillis 后进入半开；
+ * 半开：放行 halfOpenCalls 次试探调用，全部成功则关闭并清空窗口，任一失败重新打开
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    private static final int CLOSED = 0;
+
+    private static final int OPEN = 1;
+
+    private static final int HALF_OPEN = 2;
+
+    /**
+     * 窗口中的调用结果，0 表示该位置还没有记录
+     */
+    private static final int RECORDED = 1;
+
+    private static final int FAILURE = 2;
+
+    private static final int SLOW = 4;
+
+    /**
+     * 服务节点键 => 熔断器
+     */
+    private static final Map<String, CircuitBreaker> BREAKER_MAP = new ConcurrentHashMap<>();
+
+    private static volatile Settings settings = new Settings(new CircuitBreakerConfig());
+
+    private final String serviceNodeKey;
+
+    private final AtomicInteger state = new AtomicInteger(CLOSED);
+
+    /**
+     * 打开时间（纳秒）
+     */
+    private volatile long openedAtNanos;
+
+    /**
+     * 半开状态剩余的试探调用数
+     */
+    private final AtomicInteger halfOpenPermits = new AtomicInteger();
+
+    /**
+     * 半开状态已成功的试探调用数
+     */
+    private final AtomicInteger halfOpenSuccesses = new AtomicInteger();
+
+    /**
+     * 关闭时整体替换为新窗口，旧窗口上并发的记录直接丢弃
+     */
+    private volatile Window window;
+
+    private CircuitBreaker(String serviceNodeKey, int windowSize) {
+        this.serviceNodeKey = serviceNodeKey;
+        this.window = new Window(windowSize);
+    }
+
+    /**
+     * 按配置更新熔断参数，窗口大小变化时丢弃已有的熔断器
+     */
+    public static void configure(CircuitBreakerConfig circuitBreakerConfig) {
+        if (circuitBreakerConfig == null) {
+            return;
+        }
+        Settings newSettings = new Settings(circuitBreakerConfig);
+        if (newSettings.windowSize != settings.windowSize) {
+            BREAKER_MAP.clear();
+        }
+        settings = newSettings;
+    }
+
+    /**
+     * 是否开启熔断
+     */
+    public static boolean isEnabled() {
+        return settings.enabled;
+    }
+
+    /**
+     * 获取服务节点的熔断器
+     */
+    public static CircuitBreaker of(ServiceMetaInfoDTO serviceMetaInfo) {
+        return BREAKER_MAP.computeIfAbsent(serviceMetaInfo.getServiceNodeKey(),
+                key -> new CircuitBreaker(key, settings.windowSize));
+    }
+
+    /**
+     * 服务节点已从服务发现中下线，丢弃其熔断器
+     *
+     * @param serviceNodeKey 服务节点键
+     */
+    public static void remove(String serviceNodeKey) {
+        BREAKER_MAP.remove(serviceNodeKey);
+    }
+
+    /**
+     * 当前是否允许调用，不占用半开状态的试探名额，供负载均衡跳过已熔断的节点
+     */
+    public boolean isCallPermitted() {
+        if (!settings.enabled) {
+            return true;
+        }
+        switch (state.get()) {
+            case OPEN:
+                return System.nanoTime() - openedAtNanos >= settings.openNanos;
+            case HALF_OPEN:
+                return halfOpenPermits.get() > 0;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * 申请一次调用，成功后必须以 {@link #onComplete(long, Throwable)} 结束
+     *
+     * @throws BizException 熔断器打开或半开状态没有试探名额
+     */
+    public void acquirePermission() {
+        if (!tryAcquire()) {
+            throw new BizException(ResponseCodeEnum.CIRCUIT_BREAKER_OPEN);
+        }
+    }
+
+    /**
+     * 申请一次调用
+     *
+     * @return 是否允许调用
+     */
+    public boolean tryAcquire() {
+        Settings current = settings;
+        if (!current.enabled) {
+            return true;
+        }
+        int currentState = state.get();
+        if (currentState == CLOSED) {
+            return true;
+        }
+        if (currentState == OPEN) {
+            if (System.nanoTime() - openedAtNanos < current.openNanos) {
+                return false;
+            }
+            // 只有切换成功的线程发放试探名额
+            if (state.compareAndSet(OPEN, HALF_OPEN)) {
+                halfOpenSuccesses.set(0);
+                halfOpenPermits.set(current.halfOpenCalls);
+                log.info("服务节点熔断器进入半开状态: {}", serviceNodeKey);
+            }
+        }
+        while (true) {
+            currentState = state.get();
+            if (currentState != HALF_OPEN) {
+                return currentState == CLOSED;
+            }
+            int permits = halfOpenPermits.get();
+            if (permits <= 0) {
+                return false;
+            }
+            if (halfOpenPermits.compareAndSet(permits, permits - 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 调用结束
+     *
+     * @param startNanos 调用开始时间
+     * @param error      调用异常，成功时为 null；取消的调用不计入统计，只归还试探名额
+     */
+    public void onComplete(long startNanos, Throwable error) {
+        Settings current = settings;
+        if (!current.enabled) {
+            return;
+        }
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof CancellationException) {
+            if (state.get() == HALF_OPEN) {
+                halfOpenPermits.incrementAndGet();
+            }
+            return;
+        }
+        // 熔断器自身拒绝的调用不计入统计
+        if (cause instanceof BizException
+                && ResponseCodeEnum.CIRCUIT_BREAKER_OPEN.getErrorCode().equals(((BizException) cause).getErrorCode())) {
+            return;
+        }
+        boolean failure = cause != null;
+        boolean slow = current.slowCallNanos > 0 && System.nanoTime() - startNanos >= current.slowCallNanos;
+        int currentState = state.get();
+        if (currentState == HALF_OPEN) {
+            if (failure || slow) {
+                open(HALF_OPEN);
+            } else if (halfOpenSuccesses.incrementAndGet() >= current.halfOpenCalls
+                    && state.compareAndSet(HALF_OPEN, CLOSED)) {
+                window = new Window(current.windowSize);
+                log.info("服务节点熔断器已恢复: {}", serviceNodeKey);
+            }
+            return;
+        }
+        if (currentState != CLOSED) {
+            return;
+        }
+        Window currentWindow = window;
+        currentWindow.record(RECORDED | (failure ? FAILURE : 0) | (slow ? SLOW : 0));
+        int total = currentWindow.total.get();
+        if (total < current.minimumCalls) {
+            return;
+        }
+        if (currentWindow.failures.get() * 100L >= (long) current.failureRateThreshold * total
+                || (current.slowCallNanos > 0 && currentWindow.slowCalls.get() * 100L >= (long) current.slowCallRateThreshold * total)) {
+            open(CLOSED);
+        }
+    }
+
+    private void open(int expectedState) {
+        openedAtNanos = System.nanoTime();
+        halfOpenPermits.set(0);
+        if (state.compareAndSet(expectedState, OPEN)) {
+            log.warn("服务节点熔断器已打开: {}", serviceNodeKey);
+        }
+    }
+
+    /**
+     * 最近 N 次调用结果的环形窗口，写入时用 getAndSet 换出最旧的结果并增量更新计数
+     */
+    private static class Window {
+
+        private final AtomicIntegerArray outcomes;
+
+        private final AtomicLong cursor = new AtomicLong();
+
+        private final AtomicInteger total = new AtomicInteger();
+
+        private final AtomicInteger failures = new AtomicInteger();
+
+        private final AtomicInteger slowCalls = new AtomicInteger();
+
+        Window(int size) {
+            this.outcomes = new AtomicIntegerArray(size);
+        }
+
+        void record(int outcome) {
+            int index = (int) (cursor.getAndIncrement() % outcomes.length());
+            int evicted = outcomes.getAndSet(index, outcome);
+            if (evicted == 0) {
+                total.incrementAndGet();
+            }
+            int failureDelta = bit(outcome, FAILURE) - bit(evicted, FAILURE);
+            if (failureDelta != 0) {
+                failures.addAndGet(failureDelta);
+            }
+            int slowDelta = bit(outcome, SLOW) - bit(evicted, SLOW);
+            if (slowDelta != 0) {
+                slowCalls.addAndGet(slowDelta);
+            }
+        }
+
+        private static int bit(int outcome, int flag) {
+            return (outcome & flag) == 0 ? 0 : 1;
+        }
+    }
+
+    /**
+     * 解析后的配置，整体替换保证读取一致
+     */
+    private static class Settings {
+
+        private final boolean enabled;
+
+        private final int windowSize;
+
+        private final int minimumCalls;
+
+        private final int failureRateThreshold;
+
+        private final long slowCallNanos;
+
+        private final int slowCallRateThreshold;
+
+        private final long openNanos;
+
+        private final int halfOpenCalls;
+
+        Settings(CircuitBreakerConfig config) {
+            this.enabled = Optional.ofNullable(config.getEnabled()).orElse(true);
+            this.windowSize = Math.max(1, Optional.ofNullable(config.getWindowSize()).orElse(100));
+            this.minimumCalls = Math.max(1, Optional.ofNullable(config.getMinimumCalls()).orElse(20));
+            this.failureRateThreshold = Optional.ofNullable(config.getFailureRateThreshold()).orElse(50);
+            this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(Optional.ofNullable(config.getSlowCallMillis()).orElse(0L));
+            this.slowCallRateThreshold = Optional.ofNullable(config.getSlowCallRateThreshold()).orElse(100);
+            this.openNanos = TimeUnit.MILLISECONDS.toNanos(Optional.ofNullable(config.getOpenMillis()).orElse(5000L));
+            this.halfOpenCalls = Math.max(1, Optional.ofNullable(config.getHalfOpenCalls()).orElse(5));
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.github.rpc.common.tolerant;
+
+import com.github.rpc.model.RpcResponse;
+import com.github.rpc.model.dto.ServiceMetaInfoDTO;
+
+/**
+ * 向指定服务提供者发送当前请求，供需要换节点重发的容错策略使用
+ */
+@FunctionalInterface
+public interface RequestSender {
+
+    /**
+     * 发送请求
+     *
+     * @param serviceMetaInfo 服务提供者
+     * @return 响应
+     * @throws Exception 调用失败
+     */
+    RpcResponse send(ServiceMetaInfoDTO serviceMetaInfo) throws Exception;
+}
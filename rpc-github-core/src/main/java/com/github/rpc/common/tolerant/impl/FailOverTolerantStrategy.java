@@ -0,0 +1,134 @@
+package com.github.rpc.common.tolerant.impl;
+
+import com.github.rpc.common.loadblanace.LoadBalancerStrategy;
+import com.github.rpc.common.tolerant.RequestSender;
+import com.github.rpc.common.tolerant.TolerantStrategy;
+import com.github.rpc.constants.TolerantStrategyConstant;
+import com.github.rpc.enums.ResponseCodeEnum;
+import com.github.rpc.exception.BizException;
+import com.github.rpc.model.RpcResponse;
+import com.github.rpc.model.dto.ServiceMetaInfoDTO;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.ConnectException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 故障转移：排除已失败的节点，通过同一个负载均衡器重新选择其他节点发送，
+ * 最多尝试上下文中给定的次数，全部失败时抛出最后一次的异常；
+ * 超时等失败时请求可能已在服务端执行，只有幂等方法才转移，非幂等方法只在请求确定未发出（连接失败、节点熔断）时转移；
+ * 上下文给出调用截止时间时，过了截止时间不再转移
+ */
+@Slf4j
+public class FailOverTolerantStrategy implements TolerantStrategy {
+
+    /**
+     * 负载均衡选中已排除节点时的重选次数，之后按列表顺序取第一个未排除的节点
+     */
+    private static final int RESELECT_TIMES = 2;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public RpcResponse doTolerant(Map<String, Object> context, Exception e) {
+        if (context == null || !(context.get(TolerantStrategyConstant.CONTEXT_REQUEST_SENDER) instanceof RequestSender)) {
+            throw new BizException(e);
+        }
+        List<ServiceMetaInfoDTO> serviceMetaInfoList = (List<ServiceMetaInfoDTO>) context.get(TolerantStrategyConstant.CONTEXT_SERVICE_LIST);
+        ServiceMetaInfoDTO failed = (ServiceMetaInfoDTO) context.get(TolerantStrategyConstant.CONTEXT_SELECTED_SERVICE);
+        LoadBalancerStrategy loadBalancer = (LoadBalancerStrategy) context.get(TolerantStrategyConstant.CONTEXT_LOAD_BALANCER);
+        Map<String, Object> requestParams = (Map<String, Object>) context.get(TolerantStrategyConstant.CONTEXT_REQUEST_PARAMS);
+        RequestSender requestSender = (RequestSender) context.get(TolerantStrategyConstant.CONTEXT_REQUEST_SENDER);
+        Object maxAttempts = context.get(TolerantStrategyConstant.CONTEXT_MAX_ATTEMPTS);
+        int attempts = maxAttempts instanceof Integer ? (Integer) maxAttempts : 2;
+        boolean idempotent = Boolean.TRUE.equals(context.get(TolerantStrategyConstant.CONTEXT_IDEMPOTENT));
+        Object deadlineNanos = context.get(TolerantStrategyConstant.CONTEXT_DEADLINE_NANOS);
+        if (!canFailOver(e, idempotent)) {
+            log.warn("非幂等方法调用失败，请求可能已送达，不做故障转移: {}", failed == null ? null : failed.getServiceNodeKey());
+            throw e instanceof RuntimeException ? (RuntimeException) e : new BizException(e);
+        }
+
+        Set<String> excluded = new HashSet<>();
+        if (failed != null) {
+            excluded.add(failed.getServiceNodeKey());
+        }
+        Exception lastException = e;
+        for (int attempt = 1; attempt <= attempts && serviceMetaInfoList != null; attempt++) {
+            if (isExpired(deadlineNanos)) {
+                log.warn("调用已超过截止时间，停止故障转移");
+                break;
+            }
+            ServiceMetaInfoDTO next = select(loadBalancer, requestParams, serviceMetaInfoList, excluded);
+            if (next == null) {
+                break;
+            }
+            try {
+                log.warn("故障转移第 {} 次，改为调用 {}", attempt, next.getServiceNodeKey());
+                return requestSender.send(next);
+            } catch (Exception ex) {
+                excluded.add(next.getServiceNodeKey());
+                lastException = ex;
+                if (!canFailOver(ex, idempotent)) {
+                    break;
+                }
+            }
+        }
+        log.error("故障转移失败，已尝试节点: {}", excluded, lastException);
+        throw lastException instanceof RuntimeException ? (RuntimeException) lastException : new BizException(lastException);
+    }
+
+    /**
+     * 幂等方法总是可以转移；非幂等方法只在请求确定没有发到服务端时转移
+     */
+    private static boolean canFailOver(Throwable e, boolean idempotent) {
+        return idempotent || isNotSent(e);
+    }
+
+    private static boolean isExpired(Object deadlineNanos) {
+        return deadlineNanos instanceof Long && System.nanoTime() - (Long) deadlineNanos >= 0;
+    }
+
+    /**
+     * 连接失败或熔断器拒绝，请求没有发出
+     */
+    private static boolean isNotSent(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (cause instanceof ConnectException) {
+                return true;
+            }
+            if (cause instanceof BizException
+                    && ResponseCodeEnum.CIRCUIT_BREAKER_OPEN.getErrorCode().equals(((BizException) cause).getErrorCode())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 在未排除的节点中选择；直接把过滤后的列表交给负载均衡器会让按快照缓存的状态失效，
+     * 因此先用完整列表选择，选中已排除节点时再重选，仍不满足时从随机位置开始找未排除的节点
+     */
+    private ServiceMetaInfoDTO select(LoadBalancerStrategy loadBalancer, Map<String, Object> requestParams,
+                                      List<ServiceMetaInfoDTO> serviceMetaInfoList, Set<String> excluded) {
+        if (loadBalancer != null) {
+            for (int i = 0; i < RESELECT_TIMES; i++) {
+                ServiceMetaInfoDTO selected = loadBalancer.select(requestParams, serviceMetaInfoList);
+                if (selected != null && !excluded.contains(selected.getServiceNodeKey())) {
+                    return selected;
+                }
+            }
+        }
+        int size = serviceMetaInfoList.size();
+        int offset = size == 0 ? 0 : ThreadLocalRandom.current().nextInt(size);
+        for (int i = 0; i < size; i++) {
+            ServiceMetaInfoDTO candidate = serviceMetaInfoList.get((offset + i) % size);
+            if (!excluded.contains(candidate.getServiceNodeKey())) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+}
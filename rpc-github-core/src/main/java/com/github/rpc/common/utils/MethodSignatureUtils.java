@@ -0,0 +1,29 @@
+package com.github.rpc.common.utils;
+
+/**
+ * 方法签名工具类
+ * 签名格式：服务名#方法名(参数类型1,参数类型2)，消费者与服务提供者按同一格式对齐方法 id
+ */
+public class MethodSignatureUtils {
+
+    /**
+     * 生成方法签名
+     *
+     * @param serviceName    服务名
+     * @param methodName     方法名
+     * @param parameterTypes 参数类型
+     * @return
+     */
+    public static String signature(String serviceName, String methodName, Class<?>[] parameterTypes) {
+        StringBuilder builder = new StringBuilder(serviceName).append('#').append(methodName).append('(');
+        if (parameterTypes != null) {
+            for (int i = 0; i < parameterTypes.length; i++) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                builder.append(parameterTypes[i].getName());
+            }
+        }
+        return builder.append(')').toString();
+    }
+}
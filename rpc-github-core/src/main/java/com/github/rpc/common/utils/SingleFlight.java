@@ -0,0 +1,97 @@
+package com.github.rpc.common.utils;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+/**
+ * 合并同一个 key 的并发加载
+ * 同一时刻每个 key 只有一个加载任务在执行，期间到达的调用等待同一个结果；
+ * 任务结束后立即移除，下一次调用重新加载（结果缓存由调用方自己负责）
+ *
+ * @param <K> key 类型
+ * @param <V> 结果类型
+ */
+public class SingleFlight<K, V> {
+
+    /**
+     * 进行中的加载任务 key => 结果
+     */
+    private final Map<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+
+    /**
+     * 同步加载，第一个到达的调用在当前线程执行加载，其余调用阻塞等待同一个结果
+     *
+     * @param key    key
+     * @param loader 加载逻辑
+     * @return 加载结果
+     * @throws Exception 加载逻辑抛出的异常（所有等待者收到同一个异常）
+     */
+    public V call(K key, Callable<V> loader) throws Exception {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = calls.putIfAbsent(key, future);
+        if (existing != null) {
+            return await(existing);
+        }
+        run(key, future, loader);
+        return await(future);
+    }
+
+    /**
+     * 异步加载，已有进行中的任务时直接返回该任务的结果
+     *
+     * @param key      key
+     * @param loader   加载逻辑
+     * @param executor 执行加载的线程池
+     * @return 加载结果
+     */
+    public CompletableFuture<V> callAsync(K key, Callable<V> loader, Executor executor) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = calls.putIfAbsent(key, future);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            executor.execute(() -> run(key, future, loader));
+        } catch (RuntimeException e) {
+            calls.remove(key, future);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * 是否有进行中的加载任务
+     */
+    public boolean isRunning(K key) {
+        return calls.containsKey(key);
+    }
+
+    private void run(K key, CompletableFuture<V> future, Callable<V> loader) {
+        try {
+            future.complete(loader.call());
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        } finally {
+            calls.remove(key, future);
+        }
+    }
+
+    private V await(CompletableFuture<V> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
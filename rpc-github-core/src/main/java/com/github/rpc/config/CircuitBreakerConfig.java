@@ -0,0 +1,52 @@
+package com.github.rpc.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 节点熔断配置
+ */
+@Setter
+@Getter
+public class CircuitBreakerConfig {
+
+    /**
+     * 是否开启熔断
+     */
+    private Boolean enabled = true;
+
+    /**
+     * 统计窗口大小（最近的调用次数）
+     */
+    private Integer windowSize = 100;
+
+    /**
+     * 窗口内至少有该调用次数才计算失败率
+     */
+    private Integer minimumCalls = 20;
+
+    /**
+     * 失败率阈值（百分比），达到后熔断
+     */
+    private Integer failureRateThreshold = 50;
+
+    /**
+     * 慢调用耗时阈值（毫秒），不大于 0 时不统计慢调用
+     */
+    private Long slowCallMillis = 0L;
+
+    /**
+     * 慢调用比例阈值（百分比），达到后熔断
+     */
+    private Integer slowCallRateThreshold = 100;
+
+    /**
+     * 熔断持续时间（毫秒），之后进入半开状态
+     */
+    private Long openMillis = 5000L;
+
+    /**
+     * 半开状态放行的试探调用数，全部成功后恢复
+     */
+    private Integer halfOpenCalls = 5;
+}
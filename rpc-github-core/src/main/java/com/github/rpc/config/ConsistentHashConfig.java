@@ -0,0 +1,22 @@
+package com.github.rpc.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 一致性哈希负载均衡配置
+ */
+@Setter
+@Getter
+public class ConsistentHashConfig {
+
+    /**
+     * 每个实例在哈希环上的虚拟节点数
+     */
+    private Integer virtualNodes = 160;
+
+    /**
+     * 参与哈希的参数下标，逗号分隔；为空或方法没有对应参数时按方法名哈希
+     */
+    private String hashArguments = "0";
+}
@@ -0,0 +1,39 @@
+package com.github.rpc.config;
+
+import com.github.rpc.constants.DispatchModeConstant;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 服务端请求派发配置，服务或方法上的 @RpcDispatch 优先
+ * 线程池在首次使用时按当时的配置创建，之后不随配置变化
+ */
+@Setter
+@Getter
+public class DispatchConfig {
+
+    /**
+     * 默认派发方式
+     */
+    private String mode = DispatchModeConstant.WORKER;
+
+    /**
+     * 共享业务线程池线程数
+     */
+    private Integer workerThreads = 200;
+
+    /**
+     * 共享业务线程池队列长度，排满后直接拒绝
+     */
+    private Integer workerQueueSize = 1024;
+
+    /**
+     * 独立线程池默认线程数
+     */
+    private Integer dedicatedThreads = 8;
+
+    /**
+     * 独立线程池默认队列长度
+     */
+    private Integer dedicatedQueueSize = 128;
+}
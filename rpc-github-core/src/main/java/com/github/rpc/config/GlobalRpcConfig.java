@@ -4,6 +4,7 @@ import com.github.rpc.constants.LoadBalancerConstant;
 import com.github.rpc.constants.RetryStrategyConstant;
 import com.github.rpc.constants.SerializerStrategyConstant;
 import com.github.rpc.constants.TolerantStrategyConstant;
+import com.github.rpc.constants.TransportConstant;
 
 import lombok.Builder;
 import lombok.Data;
@@ -30,16 +31,46 @@ public class GlobalRpcConfig {
      */
     private Integer serverPort = 8080;
 
+    /**
+     * 服务器 verticle 实例数，为 0 时取 CPU 核数
+     */
+    private Integer serverInstances = 0;
+
     /**
      * 序列化器
      */
     private String serializer = SerializerStrategyConstant.KRYO;
 
+    /**
+     * Kryo 序列化配置
+     */
+    private KryoConfig kryoConfig = new KryoConfig();
+
+    /**
+     * 传输方式 http / tcp
+     */
+    private String transport = TransportConstant.TCP;
+
+    /**
+     * TCP 传输时 每个服务提供者保持的长连接数
+     */
+    private Integer connectionsPerProvider = 2;
+
+    /**
+     * 单次请求超时时间（毫秒）
+     */
+    private Long timeout = 1000L;
+
     /**
      * 负载均衡器
      */
     private String loadBalancer = LoadBalancerConstant.RANDOM;
 
+    /**
+     * 一致性哈希负载均衡配置
+     */
+    private ConsistentHashConfig consistentHashConfig = new ConsistentHashConfig();
+
     /**
      * 重试策略
      */
@@ -50,6 +81,26 @@ public class GlobalRpcConfig {
      */
     private String tolerantStrategy = TolerantStrategyConstant.FAIL_FAST;
 
+    /**
+     * 故障转移最多尝试的其他节点数
+     */
+    private Integer maxFailoverAttempts = 2;
+
+    /**
+     * 对冲请求数占启用对冲的调用数的最大比例
+     */
+    private Double hedgeBudgetRatio = 0.1;
+
+    /**
+     * 节点熔断配置
+     */
+    private CircuitBreakerConfig circuitBreakerConfig = new CircuitBreakerConfig();
+
+    /**
+     * 服务端请求派发配置
+     */
+    private DispatchConfig dispatchConfig = new DispatchConfig();
+
     /**
      * 模拟调用
      */
@@ -72,7 +123,22 @@ public class GlobalRpcConfig {
     private Integer maxRetryAttempts = 5;
 
     /**
-     * 重试间隔
+     * 重试间隔，之后每次重试翻倍
      */
     private Long retryInterval = 200L;
+
+    /**
+     * 重试间隔上限
+     */
+    private Long maxRetryInterval = 2000L;
+
+    /**
+     * 重试数占各服务最近成功调用数的最大比例
+     */
+    private Double retryBudgetRatio = 0.1;
+
+    /**
+     * 重试预算指标的日志输出间隔（秒），不大于 0 时不输出
+     */
+    private Long retryBudgetLogInterval = 60L;
 }
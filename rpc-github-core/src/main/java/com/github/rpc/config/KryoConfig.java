@@ -0,0 +1,35 @@
+package com.github.rpc.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Kryo 序列化配置
+ */
+@Setter
+@Getter
+public class KryoConfig {
+
+    /**
+     * 是否开启引用跟踪
+     * 关闭后同一对象多次出现会被重复写出，循环引用会导致栈溢出，
+     * 只有传输对象都是无环 DTO（且不回传异常）时才建议关闭
+     */
+    private Boolean references = true;
+
+    /**
+     * 对象池中最多保留的 Kryo 实例数
+     */
+    private Integer poolSize = 16;
+
+    /**
+     * 是否要求所有类必须预先注册
+     */
+    private Boolean registrationRequired = false;
+
+    /**
+     * 额外注册的类，逗号分隔，按顺序从 SPI 文件之后继续分配 id
+     * 客户端与服务端的注册列表必须一致
+     */
+    private String registerClasses;
+}
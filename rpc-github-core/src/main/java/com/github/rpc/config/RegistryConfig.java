@@ -35,4 +35,14 @@ public class RegistryConfig {
      * 超时时间（单位毫秒）
      */
     private Long timeout = 5000L;
+
+    /**
+     * 服务发现结果的本地快照文件，为空时使用 ${user.home}/.rpc/registry-{registry}.snapshot
+     */
+    private String snapshotFile;
+
+    /**
+     * 快照写入间隔（秒），不大于 0 时不读写快照
+     */
+    private Long snapshotInterval = 30L;
 }
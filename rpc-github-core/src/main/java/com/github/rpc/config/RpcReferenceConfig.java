@@ -3,6 +3,8 @@ package com.github.rpc.config;
 import lombok.Builder;
 import lombok.Data;
 
+import java.util.Set;
+
 @Data
 @Builder
 public class RpcReferenceConfig {
@@ -12,5 +14,21 @@ public class RpcReferenceConfig {
     private String retryStrategy;
     private String tolerantStrategy;
     private boolean mock;
+    /**
+     * 单次请求超时时间（毫秒）
+     */
+    private long timeout;
+    /**
+     * 幂等方法名
+     */
+    private Set<String> idempotentMethods;
+    /**
+     * 启用对冲请求的方法名
+     */
+    private Set<String> hedgeMethods;
+    /**
+     * 对冲延迟（毫秒），不大于 0 时按节点的 p95 耗时
+     */
+    private long hedgeDelay;
     // 可扩展：权重、延迟、区域等
 }
@@ -23,6 +23,20 @@ public class RpcThreadPool {
             REJECTION_HANDLER
     );
 
+    /**
+     * 容错线程池：容错策略在 I/O 回调中提交，可能阻塞重发请求；
+     * 排满时直接拒绝，不能像 CallerRunsPolicy 那样退回到提交线程（I/O 线程）上执行
+     */
+    private static final ExecutorService TOLERANT_EXECUTOR_SERVICE = new ThreadPoolExecutor(
+            CORE_POOL_SIZE,
+            MAX_POOL_SIZE,
+            KEEP_ALIVE_TIME,
+            TIME_UNIT,
+            new LinkedBlockingQueue<>(QUEUE_CAPACITY),
+            THREAD_FACTORY,
+            new ThreadPoolExecutor.AbortPolicy()
+    );
+
     //自定义一个工厂策略
     private static class RpcThreadFactory implements ThreadFactory {
         private static final AtomicInteger poolNumber = new AtomicInteger(1);
@@ -48,4 +62,11 @@ public class RpcThreadPool {
     public static ExecutorService newExecutor() {
        return EXECUTOR_SERVICE;
     }
+
+    /**
+     * 容错线程池，排满时抛出 RejectedExecutionException
+     */
+    public static ExecutorService tolerantExecutor() {
+        return TOLERANT_EXECUTOR_SERVICE;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.github.rpc.constants;
+
+public interface DispatchModeConstant {
+
+    /**
+     * 直接在 I/O 线程执行，只适合不阻塞的轻量方法
+     */
+    String EVENT_LOOP = "eventLoop";
+
+    /**
+     * 共享业务线程池
+     */
+    String WORKER = "worker";
+
+    /**
+     * 每个服务独立的线程池
+     */
+    String SERVICE = "service";
+
+    /**
+     * 每个方法独立的线程池
+     */
+    String METHOD = "method";
+}
@@ -7,8 +7,38 @@ public interface LoadBalancerConstant {
      */
     String ROUND_ROBIN = "roundRobin";
 
+    /**
+     * 平滑加权轮询
+     */
+    String WEIGHTED_ROUND_ROBIN = "weightedRoundRobin";
+
     String RANDOM = "random";
 
     String CONSISTENT_HASH = "consistentHash";
 
+    /**
+     * 基于峰值 EWMA 的两次随机选择
+     */
+    String PEAK_EWMA = "peakEwma";
+
+    /**
+     * 负载均衡参数：服务键
+     */
+    String PARAM_SERVICE_KEY = "serviceKey";
+
+    /**
+     * 负载均衡参数：方法名
+     */
+    String PARAM_METHOD_NAME = "methodName";
+
+    /**
+     * 负载均衡参数：调用参数
+     */
+    String PARAM_ARGS = "args";
+
+    /**
+     * 未设置权重时的默认权重，与 @RpcService 的默认值一致
+     */
+    int DEFAULT_WEIGHT = 100;
+
 }
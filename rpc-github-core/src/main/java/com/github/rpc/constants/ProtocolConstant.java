@@ -13,7 +13,25 @@ public interface ProtocolConstant {
     byte PROTOCOL_MAGIC = 0x1;
 
     /**
-     * 协议版本号
+     * 默认发送的协议版本号，不带扩展区，所有版本的服务提供者都能解析
      */
     byte PROTOCOL_VERSION = 0x1;
+
+    /**
+     * 带扩展区的协议版本号
+     * 消息头之后带扩展区：扩展区长度(short) + 若干项 [键(byte) 值长度(short) 值]，
+     * 消息头中的 bodyLength 包含扩展区，按长度分帧的逻辑不变；
+     * 只在握手响应表明服务提供者支持后才发送
+     */
+    byte PROTOCOL_VERSION_V2 = 0x2;
+
+    /**
+     * 本端支持的最高协议版本，服务提供者在握手响应中返回
+     */
+    byte MAX_PROTOCOL_VERSION = PROTOCOL_VERSION_V2;
+
+    /**
+     * 扩展项：请求超时时间（毫秒，long），服务端从收到请求起计算截止时间
+     */
+    byte EXTENSION_TIMEOUT = 0x1;
 }
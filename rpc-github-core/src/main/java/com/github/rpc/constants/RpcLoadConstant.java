@@ -14,4 +14,9 @@ public interface RpcLoadConstant {
      * 默认服务版本
      */
     String DEFAULT_SERVICE_VERSION = "1.0-SNAPSHOT";
+
+    /**
+     * 默认服务分组
+     */
+    String DEFAULT_SERVICE_GROUP = "default";
 }
@@ -12,5 +12,54 @@ public interface TolerantStrategyConstant{
      */
     String FAIL_FAST = "failFast";
 
+    /**
+     * 静默处理
+     */
+    String FAIL_SAFE = "failSafe";
+
+    /**
+     * 故障转移
+     */
+    String FAIL_OVER = "failOver";
+
+    /**
+     * 容错上下文：服务发现得到的节点列表
+     */
+    String CONTEXT_SERVICE_LIST = "serviceMetaInfoList";
+
+    /**
+     * 容错上下文：本次调用失败的节点
+     */
+    String CONTEXT_SELECTED_SERVICE = "selectedServiceMetaInfo";
+
+    /**
+     * 容错上下文：负载均衡器
+     */
+    String CONTEXT_LOAD_BALANCER = "loadBalancer";
+
+    /**
+     * 容错上下文：负载均衡参数
+     */
+    String CONTEXT_REQUEST_PARAMS = "requestParams";
+
+    /**
+     * 容错上下文：向指定节点重发请求的 RequestSender
+     */
+    String CONTEXT_REQUEST_SENDER = "requestSender";
+
+    /**
+     * 容错上下文：故障转移最多尝试的节点数
+     */
+    String CONTEXT_MAX_ATTEMPTS = "maxAttempts";
+
+    /**
+     * 容错上下文：调用的方法是否幂等，非幂等方法只在请求确定未发出时故障转移
+     */
+    String CONTEXT_IDEMPOTENT = "idempotent";
+
+    /**
+     * 容错上下文：调用截止时间（System.nanoTime()），过了截止时间不再转移
+     */
+    String CONTEXT_DEADLINE_NANOS = "deadlineNanos";
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,18 @@
+package com.github.rpc.constants;
+
+/**
+ * 消费端与服务端之间的传输方式
+ */
+public interface TransportConstant {
+
+    /**
+     * 每次调用单独发起 HTTP 请求
+     */
+    String HTTP = "http";
+
+    /**
+     * 自定义二进制协议 长连接多路复用
+     */
+    String TCP = "tcp";
+
+}
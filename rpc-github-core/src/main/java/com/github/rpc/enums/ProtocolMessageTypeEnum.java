@@ -13,7 +13,11 @@ public enum ProtocolMessageTypeEnum {
     REQUEST(0),
     RESPONSE(1),
     HEART_BEAT(2),
-    OTHERS(3);
+    OTHERS(3),
+    /**
+     * 握手：消费者连接建立后索取服务提供者的方法 id 表
+     */
+    HANDSHAKE(4);
 
     private final int type;
 
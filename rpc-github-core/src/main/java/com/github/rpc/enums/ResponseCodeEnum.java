@@ -21,7 +21,9 @@ public enum ResponseCodeEnum implements BaseExceptionInterface {
 
     UNSUPPORTED_MESSAGE_TYPE("RPC-20003", "暂不支持该消息类型"),
     SPI_NOT_FOUND("RPC-20004", "SpiLoader 未加载 服务类型 -->"),
-    INSTANCE_INIT_ERROR("RPC-20005", "服务类实例化失败-->")
+    INSTANCE_INIT_ERROR("RPC-20005", "服务类实例化失败-->"),
+    CIRCUIT_BREAKER_OPEN("RPC-20006", "服务节点已熔断"),
+    PROVIDER_BUSY("RPC-20007", "服务端繁忙，请求被拒绝")
     ;
     // 新增枚举项
 
@@ -2,16 +2,72 @@ package com.github.rpc.model;
 
 import com.github.rpc.model.dto.ServiceMetaInfoDTO;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * 多服务的注册中心缓存
+ * 每个服务键对应一个不可变快照，增删单个实例时复制出新快照整体替换，
+ * 读取方拿到的列表不会再变化，列表对象不变即表示服务实例未变；
+ * 实例从所有服务列表中消失后通知 {@link EvictionListener}，释放按节点、地址保存的调用状态
+ */
 public class RegistryServiceMultiCache {
 
     /**
-     * 服务缓存 对应NodeKey 多个服务实例
+     * 实例下线回调
      */
-    Map<String, List<ServiceMetaInfoDTO>> serviceCache = new ConcurrentHashMap<>();
+    public interface EvictionListener {
+
+        /**
+         * 服务节点已不在任何服务列表中
+         *
+         * @param serviceNodeKey 服务节点键
+         */
+        void onNodeRemoved(String serviceNodeKey);
+
+        /**
+         * host:port 已不被任何服务的实例使用
+         *
+         * @param address host:port
+         */
+        void onAddressRemoved(String address);
+    }
+
+    /**
+     * 服务缓存 服务键 => 实例快照
+     */
+    private final Map<String, Snapshot> serviceCache = new ConcurrentHashMap<>();
+
+    /**
+     * 从本地快照文件恢复或实时数据被清空前的服务列表，只在实时数据未就绪时使用
+     */
+    private final Map<String, List<ServiceMetaInfoDTO>> staleCache = new ConcurrentHashMap<>();
+
+    /**
+     * 修改次数，用于判断是否需要重新写快照文件
+     */
+    private final AtomicLong modCount = new AtomicLong();
+
+    private final EvictionListener evictionListener;
+
+    public RegistryServiceMultiCache() {
+        this(null);
+    }
+
+    /**
+     * @param evictionListener 实例下线回调，可为 null
+     */
+    public RegistryServiceMultiCache(EvictionListener evictionListener) {
+        this.evictionListener = evictionListener;
+    }
 
     /**
      * 写缓存
@@ -21,23 +77,202 @@ public class RegistryServiceMultiCache {
      * @return
      */
     public void writeCache(String serviceKey, List<ServiceMetaInfoDTO> newServiceCache) {
-        this.serviceCache.put(serviceKey, newServiceCache);
+        writeCache(serviceKey, newServiceCache, 0L);
+    }
+
+    /**
+     * 写缓存，实时数据到达后不再保留该服务的旧数据；空列表同样是实时数据（服务已缩容到 0）
+     *
+     * @param serviceKey      服务键名
+     * @param newServiceCache 更新后的缓存列表
+     * @param revision        列表对应的注册中心版本，不支持版本的注册中心传 0
+     */
+    public void writeCache(String serviceKey, List<ServiceMetaInfoDTO> newServiceCache, long revision) {
+        Map<String, ServiceMetaInfoDTO> instances = new LinkedHashMap<>();
+        for (ServiceMetaInfoDTO serviceMetaInfo : newServiceCache) {
+            instances.put(serviceMetaInfo.getServiceNodeKey(), serviceMetaInfo);
+        }
+        Snapshot previous = this.serviceCache.put(serviceKey, new Snapshot(instances, revision));
+        List<ServiceMetaInfoDTO> previousStale = this.staleCache.remove(serviceKey);
+        modCount.incrementAndGet();
+
+        // 旧列表中有而新列表中没有的实例
+        List<ServiceMetaInfoDTO> removed = new ArrayList<>();
+        if (previous != null) {
+            removed.addAll(previous.instanceList);
+        }
+        if (previousStale != null) {
+            removed.addAll(previousStale);
+        }
+        removed.removeIf(serviceMetaInfo -> instances.containsKey(serviceMetaInfo.getServiceNodeKey()));
+        evict(removed);
     }
 
     /**
      * 读缓存
      *
      * @param serviceKey
-     * @return
+     * @return 只读列表，未缓存时返回 null
      */
     public List<ServiceMetaInfoDTO> readCache(String serviceKey) {
-        return this.serviceCache.get(serviceKey);
+        Snapshot snapshot = this.serviceCache.get(serviceKey);
+        return snapshot == null ? null : snapshot.instanceList;
+    }
+
+    /**
+     * 新增或替换单个实例，服务未缓存时忽略（下次发现时全量加载）
+     *
+     * @param serviceKey      服务键名
+     * @param serviceMetaInfo 实例
+     * @param revision        事件版本，不大于快照版本的事件视为已包含在快照中
+     */
+    public void putInstance(String serviceKey, ServiceMetaInfoDTO serviceMetaInfo, long revision) {
+        this.serviceCache.computeIfPresent(serviceKey, (key, snapshot) -> {
+            if (snapshot.isNewerThan(revision)) {
+                return snapshot;
+            }
+            Map<String, ServiceMetaInfoDTO> instances = new LinkedHashMap<>(snapshot.instanceMap);
+            instances.put(serviceMetaInfo.getServiceNodeKey(), serviceMetaInfo);
+            modCount.incrementAndGet();
+            return new Snapshot(instances, Math.max(revision, snapshot.revision));
+        });
+    }
+
+    /**
+     * 删除单个实例，服务未缓存时忽略
+     *
+     * @param serviceKey     服务键名
+     * @param serviceNodeKey 实例节点键名
+     * @param revision       事件版本
+     */
+    public void removeInstance(String serviceKey, String serviceNodeKey, long revision) {
+        ServiceMetaInfoDTO[] removed = new ServiceMetaInfoDTO[1];
+        this.serviceCache.computeIfPresent(serviceKey, (key, snapshot) -> {
+            if (snapshot.isNewerThan(revision) || !snapshot.instanceMap.containsKey(serviceNodeKey)) {
+                return snapshot;
+            }
+            Map<String, ServiceMetaInfoDTO> instances = new LinkedHashMap<>(snapshot.instanceMap);
+            removed[0] = instances.remove(serviceNodeKey);
+            modCount.incrementAndGet();
+            return new Snapshot(instances, Math.max(revision, snapshot.revision));
+        });
+        if (removed[0] != null) {
+            evict(Collections.singletonList(removed[0]));
+        }
     }
 
     /**
-     * 清空缓存
+     * 清空缓存，清掉的实时数据转为旧数据，重新加载完成前继续使用；
+     * 清掉的实时数据为空时服务确实没有实例，同时丢弃旧数据，不再回退到更早的列表
      */
     public void clearCache(String serviceKey) {
-        this.serviceCache.remove(serviceKey);
+        Snapshot snapshot = this.serviceCache.remove(serviceKey);
+        if (snapshot == null) {
+            return;
+        }
+        if (snapshot.instanceList.isEmpty()) {
+            this.staleCache.remove(serviceKey);
+        } else {
+            this.staleCache.put(serviceKey, snapshot.instanceList);
+        }
+    }
+
+    /**
+     * 读快照数据
+     *
+     * @param serviceKey
+     * @return 只读列表，没有快照时返回 null
+     */
+    public List<ServiceMetaInfoDTO> readStaleCache(String serviceKey) {
+        return this.staleCache.get(serviceKey);
+    }
+
+    /**
+     * 载入本地快照文件中的服务列表
+     *
+     * @param services 服务键 => 实例列表
+     */
+    public void loadStaleCache(Map<String, List<ServiceMetaInfoDTO>> services) {
+        services.forEach((serviceKey, instances) ->
+                this.staleCache.put(serviceKey, Collections.unmodifiableList(new ArrayList<>(instances))));
+    }
+
+    /**
+     * 导出有实时实例的服务列表，旧数据不会再次写入快照文件
+     *
+     * @return 服务键 => 实例列表
+     */
+    public Map<String, List<ServiceMetaInfoDTO>> export() {
+        Map<String, List<ServiceMetaInfoDTO>> services = new LinkedHashMap<>();
+        serviceCache.forEach((serviceKey, snapshot) -> {
+            if (!snapshot.instanceList.isEmpty()) {
+                services.put(serviceKey, snapshot.instanceList);
+            }
+        });
+        return services;
+    }
+
+    /**
+     * 对已从服务列表移除的实例，检查其节点和地址是否仍出现在实时或旧数据中，不再出现时通知回调
+     * 只在实例变化时执行，遍历全部缓存的开销与实例总数成正比
+     */
+    private void evict(Collection<ServiceMetaInfoDTO> removed) {
+        if (evictionListener == null || removed.isEmpty()) {
+            return;
+        }
+        Set<String> nodeKeys = new HashSet<>();
+        Set<String> addresses = new HashSet<>();
+        for (ServiceMetaInfoDTO serviceMetaInfo : removed) {
+            nodeKeys.add(serviceMetaInfo.getServiceNodeKey());
+            addresses.add(address(serviceMetaInfo));
+        }
+        for (Snapshot snapshot : serviceCache.values()) {
+            snapshot.instanceList.forEach(serviceMetaInfo -> markRetained(serviceMetaInfo, nodeKeys, addresses));
+        }
+        for (List<ServiceMetaInfoDTO> instanceList : staleCache.values()) {
+            instanceList.forEach(serviceMetaInfo -> markRetained(serviceMetaInfo, nodeKeys, addresses));
+        }
+        nodeKeys.forEach(evictionListener::onNodeRemoved);
+        addresses.forEach(evictionListener::onAddressRemoved);
+    }
+
+    private static void markRetained(ServiceMetaInfoDTO serviceMetaInfo, Set<String> nodeKeys, Set<String> addresses) {
+        if (!nodeKeys.isEmpty()) {
+            nodeKeys.remove(serviceMetaInfo.getServiceNodeKey());
+        }
+        addresses.remove(address(serviceMetaInfo));
+    }
+
+    private static String address(ServiceMetaInfoDTO serviceMetaInfo) {
+        return serviceMetaInfo.getServiceHost() + ":" + serviceMetaInfo.getServicePort();
+    }
+
+    /**
+     * 修改次数
+     */
+    public long getModCount() {
+        return modCount.get();
+    }
+
+    /**
+     * 单个服务的实例快照
+     */
+    private static class Snapshot {
+
+        private final Map<String, ServiceMetaInfoDTO> instanceMap;
+
+        private final List<ServiceMetaInfoDTO> instanceList;
+
+        private final long revision;
+
+        Snapshot(Map<String, ServiceMetaInfoDTO> instanceMap, long revision) {
+            this.instanceMap = instanceMap;
+            this.instanceList = Collections.unmodifiableList(new ArrayList<>(instanceMap.values()));
+            this.revision = revision;
+        }
+
+        boolean isNewerThan(long eventRevision) {
+            return eventRevision > 0 && eventRevision <= revision;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,30 @@
+package com.github.rpc.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * 握手消息
+ * 消费者发送空表，服务提供者返回本机所有已导出方法的 方法签名 => 方法 id 及支持的最高协议版本
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RpcHandshake implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 方法签名 => 方法 id
+     */
+    private Map<String, Integer> methodIds;
+
+    /**
+     * 服务提供者支持的最高协议版本，为 null 时只使用默认版本
+     */
+    private Byte protocolVersion;
+}
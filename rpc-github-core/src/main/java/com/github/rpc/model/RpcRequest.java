@@ -1,5 +1,6 @@
 package com.github.rpc.model;
 
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -7,8 +8,12 @@ import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
 
+/**
+ * JSON 序列化时类型信息写在参数之前，便于接收方边读边按类型解析
+ */
 @Data
 @Builder
+@JsonPropertyOrder({"serviceName", "methodName", "serviceVersion", "methodId", "parameterTypes", "args"})
 @AllArgsConstructor
 @NoArgsConstructor
 public class RpcRequest implements Serializable {
@@ -39,6 +44,12 @@ public class RpcRequest implements Serializable {
      */
     private Class<?>[] parameterTypes;
 
+    /**
+     * 方法 id
+     * 握手后由服务提供者分配，设置后 serviceName、methodName、parameterTypes 可以不传
+     */
+    private Integer methodId;
+
     /**
      * 参数列表
      */
@@ -1,5 +1,6 @@
 package com.github.rpc.model;
 
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -7,8 +8,12 @@ import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
 
+/**
+ * JSON 序列化时 dataType 写在 data 之前，便于接收方边读边按类型解析
+ */
 @Data
 @Builder
+@JsonPropertyOrder({"dataType", "data", "message", "exception"})
 @AllArgsConstructor
 @NoArgsConstructor
 public class RpcResponse  implements Serializable {
@@ -60,9 +60,15 @@ public class ProtocolMessageDTO<T> {
         private Long requestId;
 
         /**
-         * 消息体长度
+         * 消息体长度（版本 2 起包含扩展区）
          */
         private Integer bodyLength;
+
+        /**
+         * 扩展区：请求超时时间（毫秒），为 null 时不限制
+         * 传相对时间而不是绝对时间，不依赖两端时钟同步
+         */
+        private Long timeoutMillis;
     }
 
 }
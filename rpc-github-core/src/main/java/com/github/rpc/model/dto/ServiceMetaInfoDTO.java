@@ -33,7 +33,7 @@ public class ServiceMetaInfoDTO {
     /**
      * 服务分组（暂未实现）
      */
-    private String serviceGroup = "default";
+    private String serviceGroup = RpcLoadConstant.DEFAULT_SERVICE_GROUP;
 
     /**
      * 获取服务键名
@@ -67,7 +67,9 @@ public class ServiceMetaInfoDTO {
         return String.format("%s:%s", serviceHost, servicePort);
     }
 
-    //注册服务键值
+    /**
+     * 服务提供者本地注册的服务键：服务名:分组:版本，方法签名也按此生成
+     */
     public static String buildKey(String serviceName, String serviceGroup, String serviceVersion) {
         return String.format("%s:%s:%s", serviceName, serviceGroup, serviceVersion);
     }
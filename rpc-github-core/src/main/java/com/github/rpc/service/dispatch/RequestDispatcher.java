@@ -0,0 +1,140 @@
+package com.github.rpc.service.dispatch;
+
+import cn.hutool.core.util.StrUtil;
+import com.github.rpc.common.registry.localcache.ServiceMethodInvoker;
+import com.github.rpc.config.DispatchConfig;
+import com.github.rpc.constants.DispatchModeConstant;
+import com.github.rpc.enums.ResponseCodeEnum;
+import com.github.rpc.exception.BizException;
+import com.github.rpc.model.RpcResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 服务端请求派发：按方法的派发方式在 I/O 线程、共享业务线程池或服务/方法独立的线程池中执行，
+ * 线程池都是有界队列，排满后立即拒绝，慢服务只会占满自己的线程池，不影响其他服务
+ */
+@Slf4j
+public class RequestDispatcher {
+
+    private static final long KEEP_ALIVE_SECONDS = 60L;
+
+    private static volatile DispatchConfig dispatchConfig = new DispatchConfig();
+
+    private static volatile ThreadPoolExecutor workerExecutor;
+
+    /**
+     * service:服务名 / method:方法签名 => 独立线程池
+     */
+    private static final Map<String, ThreadPoolExecutor> DEDICATED_EXECUTOR_MAP = new ConcurrentHashMap<>();
+
+    /**
+     * 按配置设置默认派发方式和线程池大小
+     */
+    public static void configure(DispatchConfig config) {
+        if (config != null) {
+            dispatchConfig = config;
+        }
+    }
+
+    /**
+     * 派发请求
+     *
+     * @param invoker 方法调用器
+     * @param task    解码后的调用与响应
+     * @return 线程池已满被拒绝时返回 false
+     */
+    public static boolean dispatch(ServiceMethodInvoker invoker, Runnable task) {
+        ThreadPoolExecutor executor = getExecutor(invoker);
+        if (executor == null) {
+            task.run();
+            return true;
+        }
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.warn("业务线程池已满，拒绝请求: {}, 活跃线程 {}, 排队 {}",
+                    invoker.getSignature(), executor.getActiveCount(), executor.getQueue().size());
+            return false;
+        }
+    }
+
+    /**
+     * 请求被拒绝时写回的响应，调用方据此立即失败或换节点，不必等到超时
+     */
+    public static RpcResponse rejectedResponse() {
+        RpcResponse rpcResponse = new RpcResponse();
+        rpcResponse.setMessage(ResponseCodeEnum.PROVIDER_BUSY.getErrorMessage());
+        rpcResponse.setException(new BizException(ResponseCodeEnum.PROVIDER_BUSY));
+        return rpcResponse;
+    }
+
+    /**
+     * @return 在 I/O 线程执行时返回 null
+     */
+    private static ThreadPoolExecutor getExecutor(ServiceMethodInvoker invoker) {
+        DispatchConfig config = dispatchConfig;
+        String mode = StrUtil.blankToDefault(invoker.getDispatchMode(), config.getMode());
+        switch (StrUtil.nullToDefault(mode, DispatchModeConstant.WORKER)) {
+            case DispatchModeConstant.EVENT_LOOP:
+                return null;
+            case DispatchModeConstant.SERVICE:
+                return DEDICATED_EXECUTOR_MAP.computeIfAbsent("service:" + invoker.getServiceName(),
+                        key -> newDedicatedExecutor(key, invoker, config));
+            case DispatchModeConstant.METHOD:
+                return DEDICATED_EXECUTOR_MAP.computeIfAbsent("method:" + invoker.getSignature(),
+                        key -> newDedicatedExecutor(key, invoker, config));
+            default:
+                return getWorkerExecutor(config);
+        }
+    }
+
+    private static ThreadPoolExecutor getWorkerExecutor(DispatchConfig config) {
+        if (workerExecutor == null) {
+            synchronized (RequestDispatcher.class) {
+                if (workerExecutor == null) {
+                    workerExecutor = newExecutor("rpc-worker",
+                            Optional.ofNullable(config.getWorkerThreads()).orElse(200),
+                            Optional.ofNullable(config.getWorkerQueueSize()).orElse(1024));
+                }
+            }
+        }
+        return workerExecutor;
+    }
+
+    private static ThreadPoolExecutor newDedicatedExecutor(String key, ServiceMethodInvoker invoker, DispatchConfig config) {
+        int threads = invoker.getDispatchThreads() > 0
+                ? invoker.getDispatchThreads() : Optional.ofNullable(config.getDedicatedThreads()).orElse(8);
+        int queueSize = invoker.getDispatchQueueSize() > 0
+                ? invoker.getDispatchQueueSize() : Optional.ofNullable(config.getDedicatedQueueSize()).orElse(128);
+        log.info("创建独立业务线程池: {}, 线程数 {}, 队列长度 {}", key, threads, queueSize);
+        return newExecutor("rpc-" + key, threads, queueSize);
+    }
+
+    /**
+     * 固定大小、有界队列、满了直接抛 RejectedExecutionException 的线程池
+     */
+    private static ThreadPoolExecutor newExecutor(String name, int threads, int queueSize) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(Math.max(1, threads), Math.max(1, threads),
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)),
+                r -> {
+                    Thread thread = new Thread(r, name + "-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.rpc.service.dispatch;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 服务端请求派发方式，标注在服务实现类或方法上，方法上的优先
+ * 未标注时使用全局配置 rpc.dispatchConfig
+ */
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface RpcDispatch {
+
+    /**
+     * 派发方式，见 DispatchModeConstant，为空时使用全局配置
+     */
+    String mode() default "";
+
+    /**
+     * 独立线程池的线程数，不大于 0 时使用全局配置
+     * 同一个服务的多个方法共用服务级线程池时，以最先创建时的值为准
+     */
+    int threads() default 0;
+
+    /**
+     * 独立线程池的队列长度，不大于 0 时使用全局配置
+     */
+    int queueSize() default 0;
+}
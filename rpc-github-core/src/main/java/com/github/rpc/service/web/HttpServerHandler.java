@@ -2,17 +2,19 @@ package com.github.rpc.service.web;
 
 import com.github.rpc.RpcApplication;
 import com.github.rpc.common.registry.localcache.LocalRegistry;
+import com.github.rpc.common.registry.localcache.ServiceMethodInvoker;
 import com.github.rpc.common.serializer.Serializer;
 import com.github.rpc.common.serializer.SerializerFactory;
 import com.github.rpc.model.RpcRequest;
 import com.github.rpc.model.RpcResponse;
+import com.github.rpc.service.dispatch.RequestDispatcher;
 import io.vertx.core.Handler;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.http.HttpServerResponse;
 import lombok.extern.slf4j.Slf4j;
 
-import java.lang.reflect.Method;
+import java.util.concurrent.CompletionStage;
 
 @Slf4j
 public class HttpServerHandler implements Handler<HttpServerRequest> {
@@ -48,36 +50,63 @@ public class HttpServerHandler implements Handler<HttpServerRequest> {
                 return;
             }
 
-            // 6. ✅ 执行本地调用
-            RpcResponse rpcResponse = new RpcResponse();
-            try {
-                Class<?> implClass = LocalRegistry.get(rpcRequest.getServiceName());
-                if (implClass == null) {
-                    log.warn("【服务未注册】service={}", rpcRequest.getServiceName());
-                    rpcResponse.setMessage("Service not found: " + rpcRequest.getServiceName());
-                    rpcResponse.setException(new NoSuchMethodException("Service not registered"));
-                } else {
-                    Method method = implClass.getMethod(
-                            rpcRequest.getMethodName(),
-                            rpcRequest.getParameterTypes()
-                    );
-                    Object result = method.invoke(implClass.newInstance(), rpcRequest.getArgs());
-                    rpcResponse.setData(result);
-                    rpcResponse.setDataType(method.getReturnType());
-                    rpcResponse.setMessage("ok");
-                }
-            }catch (Exception e) {
-                // 兜底异常
-                log.error("【未知错误】处理请求失败, request={}", rpcRequest, e);
-                rpcResponse.setMessage("Internal server error");
-                rpcResponse.setException(e);
+            // 6. ✅ 按方法的派发方式执行本地调用，线程池已满时立即拒绝
+            ServiceMethodInvoker invoker = LocalRegistry.getInvoker(rpcRequest.getServiceName(),
+                    rpcRequest.getServiceVersion(), rpcRequest.getMethodName(), rpcRequest.getParameterTypes());
+            if (invoker == null) {
+                log.warn("【服务未注册】service={}, method={}", rpcRequest.getServiceName(), rpcRequest.getMethodName());
+                RpcResponse rpcResponse = new RpcResponse();
+                rpcResponse.setMessage("Service not found: " + rpcRequest.getServiceName());
+                rpcResponse.setException(new NoSuchMethodException("Service not registered"));
+                doResponse(request, rpcResponse, serializer);
+                return;
+            }
+            RpcRequest finalRpcRequest = rpcRequest;
+            boolean accepted = RequestDispatcher.dispatch(invoker,
+                    () -> invoke(request, serializer, invoker, finalRpcRequest));
+            if (!accepted) {
+                doResponse(request, RequestDispatcher.rejectedResponse(), serializer);
             }
-
-            // 7. ✅ 返回响应
-            doResponse(request, rpcResponse, serializer);
         });
     }
 
+    /**
+     * 调用服务方法并返回响应，在派发到的线程上执行
+     */
+    private void invoke(HttpServerRequest request, Serializer serializer, ServiceMethodInvoker invoker, RpcRequest rpcRequest) {
+        RpcResponse rpcResponse = new RpcResponse();
+        try {
+            Object result = invoker.invoke(rpcRequest.getArgs());
+            // 异步服务：结果完成后再写回
+            if (invoker.isAsync()) {
+                ((CompletionStage<?>) result).whenComplete((value, e) -> {
+                    RpcResponse asyncResponse = new RpcResponse();
+                    if (e != null) {
+                        asyncResponse.setMessage(e.getMessage());
+                        asyncResponse.setException(e instanceof Exception ? (Exception) e : new RuntimeException(e));
+                    } else {
+                        asyncResponse.setData(value);
+                        asyncResponse.setDataType(invoker.getDataType());
+                        asyncResponse.setMessage("ok");
+                    }
+                    doResponse(request, asyncResponse, serializer);
+                });
+                return;
+            }
+            rpcResponse.setData(result);
+            rpcResponse.setDataType(invoker.getDataType());
+            rpcResponse.setMessage("ok");
+        } catch (Exception e) {
+            // 兜底异常
+            log.error("【未知错误】处理请求失败, request={}", rpcRequest, e);
+            rpcResponse.setMessage("Internal server error");
+            rpcResponse.setException(e);
+        }
+
+        // 7. ✅ 返回响应
+        doResponse(request, rpcResponse, serializer);
+    }
+
     /**
      * 响应
      */
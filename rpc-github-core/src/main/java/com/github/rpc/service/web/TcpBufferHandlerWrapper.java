@@ -12,8 +12,8 @@ public class TcpBufferHandlerWrapper implements Handler<Buffer> {
      */
     private final RecordParser recordParser;
 
-    public TcpBufferHandlerWrapper(Handler<Buffer> bufferHandler) {
-        recordParser = initRecordParser(bufferHandler);
+    public TcpBufferHandlerWrapper(FrameHandler frameHandler) {
+        recordParser = initRecordParser(frameHandler);
     }
 
     @Override
@@ -24,18 +24,20 @@ public class TcpBufferHandlerWrapper implements Handler<Buffer> {
     /**
      * 初始化解析器
      *
-     * @param bufferHandler
+     * @param frameHandler
      * @return
      */
-    private RecordParser initRecordParser(Handler<Buffer> bufferHandler) {
+    private RecordParser initRecordParser(FrameHandler frameHandler) {
         // 构造 parser
         RecordParser parser = RecordParser.newFixed(ProtocolConstant.MESSAGE_HEADER_LENGTH);
 
         parser.setOutput(new Handler<Buffer>() {
             // 初始化
             int size = -1;
-            // 一次完整的读取（头 + 体）
-            Buffer resultBuffer = Buffer.buffer();
+            // 当前消息的消息头
+            Buffer headerBuffer;
+            // 收到消息头的时间
+            long receivedNanos;
 
             @Override
             public void handle(Buffer buffer) {
@@ -43,23 +45,44 @@ public class TcpBufferHandlerWrapper implements Handler<Buffer> {
                 if (-1 == size) {
                     // 读取消息体长度
                     size = buffer.getInt(13);
+                    headerBuffer = buffer;
+                    receivedNanos = System.nanoTime();
+                    // 消息体为空时不会再有数据到来，直接交付
+                    if (size == 0) {
+                        deliver(Buffer.buffer());
+                        return;
+                    }
                     parser.fixedSizeMode(size);
-                    // 写入头信息到结果
-                    resultBuffer.appendBuffer(buffer);
                 } else {
-                    // 2. 然后读取消息体
-                    // 写入体信息到结果
-                    resultBuffer.appendBuffer(buffer);
-                    // 已拼接为完整 Buffer，执行处理
-                    bufferHandler.handle(resultBuffer);
-                    // 重置一轮
-                    parser.fixedSizeMode(ProtocolConstant.MESSAGE_HEADER_LENGTH);
-                    size = -1;
-                    resultBuffer = Buffer.buffer();
+                    // 2. 然后读取消息体，头和体分开交付，不再拼接成新的 Buffer
+                    deliver(buffer);
                 }
             }
+
+            private void deliver(Buffer bodyBuffer) {
+                Buffer header = headerBuffer;
+                // 重置一轮
+                parser.fixedSizeMode(ProtocolConstant.MESSAGE_HEADER_LENGTH);
+                size = -1;
+                headerBuffer = null;
+                frameHandler.handle(header, bodyBuffer, receivedNanos);
+            }
         });
 
         return parser;
     }
+
+    /**
+     * 完整消息处理器
+     */
+    @FunctionalInterface
+    public interface FrameHandler {
+
+        /**
+         * @param header        固定长度的消息头
+         * @param body          消息体（版本 2 起包含扩展区）
+         * @param receivedNanos 收到消息头的时间（System.nanoTime）
+         */
+        void handle(Buffer header, Buffer body, long receivedNanos);
+    }
 }
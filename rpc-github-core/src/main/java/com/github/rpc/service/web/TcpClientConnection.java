@@ -0,0 +1,213 @@
+package com.github.rpc.service.web;
+
+import com.github.rpc.constants.ProtocolConstant;
+import com.github.rpc.enums.ProtocolMessageTypeEnum;
+import com.github.rpc.model.RpcHandshake;
+import com.github.rpc.model.RpcResponse;
+import com.github.rpc.model.dto.ProtocolMessageDTO;
+import com.github.rpc.zip.ProtocolMessageDTODecoder;
+import com.github.rpc.zip.ProtocolMessageEncoder;
+import io.netty.buffer.ByteBuf;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.net.NetClient;
+import io.vertx.core.net.NetSocket;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 到单个服务提供者的一条长连接
+ * 同一连接上可同时存在多个请求，响应按 requestId 回填到对应的 Future
+ */
+@Slf4j
+class TcpClientConnection {
+
+    /**
+     * 握手消息使用的 requestId，普通请求的 id 从 1 开始
+     */
+    private static final long HANDSHAKE_REQUEST_ID = 0L;
+
+    private final String host;
+
+    private final int port;
+
+    /**
+     * 建立完成的 socket
+     */
+    private final CompletableFuture<NetSocket> socketFuture = new CompletableFuture<>();
+
+    /**
+     * 等待响应的请求 requestId => 响应 Future
+     */
+    private final Map<Long, CompletableFuture<RpcResponse>> pendingMap = new ConcurrentHashMap<>();
+
+    /**
+     * 服务提供者下发的方法 id 表，握手完成前为空，此时请求按完整格式发送
+     */
+    private volatile Map<String, Integer> methodIdMap = Collections.emptyMap();
+
+    /**
+     * 发送请求使用的协议版本，握手响应表明服务提供者支持更高版本后才升级
+     */
+    private volatile byte protocolVersion = ProtocolConstant.PROTOCOL_VERSION;
+
+    private volatile boolean closed;
+
+    TcpClientConnection(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * 发起连接，连接失败时该连接直接标记为关闭，由连接池重新创建
+     */
+    void connect(NetClient netClient) {
+        netClient.connect(port, host, result -> {
+            if (result.failed()) {
+                log.warn("连接服务提供者失败: {}:{}", host, port, result.cause());
+                close(result.cause());
+                socketFuture.completeExceptionally(result.cause());
+                return;
+            }
+            NetSocket socket = result.result();
+            socket.handler(new TcpBufferHandlerWrapper((headerBuffer, bodyBuffer, receivedNanos) -> handleResponse(headerBuffer, bodyBuffer)));
+            socket.exceptionHandler(e -> log.warn("连接发生异常: {}:{}", host, port, e));
+            socket.closeHandler(v -> close(new IOException("连接已关闭: " + host + ":" + port)));
+            socketFuture.complete(socket);
+            log.info("已建立到服务提供者的长连接: {}:{}", host, port);
+            handshake(socket);
+        });
+    }
+
+    /**
+     * 索取方法 id 表和协议版本，不等待结果；握手本身使用默认版本，
+     * 旧版本服务提供者不响应握手时始终按默认版本、完整格式发送
+     */
+    private void handshake(NetSocket socket) {
+        try {
+            ByteBuf message = ProtocolMessageEncoder.encodeToByteBuf(VertxTcpClient.buildMessage(
+                    HANDSHAKE_REQUEST_ID, ProtocolMessageTypeEnum.HANDSHAKE, new RpcHandshake()));
+            socket.write(Buffer.buffer(message));
+        } catch (Exception e) {
+            log.warn("握手请求发送失败: {}:{}", host, port, e);
+        }
+    }
+
+    /**
+     * 查询方法 id
+     *
+     * @param methodSignature 方法签名
+     * @return 未握手或服务提供者未导出该方法时返回 null
+     */
+    Integer getMethodId(String methodSignature) {
+        return methodSignature == null ? null : methodIdMap.get(methodSignature);
+    }
+
+    /**
+     * 发送请求使用的协议版本
+     */
+    byte getProtocolVersion() {
+        return protocolVersion;
+    }
+
+    /**
+     * 发送已编码的请求
+     *
+     * @param requestId 请求 id
+     * @param message   编码后的请求，写出后由 Netty 释放，未能写出时在此释放
+     * @return 响应 Future
+     */
+    CompletableFuture<RpcResponse> send(long requestId, ByteBuf message) {
+        CompletableFuture<RpcResponse> responseFuture = new CompletableFuture<>();
+        pendingMap.put(requestId, responseFuture);
+        // 放入等待表之后再检查一次，避免与 close 并发时请求悬挂
+        if (closed) {
+            message.release();
+            pendingMap.remove(requestId);
+            responseFuture.completeExceptionally(new IOException("连接已关闭: " + host + ":" + port));
+            return responseFuture;
+        }
+        socketFuture.whenComplete((socket, e) -> {
+            if (e != null) {
+                message.release();
+                pendingMap.remove(requestId);
+                responseFuture.completeExceptionally(e);
+                return;
+            }
+            // Buffer 只包装池化的 ByteBuf，不复制数据
+            socket.write(Buffer.buffer(message)).onFailure(cause -> {
+                pendingMap.remove(requestId);
+                responseFuture.completeExceptionally(cause);
+            });
+        });
+        return responseFuture;
+    }
+
+    /**
+     * 放弃等待某个请求（超时等）
+     */
+    void cancel(long requestId) {
+        pendingMap.remove(requestId);
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 关闭连接，并让所有未完成请求失败
+     */
+    void close(Throwable cause) {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (socketFuture.isDone() && !socketFuture.isCompletedExceptionally()) {
+            socketFuture.join().close();
+        }
+        List<CompletableFuture<RpcResponse>> pendingList = new ArrayList<>(pendingMap.values());
+        pendingMap.clear();
+        for (CompletableFuture<RpcResponse> future : pendingList) {
+            future.completeExceptionally(cause);
+        }
+    }
+
+    private void handleResponse(Buffer headerBuffer, Buffer bodyBuffer) {
+        ProtocolMessageDTO<?> protocolMessage;
+        try {
+            protocolMessage = ProtocolMessageDTODecoder.decode(headerBuffer, bodyBuffer);
+        } catch (Exception e) {
+            log.error("响应解码失败: {}:{}", host, port, e);
+            return;
+        }
+        if (protocolMessage.getHeader().getType() == ProtocolMessageTypeEnum.HANDSHAKE.getType()) {
+            RpcHandshake handshake = (RpcHandshake) protocolMessage.getBody();
+            if (handshake == null) {
+                return;
+            }
+            if (handshake.getProtocolVersion() != null) {
+                protocolVersion = (byte) Math.min(handshake.getProtocolVersion(), ProtocolConstant.MAX_PROTOCOL_VERSION);
+            }
+            if (handshake.getMethodIds() != null) {
+                methodIdMap = new HashMap<>(handshake.getMethodIds());
+            }
+            log.info("握手完成: {}:{}, 方法数 {}, 协议版本 {}", host, port, methodIdMap.size(), protocolVersion);
+            return;
+        }
+        Long requestId = protocolMessage.getHeader().getRequestId();
+        CompletableFuture<RpcResponse> future = pendingMap.remove(requestId);
+        if (future == null) {
+            // 请求已超时或已取消
+            log.debug("收到无人等待的响应, requestId={}", requestId);
+            return;
+        }
+        future.complete((RpcResponse) protocolMessage.getBody());
+    }
+}
@@ -1,20 +1,29 @@
 package com.github.rpc.service.web;
 
 import com.github.rpc.common.registry.localcache.LocalRegistry;
+import com.github.rpc.common.registry.localcache.ServiceMethodInvoker;
+import com.github.rpc.constants.ProtocolConstant;
 import com.github.rpc.enums.ProtocolMessageStatusEnum;
 import com.github.rpc.enums.ProtocolMessageTypeEnum;
+import com.github.rpc.model.RpcHandshake;
 import com.github.rpc.model.RpcRequest;
 import com.github.rpc.model.RpcResponse;
 import com.github.rpc.model.dto.ProtocolMessageDTO;
+import com.github.rpc.service.dispatch.RequestDispatcher;
 import com.github.rpc.zip.ProtocolMessageDTODecoder;
 import com.github.rpc.zip.ProtocolMessageEncoder;
+import io.netty.buffer.ByteBuf;
 import io.vertx.core.Handler;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.net.NetSocket;
+import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
-import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
 
+@Slf4j
 public class TcpServerHandler implements Handler<NetSocket> {
 
     /**
@@ -24,47 +33,126 @@ public class TcpServerHandler implements Handler<NetSocket> {
      */
     @Override
     public void handle(NetSocket socket) {
-        TcpBufferHandlerWrapper bufferHandlerWrapper = new TcpBufferHandlerWrapper(buffer -> {
+        TcpBufferHandlerWrapper bufferHandlerWrapper = new TcpBufferHandlerWrapper((headerBuffer, bodyBuffer, receivedNanos) -> {
+            // 先只解析消息头和扩展区，已超时的请求不再解码消息体
+            ProtocolMessageDTO.MessageHeader header = ProtocolMessageDTODecoder.decodeHeader(headerBuffer);
+            int extensionLength = ProtocolMessageDTODecoder.decodeExtension(header, bodyBuffer);
+            if (isExpired(header, receivedNanos)) {
+                return;
+            }
             // 接受请求，解码
-            ProtocolMessageDTO<RpcRequest> ProtocolMessageDTO;
+            ProtocolMessageDTO<?> ProtocolMessageDTO;
             try {
-                ProtocolMessageDTO = (ProtocolMessageDTO<RpcRequest>) ProtocolMessageDTODecoder.decode(buffer);
+                ProtocolMessageDTO = ProtocolMessageDTODecoder.decodeBody(header,
+                        extensionLength == 0 ? bodyBuffer : bodyBuffer.slice(extensionLength, bodyBuffer.length()));
             } catch (IOException e) {
                 throw new RuntimeException("协议消息解码错误");
             }
-            RpcRequest rpcRequest = ProtocolMessageDTO.getBody();
-            ProtocolMessageDTO.MessageHeader header = ProtocolMessageDTO.getHeader();
+            // 握手：返回方法 id 表和支持的最高协议版本，响应仍使用请求的版本
+            // 方法 id 表复制为 HashMap 再发送，Kryo 无法创建只读视图等没有无参构造的 Map
+            if (header.getType() == ProtocolMessageTypeEnum.HANDSHAKE.getType()) {
+                doResponse(socket, header, ProtocolMessageTypeEnum.HANDSHAKE,
+                        new RpcHandshake(new HashMap<>(LocalRegistry.getMethodIds()), ProtocolConstant.MAX_PROTOCOL_VERSION));
+                return;
+            }
+            RpcRequest rpcRequest = (RpcRequest) ProtocolMessageDTO.getBody();
 
-            // 处理请求
-            // 构造响应结果对象
-            RpcResponse rpcResponse = new RpcResponse();
-            try {
-                // 获取要调用的服务实现类，通过反射调用
-                Class<?> implClass = LocalRegistry.get(rpcRequest.getServiceName());
-                Method method = implClass.getMethod(rpcRequest.getMethodName(), rpcRequest.getParameterTypes());
-                Object result = method.invoke(implClass.newInstance(), rpcRequest.getArgs());
-                // 封装返回结果
-                rpcResponse.setData(result);
-                rpcResponse.setDataType(method.getReturnType());
-                rpcResponse.setMessage("ok");
-            } catch (Exception e) {
-                e.printStackTrace();
+            // 获取注册时预编译好的调用器，握手后的请求只带方法 id
+            ServiceMethodInvoker invoker = rpcRequest.getMethodId() != null
+                    ? LocalRegistry.getInvoker(rpcRequest.getMethodId())
+                    : LocalRegistry.getInvoker(rpcRequest.getServiceName(), rpcRequest.getServiceVersion(),
+                    rpcRequest.getMethodName(), rpcRequest.getParameterTypes());
+            if (invoker == null) {
+                RpcResponse rpcResponse = new RpcResponse();
+                NoSuchMethodException e = new NoSuchMethodException(rpcRequest.getMethodId() != null
+                        ? String.format("方法 id 未注册: %d", rpcRequest.getMethodId())
+                        : String.format("服务方法未注册: %s#%s", rpcRequest.getServiceName(), rpcRequest.getMethodName()));
                 rpcResponse.setMessage(e.getMessage());
                 rpcResponse.setException(e);
+                doResponse(socket, header, ProtocolMessageTypeEnum.RESPONSE, rpcResponse);
+                return;
             }
-
-            // 发送响应，编码
-            header.setType((byte) ProtocolMessageTypeEnum.RESPONSE.getType());
-            header.setStatus((byte) ProtocolMessageStatusEnum.OK.getValue());
-            ProtocolMessageDTO<RpcResponse> responseProtocolMessageDTO = new ProtocolMessageDTO<>(header, rpcResponse);
-            try {
-                Buffer encode = ProtocolMessageEncoder.encode(responseProtocolMessageDTO);
-                socket.write(encode);
-            } catch (IOException e) {
-                throw new RuntimeException("协议消息编码错误");
+            // 按方法的派发方式执行，线程池已满时立即拒绝
+            boolean accepted = RequestDispatcher.dispatch(invoker,
+                    () -> invoke(socket, header, receivedNanos, invoker, rpcRequest));
+            if (!accepted) {
+                doResponse(socket, header, ProtocolMessageTypeEnum.RESPONSE, RequestDispatcher.rejectedResponse());
             }
         });
         socket.handler(bufferHandlerWrapper);
     }
 
+    /**
+     * 调用服务方法并写回响应，在派发到的线程上执行
+     */
+    private void invoke(NetSocket socket, ProtocolMessageDTO.MessageHeader header, long receivedNanos,
+                        ServiceMethodInvoker invoker, RpcRequest rpcRequest) {
+        // 在线程池中排队较久时再检查一次
+        if (isExpired(header, receivedNanos)) {
+            return;
+        }
+        // 构造响应结果对象
+        RpcResponse rpcResponse = new RpcResponse();
+        try {
+            Object result = invoker.invoke(rpcRequest.getArgs());
+            // 异步服务：结果完成后再写回，不阻塞当前线程
+            if (invoker.isAsync()) {
+                ((CompletionStage<?>) result).whenComplete((value, e) -> {
+                    RpcResponse asyncResponse = new RpcResponse();
+                    if (e != null) {
+                        asyncResponse.setMessage(e.getMessage());
+                        asyncResponse.setException(e instanceof Exception ? (Exception) e : new RuntimeException(e));
+                    } else {
+                        asyncResponse.setData(value);
+                        asyncResponse.setDataType(invoker.getDataType());
+                        asyncResponse.setMessage("ok");
+                    }
+                    doResponse(socket, header, ProtocolMessageTypeEnum.RESPONSE, asyncResponse);
+                });
+                return;
+            }
+            // 封装返回结果
+            rpcResponse.setData(result);
+            rpcResponse.setDataType(invoker.getDataType());
+            rpcResponse.setMessage("ok");
+        } catch (Exception e) {
+            log.error("服务方法调用失败: {}", invoker.getSignature(), e);
+            rpcResponse.setMessage(e.getMessage());
+            rpcResponse.setException(e);
+        }
+        doResponse(socket, header, ProtocolMessageTypeEnum.RESPONSE, rpcResponse);
+    }
+
+    /**
+     * 请求是否已超过调用方的超时时间，调用方已放弃等待，不再处理也不再响应
+     */
+    private boolean isExpired(ProtocolMessageDTO.MessageHeader header, long receivedNanos) {
+        Long timeoutMillis = header.getTimeoutMillis();
+        if (timeoutMillis == null || header.getType() != ProtocolMessageTypeEnum.REQUEST.getType()) {
+            return false;
+        }
+        if (System.nanoTime() - receivedNanos < TimeUnit.MILLISECONDS.toNanos(timeoutMillis)) {
+            return false;
+        }
+        log.debug("请求已超时 {}ms，丢弃, requestId={}", timeoutMillis, header.getRequestId());
+        return true;
+    }
+
+    /**
+     * 发送响应，编码
+     */
+    private void doResponse(NetSocket socket, ProtocolMessageDTO.MessageHeader header, ProtocolMessageTypeEnum type, Object body) {
+        header.setType((byte) type.getType());
+        header.setTimeoutMillis(null);
+        header.setStatus((byte) ProtocolMessageStatusEnum.OK.getValue());
+        ProtocolMessageDTO<Object> responseProtocolMessageDTO = new ProtocolMessageDTO<>(header, body);
+        try {
+            // 单次编码到池化直接内存，写出后由 Netty 释放
+            ByteBuf encode = ProtocolMessageEncoder.encodeToByteBuf(responseProtocolMessageDTO);
+            socket.write(Buffer.buffer(encode));
+        } catch (IOException e) {
+            throw new RuntimeException("协议消息编码错误");
+        }
+    }
+
 }
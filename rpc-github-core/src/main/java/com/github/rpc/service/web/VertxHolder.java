@@ -0,0 +1,26 @@
+package com.github.rpc.service.web;
+
+import io.vertx.core.Vertx;
+
+/**
+ * 进程内共享的 Vert.x 实例，客户端和各服务器共用同一组事件循环线程，
+ * 避免每次启动服务器或创建客户端都新建一套线程池
+ */
+public class VertxHolder {
+
+    private static volatile Vertx vertx;
+
+    private VertxHolder() {
+    }
+
+    public static Vertx get() {
+        if (vertx == null) {
+            synchronized (VertxHolder.class) {
+                if (vertx == null) {
+                    vertx = Vertx.vertx();
+                }
+            }
+        }
+        return vertx;
+    }
+}
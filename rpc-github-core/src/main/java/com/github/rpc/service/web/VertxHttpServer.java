@@ -1,7 +1,17 @@
 package com.github.rpc.service.web;
 
-import io.vertx.core.Vertx;
+import com.github.rpc.RpcApplication;
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Promise;
+import lombok.extern.slf4j.Slf4j;
 
+import java.util.Optional;
+
+/**
+ * HTTP 服务器，与 TCP 服务器相同，在共享的 Vert.x 实例上部署多个 verticle
+ */
+@Slf4j
 public class VertxHttpServer{
 
     /**
@@ -10,22 +20,51 @@ public class VertxHttpServer{
      * @param port
      */
     public void doStart(int port) {
-        // 创建 Vert.x 实例
-        Vertx vertx = Vertx.vertx();
-
-        // 创建 HTTP 服务器
-        io.vertx.core.http.HttpServer server = vertx.createHttpServer();
-
-        // 处理请求
-        server.requestHandler(new HttpServerHandler());
+        doStart(port, Optional.ofNullable(RpcApplication.getRpcConfig().getServerInstances()).orElse(0));
+    }
 
-        // 启动 HTTP 服务器并监听指定端口
-        server.listen(port, result -> {
+    /**
+     * @param port      端口
+     * @param instances verticle 实例数，不大于 0 时取 CPU 核数
+     */
+    public void doStart(int port, int instances) {
+        int count = instances > 0 ? instances : Runtime.getRuntime().availableProcessors();
+        VertxHolder.get().deployVerticle(() -> new HttpServerVerticle(port), new DeploymentOptions().setInstances(count), result -> {
             if (result.succeeded()) {
-                System.out.println("Server is now listening on port " + port);
+                log.info("Server is now listening on port {}, instances {}", port, count);
             } else {
-                System.err.println("Failed to start server: " + result.cause());
+                log.error("Failed to start server on port {}", port, result.cause());
             }
         });
     }
+
+    /**
+     * 单个 HTTP 服务器实例
+     */
+    private static class HttpServerVerticle extends AbstractVerticle {
+
+        private final int port;
+
+        HttpServerVerticle(int port) {
+            this.port = port;
+        }
+
+        @Override
+        public void start(Promise<Void> startPromise) {
+            // 创建 HTTP 服务器
+            io.vertx.core.http.HttpServer server = vertx.createHttpServer();
+
+            // 处理请求
+            server.requestHandler(new HttpServerHandler());
+
+            // 启动 HTTP 服务器并监听指定端口
+            server.listen(port, result -> {
+                if (result.succeeded()) {
+                    startPromise.complete();
+                } else {
+                    startPromise.fail(result.cause());
+                }
+            });
+        }
+    }
 }
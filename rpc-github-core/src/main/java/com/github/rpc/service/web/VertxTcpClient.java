@@ -0,0 +1,228 @@
+package com.github.rpc.service.web;
+
+import com.github.rpc.RpcApplication;
+import com.github.rpc.common.loadblanace.EndpointStats;
+import com.github.rpc.common.utils.MethodSignatureUtils;
+import com.github.rpc.constants.ProtocolConstant;
+import com.github.rpc.constants.RpcLoadConstant;
+import com.github.rpc.enums.ProtocolMessageDTOSerializerEnum;
+import com.github.rpc.enums.ProtocolMessageTypeEnum;
+import com.github.rpc.enums.ResponseCodeEnum;
+import com.github.rpc.exception.BizException;
+import com.github.rpc.model.RpcRequest;
+import com.github.rpc.model.RpcResponse;
+import com.github.rpc.model.dto.ProtocolMessageDTO;
+import com.github.rpc.model.dto.ServiceMetaInfoDTO;
+import com.github.rpc.zip.ProtocolMessageEncoder;
+import io.netty.buffer.ByteBuf;
+import io.vertx.core.Vertx;
+import io.vertx.core.net.NetClient;
+import io.vertx.core.net.NetClientOptions;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * TCP 客户端
+ * 每个服务提供者只保持少量长连接，请求通过消息头中的 requestId 与响应对应，
+ * 同一连接上可以同时有多个请求在途，避免每次调用都建立和断开连接
+ */
+@Slf4j
+public class VertxTcpClient {
+
+    private static final Vertx VERTX = VertxHolder.get();
+
+    private static final NetClient NET_CLIENT = VERTX.createNetClient(new NetClientOptions()
+            .setTcpNoDelay(true)
+            .setTcpKeepAlive(true)
+            .setConnectTimeout(3000));
+
+    /**
+     * 连接池 host:port => 到该服务提供者的连接
+     */
+    private static final Map<String, TcpConnectionPool> POOL_MAP = new ConcurrentHashMap<>();
+
+    /**
+     * 请求 id 生成器
+     */
+    private static final AtomicLong REQUEST_ID_GENERATOR = new AtomicLong();
+
+    /**
+     * 异步发送请求
+     *
+     * @param rpcRequest      请求
+     * @param serviceMetaInfo 服务提供者
+     * @param timeoutMillis   超时时间（毫秒）
+     * @return 响应 Future，超时后以 TimeoutException 结束
+     */
+    public static CompletableFuture<RpcResponse> doRequestAsync(RpcRequest rpcRequest, ServiceMetaInfoDTO serviceMetaInfo, long timeoutMillis) {
+        return doRequestAsync(rpcRequest, signature(rpcRequest), serviceMetaInfo, timeoutMillis);
+    }
+
+    /**
+     * 异步发送请求
+     *
+     * @param rpcRequest      请求
+     * @param methodSignature 方法签名，连接已握手时据此换成方法 id 发送
+     * @param serviceMetaInfo 服务提供者
+     * @param timeoutMillis   超时时间（毫秒）
+     * @return 响应 Future，超时后以 TimeoutException 结束；取消该 Future 即放弃等待响应
+     */
+    public static CompletableFuture<RpcResponse> doRequestAsync(RpcRequest rpcRequest, String methodSignature,
+                                                                ServiceMetaInfoDTO serviceMetaInfo, long timeoutMillis) {
+        long requestId = REQUEST_ID_GENERATOR.incrementAndGet();
+        TcpConnectionPool pool = getPool(serviceMetaInfo);
+        TcpClientConnection connection = pool.next();
+        Integer methodId = connection.getMethodId(methodSignature);
+        // 已握手：只发送方法 id 和参数，原请求对象在重试时仍会复用，这里不修改它
+        RpcRequest wireRequest = methodId == null
+                ? rpcRequest
+                : RpcRequest.builder().methodId(methodId).args(rpcRequest.getArgs()).build();
+        ByteBuf message;
+        try {
+            // 单次编码到池化直接内存
+            ProtocolMessageDTO<RpcRequest> requestMessage = buildMessage(requestId, ProtocolMessageTypeEnum.REQUEST, wireRequest);
+            // 服务提供者在握手中表明支持版本 2 后，超时时间随请求发给服务端，超时后到达或排队的请求由服务端直接丢弃
+            requestMessage.getHeader().setVersion(connection.getProtocolVersion());
+            requestMessage.getHeader().setTimeoutMillis(timeoutMillis);
+            message = ProtocolMessageEncoder.encodeToByteBuf(requestMessage);
+        } catch (Exception e) {
+            CompletableFuture<RpcResponse> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+
+        // 在途数与耗时统计，供负载均衡使用
+        EndpointStats stats = EndpointStats.of(pool.address);
+        long startNanos = stats.start();
+        CompletableFuture<RpcResponse> responseFuture = connection.send(requestId, message);
+        long timerId = VERTX.setTimer(timeoutMillis, id -> {
+            connection.cancel(requestId);
+            responseFuture.completeExceptionally(new TimeoutException(
+                    String.format("请求超时 %dms, requestId=%d", timeoutMillis, requestId)));
+        });
+        responseFuture.whenComplete((response, e) -> {
+            VERTX.cancelTimer(timerId);
+            if (e instanceof CancellationException) {
+                // 调用方主动取消（如对冲请求中落后的一方），丢弃之后到达的响应
+                connection.cancel(requestId);
+                stats.cancel(startNanos);
+                return;
+            }
+            stats.finish(startNanos, e == null);
+        });
+        return responseFuture;
+    }
+
+    /**
+     * 同步发送请求
+     */
+    public static RpcResponse doRequest(RpcRequest rpcRequest, ServiceMetaInfoDTO serviceMetaInfo, long timeoutMillis) throws Exception {
+        return doRequest(rpcRequest, signature(rpcRequest), serviceMetaInfo, timeoutMillis);
+    }
+
+    /**
+     * 同步发送请求
+     */
+    public static RpcResponse doRequest(RpcRequest rpcRequest, String methodSignature,
+                                        ServiceMetaInfoDTO serviceMetaInfo, long timeoutMillis) throws Exception {
+        try {
+            return doRequestAsync(rpcRequest, methodSignature, serviceMetaInfo, timeoutMillis).get();
+        } catch (ExecutionException e) {
+            // 还原真实异常，便于重试策略按异常类型判断
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 按服务提供者本地注册的服务键（服务名:默认分组:版本）生成方法签名
+     */
+    private static String signature(RpcRequest rpcRequest) {
+        String serviceKey = rpcRequest.getServiceVersion() == null
+                ? rpcRequest.getServiceName()
+                : ServiceMetaInfoDTO.buildKey(rpcRequest.getServiceName(), RpcLoadConstant.DEFAULT_SERVICE_GROUP, rpcRequest.getServiceVersion());
+        return MethodSignatureUtils.signature(serviceKey, rpcRequest.getMethodName(), rpcRequest.getParameterTypes());
+    }
+
+    /**
+     * 构造协议消息，序列化方式取全局配置
+     */
+    static <T> ProtocolMessageDTO<T> buildMessage(long requestId, ProtocolMessageTypeEnum type, T body) {
+        ProtocolMessageDTOSerializerEnum serializerEnum =
+                ProtocolMessageDTOSerializerEnum.getEnumByValue(RpcApplication.getRpcConfig().getSerializer());
+        if (serializerEnum == null) {
+            throw new BizException(ResponseCodeEnum.NOT_VALID_MESSAGE_SERIALIZER);
+        }
+        ProtocolMessageDTO.MessageHeader header = new ProtocolMessageDTO.MessageHeader();
+        header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+        header.setVersion(ProtocolConstant.PROTOCOL_VERSION);
+        header.setSerializer((byte) serializerEnum.getType().intValue());
+        header.setType((byte) type.getType());
+        header.setStatus((byte) 0);
+        header.setRequestId(requestId);
+        return new ProtocolMessageDTO<>(header, body);
+    }
+
+    private static TcpConnectionPool getPool(ServiceMetaInfoDTO serviceMetaInfo) {
+        String address = serviceMetaInfo.getServiceHost() + ":" + serviceMetaInfo.getServicePort();
+        return POOL_MAP.computeIfAbsent(address, key -> {
+            int size = Optional.ofNullable(RpcApplication.getRpcConfig().getConnectionsPerProvider()).orElse(2);
+            return new TcpConnectionPool(serviceMetaInfo.getServiceHost(), serviceMetaInfo.getServicePort(), Math.max(size, 1));
+        });
+    }
+
+    /**
+     * 到单个服务提供者的连接集合，轮流使用，断开的连接在下次使用时重建
+     */
+    private static class TcpConnectionPool {
+
+        private final String host;
+
+        private final int port;
+
+        private final AtomicReferenceArray<TcpClientConnection> connections;
+
+        private final AtomicInteger index = new AtomicInteger();
+
+        /**
+         * host:port，统计在节点下线时会被丢弃，每次请求按地址取当前统计
+         */
+        private final String address;
+
+        TcpConnectionPool(String host, int port, int size) {
+            this.host = host;
+            this.port = port;
+            this.connections = new AtomicReferenceArray<>(size);
+            this.address = host + ":" + port;
+        }
+
+        TcpClientConnection next() {
+            int slot = (index.getAndIncrement() & Integer.MAX_VALUE) % connections.length();
+            while (true) {
+                TcpClientConnection current = connections.get(slot);
+                if (current != null && !current.isClosed()) {
+                    return current;
+                }
+                TcpClientConnection created = new TcpClientConnection(host, port);
+                // 只有替换成功的线程负责发起连接
+                if (connections.compareAndSet(slot, current, created)) {
+                    created.connect(NET_CLIENT);
+                    return created;
+                }
+            }
+        }
+    }
+}
@@ -1,33 +1,72 @@
 package com.github.rpc.service.web;
 
-import io.vertx.core.Vertx;
+import com.github.rpc.RpcApplication;
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Promise;
 import io.vertx.core.net.NetServer;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.Optional;
+
+/**
+ * TCP 服务器
+ * 在共享的 Vert.x 实例上部署多个 verticle，每个实例监听同一端口，
+ * Vert.x 将新连接轮流分给各实例所在的事件循环，充分利用多核
+ */
 @Slf4j
 public class VertxTcpServer {
 
     public void doStart(int port) {
-        // 创建 Vert.x 实例
-        Vertx vertx = Vertx.vertx();
-
-        // 创建 TCP 服务器
-        NetServer server = vertx.createNetServer();
-
-        // 处理请求
-        server.connectHandler(new TcpServerHandler());
+        doStart(port, Optional.ofNullable(RpcApplication.getRpcConfig().getServerInstances()).orElse(0));
+    }
 
-        // 启动 TCP 服务器并监听指定端口
-        server.listen(port, result -> {
+    /**
+     * @param port      端口
+     * @param instances verticle 实例数，不大于 0 时取 CPU 核数
+     */
+    public void doStart(int port, int instances) {
+        int count = instances > 0 ? instances : Runtime.getRuntime().availableProcessors();
+        VertxHolder.get().deployVerticle(() -> new TcpServerVerticle(port), new DeploymentOptions().setInstances(count), result -> {
             if (result.succeeded()) {
-                log.info("TCP server started on port " + port);
+                log.info("TCP server started on port {}, instances {}", port, count);
             } else {
-                log.info("Failed to start TCP server: " + result.cause());
+                log.error("Failed to start TCP server on port {}", port, result.cause());
             }
         });
     }
 
+    /**
+     * 单个 TCP 服务器实例，运行在自己的事件循环上
+     */
+    private static class TcpServerVerticle extends AbstractVerticle {
+
+        private final int port;
+
+        TcpServerVerticle(int port) {
+            this.port = port;
+        }
+
+        @Override
+        public void start(Promise<Void> startPromise) {
+            // 创建 TCP 服务器
+            NetServer server = vertx.createNetServer();
+
+            // 处理请求
+            server.connectHandler(new TcpServerHandler());
+
+            // 启动 TCP 服务器并监听指定端口，同一端口的多个实例由 Vert.x 分配连接
+            server.listen(port, result -> {
+                if (result.succeeded()) {
+                    startPromise.complete();
+                } else {
+                    startPromise.fail(result.cause());
+                }
+            });
+        }
+    }
+
     public static void main(String[] args) {
-        new VertxTcpServer().doStart(8888);
+        new VertxTcpServer().doStart(8888, 0);
     }
 }
@@ -7,12 +7,14 @@ import com.github.rpc.enums.ProtocolMessageDTOSerializerEnum;
 import com.github.rpc.enums.ProtocolMessageTypeEnum;
 import com.github.rpc.enums.ResponseCodeEnum;
 import com.github.rpc.exception.BizException;
+import com.github.rpc.model.RpcHandshake;
 import com.github.rpc.model.RpcRequest;
 import com.github.rpc.model.RpcResponse;
 import com.github.rpc.model.dto.ProtocolMessageDTO;
 import io.vertx.core.buffer.Buffer;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 
 /**
@@ -23,30 +25,66 @@ public class ProtocolMessageDTODecoder {
     /**
      * 解码 手动进行拆包
      *
-     * @param buffer
+     * @param buffer 消息头 + 消息体
      * @return
      * @throws IOException
      */
     public static ProtocolMessageDTO<?> decode(Buffer buffer) throws IOException {
-        // 分别从指定位置读出 Buffer
-        ProtocolMessageDTO.MessageHeader header = new ProtocolMessageDTO.MessageHeader();
-        byte magic = buffer.getByte(0);
-        // 校验魔数
-        if (magic != ProtocolConstant.PROTOCOL_MAGIC) {
-            throw new BizException(ResponseCodeEnum.NOT_VALID_MESSAGE_MAGIC);
+        int bodyLength = buffer.getInt(13);
+        // 解决粘包问题，只读指定长度的数据 slice 不复制数据
+        return decode(buffer.slice(0, ProtocolConstant.MESSAGE_HEADER_LENGTH),
+                buffer.slice(ProtocolConstant.MESSAGE_HEADER_LENGTH, ProtocolConstant.MESSAGE_HEADER_LENGTH + bodyLength));
+    }
+
+    /**
+     * 解码 消息头与消息体分开传入
+     * 消息体直接以底层 Netty 缓冲区的视图交给序列化器，不再复制成 byte[]
+     *
+     * @param headerBuffer 消息头
+     * @param bodyBuffer   消息体
+     * @return
+     * @throws IOException
+     */
+    public static ProtocolMessageDTO<?> decode(Buffer headerBuffer, Buffer bodyBuffer) throws IOException {
+        ProtocolMessageDTO.MessageHeader header = decodeHeader(headerBuffer);
+        int extensionLength = decodeExtension(header, bodyBuffer);
+        return decodeBody(header, extensionLength == 0 ? bodyBuffer : bodyBuffer.slice(extensionLength, bodyBuffer.length()));
+    }
+
+    /**
+     * 解析扩展区（版本 2 起位于消息体之前），未知的扩展项跳过
+     *
+     * @param header     已解析的消息头，扩展项写入其中
+     * @param bodyBuffer 扩展区 + 消息体
+     * @return 扩展区占用的字节数，版本 1 返回 0
+     */
+    public static int decodeExtension(ProtocolMessageDTO.MessageHeader header, Buffer bodyBuffer) {
+        if (header.getVersion() < ProtocolConstant.PROTOCOL_VERSION_V2) {
+            return 0;
         }
-        //拆包
-        header.setMagic(magic);
-        header.setVersion(buffer.getByte(1));
-        header.setSerializer(buffer.getByte(2));
-        header.setType(buffer.getByte(3));
-        //
-        header.setStatus(buffer.getByte(4));
-        header.setRequestId(buffer.getLong(5));
-        header.setBodyLength(buffer.getInt(13));
-        //追加对应请求体的长度
-        // 解决粘包问题，只读指定长度的数据 本身占四个字节Message
-        byte[] bodyBytes = buffer.getBytes(17, 17 + header.getBodyLength());
+        int end = Short.BYTES + (bodyBuffer.getShort(0) & 0xFFFF);
+        int position = Short.BYTES;
+        while (position < end) {
+            byte key = bodyBuffer.getByte(position);
+            int valueLength = bodyBuffer.getShort(position + 1) & 0xFFFF;
+            int valueIndex = position + 1 + Short.BYTES;
+            if (key == ProtocolConstant.EXTENSION_TIMEOUT && valueLength == Long.BYTES) {
+                header.setTimeoutMillis(bodyBuffer.getLong(valueIndex));
+            }
+            position = valueIndex + valueLength;
+        }
+        return end;
+    }
+
+    /**
+     * 解码消息体
+     *
+     * @param header     已解析的消息头
+     * @param bodyBuffer 消息体（不含扩展区）
+     * @return
+     * @throws IOException
+     */
+    public static ProtocolMessageDTO<?> decodeBody(ProtocolMessageDTO.MessageHeader header, Buffer bodyBuffer) throws IOException {
         // 解析消息体
         ProtocolMessageDTOSerializerEnum serializerEnum = ProtocolMessageDTOSerializerEnum.getEnumByKey(header.getSerializer());
         if (serializerEnum == null) {
@@ -58,13 +96,17 @@ public class ProtocolMessageDTODecoder {
         if (messageTypeEnum == null) {
             throw new BizException(ResponseCodeEnum.NOT_VALID_MESSAGE_TYPE);
         }
+        ByteBuffer body = bodyBuffer.getByteBuf().nioBuffer();
         switch (messageTypeEnum) {
             case REQUEST:
-                RpcRequest request = serializer.deserialize(bodyBytes, RpcRequest.class);
+                RpcRequest request = serializer.deserialize(body, RpcRequest.class);
                 return new ProtocolMessageDTO<>(header, request);
             case RESPONSE:
-                RpcResponse response = serializer.deserialize(bodyBytes, RpcResponse.class);
+                RpcResponse response = serializer.deserialize(body, RpcResponse.class);
                 return new ProtocolMessageDTO<>(header, response);
+            case HANDSHAKE:
+                RpcHandshake handshake = serializer.deserialize(body, RpcHandshake.class);
+                return new ProtocolMessageDTO<>(header, handshake);
             //针对心跳处理机制
             case HEART_BEAT:
             case OTHERS:
@@ -73,4 +115,30 @@ public class ProtocolMessageDTODecoder {
         }
     }
 
+    /**
+     * 只解析消息头
+     *
+     * @param buffer
+     * @return
+     */
+    public static ProtocolMessageDTO.MessageHeader decodeHeader(Buffer buffer) {
+        // 分别从指定位置读出 Buffer
+        ProtocolMessageDTO.MessageHeader header = new ProtocolMessageDTO.MessageHeader();
+        byte magic = buffer.getByte(0);
+        // 校验魔数
+        if (magic != ProtocolConstant.PROTOCOL_MAGIC) {
+            throw new BizException(ResponseCodeEnum.NOT_VALID_MESSAGE_MAGIC);
+        }
+        //拆包
+        header.setMagic(magic);
+        header.setVersion(buffer.getByte(1));
+        header.setSerializer(buffer.getByte(2));
+        header.setType(buffer.getByte(3));
+        //
+        header.setStatus(buffer.getByte(4));
+        header.setRequestId(buffer.getLong(5));
+        header.setBodyLength(buffer.getInt(13));
+        return header;
+    }
+
 }
@@ -2,16 +2,28 @@ package com.github.rpc.zip;
 
 import com.github.rpc.common.serializer.Serializer;
 import com.github.rpc.common.serializer.SerializerFactory;
+import com.github.rpc.constants.ProtocolConstant;
 import com.github.rpc.enums.ProtocolMessageDTOSerializerEnum;
 import com.github.rpc.enums.ResponseCodeEnum;
 import com.github.rpc.exception.BizException;
 import com.github.rpc.model.dto.ProtocolMessageDTO;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
 import io.vertx.core.buffer.Buffer;
 
 import java.io.IOException;
 
 public class ProtocolMessageEncoder {
 
+    /**
+     * 池化缓冲区的初始容量，不够时自动扩容
+     */
+    private static final int INITIAL_BUFFER_CAPACITY = 256;
+
     /**
      * 编码
      *
@@ -33,16 +45,98 @@ public class ProtocolMessageEncoder {
         buffer.appendByte(header.getStatus());
         buffer.appendLong(header.getRequestId());
         // 获取序列化器 根据Key
+        Serializer serializer = getSerializer(header);
+        byte[] bodyBytes = serializer.serialize(protocolMessage.getBody());
+        // 写入 body 长度（含扩展区）和数据
+        int bodyLengthIndex = buffer.length();
+        buffer.appendInt(0);
+        if (hasExtension(header)) {
+            ByteBuf extension = Unpooled.buffer();
+            writeExtension(header, extension);
+            buffer.appendBytes(ByteBufUtil.getBytes(extension));
+        }
+        buffer.appendBytes(bodyBytes);
+        buffer.setInt(bodyLengthIndex, buffer.length() - ProtocolConstant.MESSAGE_HEADER_LENGTH);
+        return buffer;
+    }
+
+    /**
+     * 单次编码到池化的直接内存缓冲区
+     * 先写 17 字节消息头和扩展区，序列化器直接把消息体写进同一个缓冲区，最后回填 bodyLength
+     * 返回的 ByteBuf 由调用方负责释放（写入 Netty Channel 后由 Netty 释放）
+     *
+     * @param protocolMessage
+     * @return
+     * @throws IOException
+     */
+    public static ByteBuf encodeToByteBuf(ProtocolMessageDTO<?> protocolMessage) throws IOException {
+        return encodeToByteBuf(protocolMessage, PooledByteBufAllocator.DEFAULT);
+    }
+
+    /**
+     * 单次编码到指定分配器分配的缓冲区
+     *
+     * @param protocolMessage
+     * @param allocator
+     * @return
+     * @throws IOException
+     */
+    public static ByteBuf encodeToByteBuf(ProtocolMessageDTO<?> protocolMessage, ByteBufAllocator allocator) throws IOException {
+        if (protocolMessage == null || protocolMessage.getHeader() == null) {
+            return allocator.directBuffer(0);
+        }
+        ProtocolMessageDTO.MessageHeader header = protocolMessage.getHeader();
+        Serializer serializer = getSerializer(header);
+        ByteBuf byteBuf = allocator.directBuffer(INITIAL_BUFFER_CAPACITY);
+        try {
+            byteBuf.writeByte(header.getMagic());
+            byteBuf.writeByte(header.getVersion());
+            byteBuf.writeByte(header.getSerializer());
+            byteBuf.writeByte(header.getType());
+            byteBuf.writeByte(header.getStatus());
+            byteBuf.writeLong(header.getRequestId());
+            // 预留 body 长度
+            int bodyLengthIndex = byteBuf.writerIndex();
+            byteBuf.writeInt(0);
+            if (hasExtension(header)) {
+                writeExtension(header, byteBuf);
+            }
+            serializer.serialize(protocolMessage.getBody(), new ByteBufOutputStream(byteBuf));
+            // 回填 body 长度（含扩展区）
+            byteBuf.setInt(bodyLengthIndex, byteBuf.writerIndex() - ProtocolConstant.MESSAGE_HEADER_LENGTH);
+            return byteBuf;
+        } catch (IOException | RuntimeException e) {
+            byteBuf.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 版本 2 起带扩展区
+     */
+    static boolean hasExtension(ProtocolMessageDTO.MessageHeader header) {
+        return header.getVersion() >= ProtocolConstant.PROTOCOL_VERSION_V2;
+    }
+
+    /**
+     * 写入扩展区：长度(short) + 各扩展项
+     */
+    private static void writeExtension(ProtocolMessageDTO.MessageHeader header, ByteBuf byteBuf) {
+        int lengthIndex = byteBuf.writerIndex();
+        byteBuf.writeShort(0);
+        if (header.getTimeoutMillis() != null) {
+            byteBuf.writeByte(ProtocolConstant.EXTENSION_TIMEOUT);
+            byteBuf.writeShort(Long.BYTES);
+            byteBuf.writeLong(header.getTimeoutMillis());
+        }
+        byteBuf.setShort(lengthIndex, byteBuf.writerIndex() - lengthIndex - Short.BYTES);
+    }
+
+    private static Serializer getSerializer(ProtocolMessageDTO.MessageHeader header) {
         ProtocolMessageDTOSerializerEnum serializerEnum = ProtocolMessageDTOSerializerEnum.getEnumByKey(header.getSerializer());
         if (serializerEnum == null) {
             throw new BizException(ResponseCodeEnum.NOT_VALID_MESSAGE_SERIALIZER);
         }
-        Serializer serializer = SerializerFactory.getInstance(serializerEnum.getValue());
-        byte[] bodyBytes = serializer.serialize(protocolMessage.getBody());
-        // 写入 body 长度和数据
-        buffer.appendInt(bodyBytes.length);
-        buffer.appendBytes(bodyBytes);
-        return buffer;
+        return SerializerFactory.getInstance(serializerEnum.getValue());
     }
 }
-
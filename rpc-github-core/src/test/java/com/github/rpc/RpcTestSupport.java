@@ -0,0 +1,80 @@
+package com.github.rpc;
+
+import com.github.rpc.config.ConfigCenterConfig;
+import com.github.rpc.config.GlobalRpcConfig;
+import com.github.rpc.config.RegistryConfig;
+import com.github.rpc.constants.RegistryConstant;
+import com.github.rpc.constants.SerializerStrategyConstant;
+import com.github.rpc.constants.TransportConstant;
+import com.github.rpc.service.web.VertxTcpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+/**
+ * 单元测试公共环境：不连接注册中心和配置中心的全局配置，本地 TCP 服务端
+ */
+public class RpcTestSupport {
+
+    private static volatile int tcpPort;
+
+    /**
+     * 使用测试配置初始化，注册中心客户端只创建不连接，不读写快照
+     */
+    public static synchronized void init() {
+        if (tcpPort > 0) {
+            return;
+        }
+        RegistryConfig registryConfig = new RegistryConfig();
+        registryConfig.setRegistry(RegistryConstant.ETCD);
+        registryConfig.setAddress("http://localhost:2379");
+        registryConfig.setSnapshotInterval(0L);
+        RpcApplication.init(GlobalRpcConfig.builder()
+                .serializer(SerializerStrategyConstant.KRYO)
+                .transport(TransportConstant.TCP)
+                .connectionsPerProvider(1)
+                .registryConfig(registryConfig)
+                .configCenterConfig(new ConfigCenterConfig())
+                .build());
+        tcpPort = startTcpServer();
+    }
+
+    /**
+     * 本地 TCP 服务端端口，首次调用时初始化
+     */
+    public static int getTcpPort() {
+        init();
+        return tcpPort;
+    }
+
+    private static int startTcpServer() {
+        int port;
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            port = serverSocket.getLocalPort();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        new VertxTcpServer().doStart(port, 1);
+        // 部署是异步的，等到端口可以连接
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (System.currentTimeMillis() < deadline) {
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress("localhost", port), 200);
+                return port;
+            } catch (IOException e) {
+                sleep(20L);
+            }
+        }
+        throw new IllegalStateException("TCP 服务端启动超时: " + port);
+    }
+
+    public static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.github.rpc.common.loadblanace;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * 耗时直方图单元测试：分桶误差与分位数计算
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketUpperBoundCoversSample() {
+        for (long micros = 1; micros < 10_000_000L; micros += Math.max(1L, micros / 7)) {
+            long upper = LatencyHistogram.upperBoundMicros(LatencyHistogram.bucket(micros));
+            assertTrue("上界应大于样本: " + micros, upper > micros);
+            // 每个 2 的幂区间分 4 个桶，相对误差不超过 25%
+            assertTrue("误差过大: " + micros + " -> " + upper, upper <= micros * 5 / 4 + 1);
+        }
+    }
+
+    @Test
+    public void testNotEnoughSamples() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 10; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        assertEquals(-1L, histogram.percentileNanos(0.95));
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 95; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        for (int i = 0; i < 5; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(100));
+        }
+
+        long p50 = histogram.percentileNanos(0.5);
+        long p95 = histogram.percentileNanos(0.95);
+        long p99 = histogram.percentileNanos(0.99);
+        assertEquals(p50, p95);
+        assertTrue(p95 >= TimeUnit.MILLISECONDS.toNanos(1));
+        assertTrue(p95 <= TimeUnit.MICROSECONDS.toNanos(1250));
+        assertTrue(p99 >= TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue(p99 <= TimeUnit.MILLISECONDS.toNanos(125));
+    }
+
+    @Test
+    public void testVeryLargeSampleFallsIntoLastBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 20; i++) {
+            histogram.record(TimeUnit.DAYS.toNanos(365));
+        }
+        assertEquals(LatencyHistogram.upperBoundMicros(LatencyHistogram.bucket(Long.MAX_VALUE)) * 1000,
+                histogram.percentileNanos(0.95));
+    }
+}
@@ -0,0 +1,171 @@
+package com.github.rpc.common.loadblanace;
+
+import com.github.rpc.common.loadblanace.impl.ConsistentHashLoadBalancer;
+import com.github.rpc.common.loadblanace.impl.PeakEwmaLoadBalancer;
+import com.github.rpc.common.loadblanace.impl.RoundRobinLoadBalancer;
+import com.github.rpc.common.loadblanace.impl.SmoothWeightedRoundRobinLoadBalancer;
+import com.github.rpc.config.ConsistentHashConfig;
+import com.github.rpc.constants.LoadBalancerConstant;
+import com.github.rpc.model.dto.ServiceMetaInfoDTO;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * 负载均衡器单元测试
+ */
+public class LoadBalancerTest {
+
+    private static ServiceMetaInfoDTO instance(int port, Integer weight) {
+        ServiceMetaInfoDTO serviceMetaInfo = new ServiceMetaInfoDTO();
+        serviceMetaInfo.setServiceName("testService");
+        serviceMetaInfo.setServiceHost("localhost");
+        serviceMetaInfo.setServicePort(port);
+        serviceMetaInfo.setWeight(weight);
+        return serviceMetaInfo;
+    }
+
+    private static Map<String, Object> params() {
+        Map<String, Object> requestParams = new HashMap<>();
+        requestParams.put(LoadBalancerConstant.PARAM_SERVICE_KEY, "testService");
+        return requestParams;
+    }
+
+    @Test
+    public void testRoundRobin() {
+        LoadBalancerStrategy loadBalancer = new RoundRobinLoadBalancer();
+        List<ServiceMetaInfoDTO> instances = Collections.unmodifiableList(Arrays.asList(
+                instance(8080, null), instance(8081, null), instance(8082, null)));
+
+        for (int round = 0; round < 3; round++) {
+            for (ServiceMetaInfoDTO expected : instances) {
+                assertSame(expected, loadBalancer.select(params(), instances));
+            }
+        }
+    }
+
+    @Test
+    public void testSmoothWeightedRoundRobin() {
+        LoadBalancerStrategy loadBalancer = new SmoothWeightedRoundRobinLoadBalancer();
+        ServiceMetaInfoDTO a = instance(8080, 500);
+        ServiceMetaInfoDTO b = instance(8081, 100);
+        ServiceMetaInfoDTO c = instance(8082, 100);
+        List<ServiceMetaInfoDTO> instances = Collections.unmodifiableList(Arrays.asList(a, b, c));
+
+        // 权重约分后为 5:1:1，平滑序列为 a a b a c a a
+        List<ServiceMetaInfoDTO> selected = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            selected.add(loadBalancer.select(params(), instances));
+        }
+        assertEquals(Arrays.asList(a, a, b, a, c, a, a), selected);
+
+        // 按权重比例分配
+        Map<ServiceMetaInfoDTO, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 700; i++) {
+            counts.merge(loadBalancer.select(params(), instances), 1, Integer::sum);
+        }
+        assertEquals(500, (int) counts.get(a));
+        assertEquals(100, (int) counts.get(b));
+        assertEquals(100, (int) counts.get(c));
+    }
+
+    @Test
+    public void testStateRebuiltWhenSnapshotChanges() {
+        LoadBalancerStrategy loadBalancer = new SmoothWeightedRoundRobinLoadBalancer();
+        ServiceMetaInfoDTO a = instance(8080, 300);
+        ServiceMetaInfoDTO b = instance(8081, 100);
+        List<ServiceMetaInfoDTO> instances = Collections.unmodifiableList(Arrays.asList(a, b));
+        for (int i = 0; i < 400; i++) {
+            loadBalancer.select(params(), instances);
+        }
+
+        // 新快照中 a 已下线，只能选到 b 和新实例
+        ServiceMetaInfoDTO d = instance(8083, 100);
+        List<ServiceMetaInfoDTO> changed = Collections.unmodifiableList(Arrays.asList(b, d));
+        for (int i = 0; i < 10; i++) {
+            assertNotSame(a, loadBalancer.select(params(), changed));
+        }
+    }
+
+    @Test
+    public void testConsistentHash() {
+        LoadBalancerStrategy loadBalancer = new ConsistentHashLoadBalancer();
+        ServiceMetaInfoDTO a = instance(8080, null);
+        ServiceMetaInfoDTO b = instance(8081, null);
+        ServiceMetaInfoDTO c = instance(8082, null);
+        List<ServiceMetaInfoDTO> instances = Collections.unmodifiableList(Arrays.asList(a, b, c));
+
+        Map<Integer, ServiceMetaInfoDTO> before = new HashMap<>();
+        for (int key = 0; key < 1000; key++) {
+            Map<String, Object> requestParams = params();
+            requestParams.put(LoadBalancerConstant.PARAM_ARGS, new Object[]{key});
+            ServiceMetaInfoDTO selected = loadBalancer.select(requestParams, instances);
+            // 相同参数总是选到同一实例
+            assertSame(selected, loadBalancer.select(requestParams, instances));
+            before.put(key, selected);
+        }
+
+        // 下线 c 后，原本在 a、b 上的请求不迁移
+        List<ServiceMetaInfoDTO> changed = Collections.unmodifiableList(Arrays.asList(a, b));
+        for (int key = 0; key < 1000; key++) {
+            Map<String, Object> requestParams = params();
+            requestParams.put(LoadBalancerConstant.PARAM_ARGS, new Object[]{key});
+            ServiceMetaInfoDTO selected = loadBalancer.select(requestParams, changed);
+            if (before.get(key) != c) {
+                assertSame(before.get(key), selected);
+            }
+        }
+    }
+
+    @Test
+    public void testConsistentHashSkipsInvalidArgumentIndexes() {
+        ConsistentHashConfig config = new ConsistentHashConfig();
+        config.setHashArguments("x, -1, 1");
+        ConsistentHashLoadBalancer.configure(config);
+        try {
+            LoadBalancerStrategy loadBalancer = new ConsistentHashLoadBalancer();
+            List<ServiceMetaInfoDTO> instances = Collections.unmodifiableList(Arrays.asList(
+                    instance(8090, null), instance(8091, null), instance(8092, null)));
+            // 只按下标 1 的参数哈希，第一个参数不同也选到同一实例
+            ServiceMetaInfoDTO expected = null;
+            for (int key = 0; key < 100; key++) {
+                Map<String, Object> requestParams = params();
+                requestParams.put(LoadBalancerConstant.PARAM_ARGS, new Object[]{key, "user-1"});
+                ServiceMetaInfoDTO selected = loadBalancer.select(requestParams, instances);
+                if (expected == null) {
+                    expected = selected;
+                }
+                assertSame(expected, selected);
+            }
+        } finally {
+            ConsistentHashLoadBalancer.configure(new ConsistentHashConfig());
+        }
+    }
+
+    @Test
+    public void testPeakEwmaPrefersFasterInstance() {
+        LoadBalancerStrategy loadBalancer = new PeakEwmaLoadBalancer();
+        ServiceMetaInfoDTO slow = instance(9090, null);
+        ServiceMetaInfoDTO fast = instance(9091, null);
+        List<ServiceMetaInfoDTO> instances = Collections.unmodifiableList(Arrays.asList(slow, fast));
+
+        EndpointStats slowStats = EndpointStats.of(slow);
+        slowStats.start();
+        slowStats.finish(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(500), true);
+        EndpointStats fastStats = EndpointStats.of(fast);
+        fastStats.finish(fastStats.start() - TimeUnit.MILLISECONDS.toNanos(5), true);
+
+        // 只有两个实例时两个候选总是这两个，每次都选耗时低的
+        for (int i = 0; i < 20; i++) {
+            assertSame(fast, loadBalancer.select(params(), instances));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.rpc.common.proxy;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 对冲预算单元测试：按比例存入令牌、预算耗尽后拒绝、余额封顶
+ */
+public class HedgeBudgetTest {
+
+    @Before
+    public void drain() {
+        while (HedgeBudget.tryAcquire()) {
+            // 清空其他测试留下的余额
+        }
+    }
+
+    @After
+    public void restore() {
+        HedgeBudget.configure(null);
+        drain();
+    }
+
+    @Test
+    public void testBudgetExhausted() {
+        HedgeBudget.configure(0.1);
+        for (int i = 0; i < 9; i++) {
+            HedgeBudget.deposit();
+        }
+        assertFalse("9 次调用不足 1 个令牌", HedgeBudget.tryAcquire());
+
+        HedgeBudget.deposit();
+        assertTrue(HedgeBudget.tryAcquire());
+        assertFalse("令牌已用完", HedgeBudget.tryAcquire());
+    }
+
+    @Test
+    public void testBalanceIsCapped() {
+        HedgeBudget.configure(1.0);
+        for (int i = 0; i < 1000; i++) {
+            HedgeBudget.deposit();
+        }
+        int acquired = 0;
+        while (HedgeBudget.tryAcquire()) {
+            acquired++;
+        }
+        assertEquals(100, acquired);
+    }
+
+    @Test
+    public void testZeroRatioDisablesHedging() {
+        HedgeBudget.configure(0.0);
+        for (int i = 0; i < 100; i++) {
+            HedgeBudget.deposit();
+        }
+        assertFalse(HedgeBudget.tryAcquire());
+    }
+}
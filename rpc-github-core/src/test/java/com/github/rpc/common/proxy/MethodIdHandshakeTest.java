@@ -0,0 +1,122 @@
+package com.github.rpc.common.proxy;
+
+import com.github.rpc.RpcApplication;
+import com.github.rpc.RpcTestSupport;
+import com.github.rpc.common.registry.localcache.LocalRegistry;
+import com.github.rpc.config.RpcReferenceConfig;
+import com.github.rpc.constants.LoadBalancerConstant;
+import com.github.rpc.constants.RetryStrategyConstant;
+import com.github.rpc.constants.RpcLoadConstant;
+import com.github.rpc.constants.TolerantStrategyConstant;
+import com.github.rpc.model.RpcRequest;
+import com.github.rpc.model.RpcResponse;
+import com.github.rpc.model.dto.ServiceMetaInfoDTO;
+import com.github.rpc.service.web.VertxTcpClient;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * 握手与方法 id：服务提供者按 Spring 的方式以 服务名:分组:版本 注册，消费者生成的方法签名必须能换到方法 id
+ */
+public class MethodIdHandshakeTest {
+
+    private static final String SERVICE_VERSION = "2.0";
+
+    public interface GreetingService {
+
+        String greet(String name);
+    }
+
+    public static class GreetingServiceImpl implements GreetingService {
+
+        @Override
+        public String greet(String name) {
+            return "hello " + name;
+        }
+    }
+
+    @BeforeClass
+    public static void setUp() {
+        RpcTestSupport.init();
+        // 与 RpcProviderBootstrap 相同的注册方式
+        String serviceKey = ServiceMetaInfoDTO.buildKey(GreetingService.class.getName(),
+                RpcLoadConstant.DEFAULT_SERVICE_GROUP, SERVICE_VERSION);
+        LocalRegistry.register(serviceKey, GreetingServiceImpl.class, new GreetingServiceImpl());
+    }
+
+    @Test
+    public void testConsumerSignatureMatchesRegisteredMethodId() throws Exception {
+        MethodMetadata metadata = metadata();
+        assertTrue(LocalRegistry.getMethodIds().containsKey(metadata.getSignature()));
+    }
+
+    @Test
+    public void testRequestByMethodIdAfterHandshake() throws Exception {
+        MethodMetadata metadata = metadata();
+        // 服务名故意写错：握手完成前按完整格式发送会找不到服务，握手完成后只发送方法 id 才能调用成功
+        RpcRequest rpcRequest = RpcRequest.builder()
+                .serviceName("com.github.rpc.NotRegisteredService")
+                .methodName(metadata.getMethodName())
+                .parameterTypes(metadata.getParameterTypes())
+                .args(new Object[]{"orca"})
+                .build();
+        RpcResponse rpcResponse = null;
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (System.currentTimeMillis() < deadline) {
+            rpcResponse = VertxTcpClient.doRequestAsync(rpcRequest, metadata.getSignature(), provider(), 1000L)
+                    .get(2, TimeUnit.SECONDS);
+            if (rpcResponse.getException() == null) {
+                break;
+            }
+            RpcTestSupport.sleep(20L);
+        }
+        assertNotNull(rpcResponse);
+        assertNull(rpcResponse.getException());
+        assertEquals("hello orca", rpcResponse.getData());
+    }
+
+    @Test
+    public void testFullFormatRequestFindsServiceKeyRegistration() throws Exception {
+        RpcRequest rpcRequest = RpcRequest.builder()
+                .serviceName(GreetingService.class.getName())
+                .serviceVersion(SERVICE_VERSION)
+                .methodName("greet")
+                .parameterTypes(new Class<?>[]{String.class})
+                .args(new Object[]{"vik"})
+                .build();
+        // 方法签名不在方法 id 表中，始终按完整格式发送
+        RpcResponse rpcResponse = VertxTcpClient.doRequestAsync(rpcRequest, "unknown#greet()", provider(), 1000L)
+                .get(2, TimeUnit.SECONDS);
+        assertNull(rpcResponse.getException());
+        assertEquals("hello vik", rpcResponse.getData());
+    }
+
+    /**
+     * 消费者调用链生成的方法元数据
+     */
+    private static MethodMetadata metadata() throws NoSuchMethodException {
+        RpcReferenceConfig referenceConfig = RpcReferenceConfig.builder()
+                .serviceName(GreetingService.class.getName())
+                .serviceVersion(SERVICE_VERSION)
+                .loadBalancer(LoadBalancerConstant.RANDOM)
+                .retryStrategy(RetryStrategyConstant.GUAVA)
+                .tolerantStrategy(TolerantStrategyConstant.FAIL_FAST)
+                .timeout(1000L)
+                .build();
+        ReferenceInvoker invoker = new ReferenceInvoker(RpcApplication.getConfigVersion(), RpcApplication.getRpcConfig(), referenceConfig);
+        return new MethodMetadata(invoker.getRegisteredServiceKey(), GreetingService.class.getMethod("greet", String.class));
+    }
+
+    private static ServiceMetaInfoDTO provider() {
+        ServiceMetaInfoDTO serviceMetaInfo = new ServiceMetaInfoDTO();
+        serviceMetaInfo.setServiceName(GreetingService.class.getName());
+        serviceMetaInfo.setServiceVersion(SERVICE_VERSION);
+        serviceMetaInfo.setServiceHost("localhost");
+        serviceMetaInfo.setServicePort(RpcTestSupport.getTcpPort());
+        return serviceMetaInfo;
+    }
+}
@@ -0,0 +1,113 @@
+package com.github.rpc.common.retry;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 重试预算单元测试：按成功调用存入令牌、预算耗尽后拒绝、余额封顶与指标
+ */
+public class RetryBudgetTest {
+
+    private static int nextService = 0;
+
+    /**
+     * 预算按服务键全局共享，每个用例使用不同的服务键
+     */
+    private static RetryBudget newBudget() {
+        return RetryBudget.of("retryBudgetTest" + (nextService++) + ":1.0:default");
+    }
+
+    @After
+    public void restore() {
+        RetryBudget.configure(null);
+    }
+
+    @Test
+    public void testInitialBalanceThenExhausted() {
+        RetryBudget.configure(0.1);
+        RetryBudget budget = newBudget();
+        for (int i = 0; i < 10; i++) {
+            assertTrue(budget.tryAcquire());
+        }
+        assertFalse("初始令牌已用完", budget.tryAcquire());
+
+        RetryBudget.Metrics metrics = budget.snapshot();
+        assertEquals(10, metrics.getRetryCount());
+        assertEquals(1, metrics.getRejectedCount());
+        assertEquals(0.0, metrics.getBalance(), 0.001);
+    }
+
+    @Test
+    public void testSuccessfulCallsRefillBudget() {
+        RetryBudget.configure(0.1);
+        RetryBudget budget = newBudget();
+        while (budget.tryAcquire()) {
+            // 先用完初始令牌
+        }
+        for (int i = 0; i < 9; i++) {
+            budget.deposit();
+        }
+        assertFalse("9 次成功调用不足 1 个令牌", budget.tryAcquire());
+        budget.deposit();
+        assertTrue(budget.tryAcquire());
+        assertEquals(10, budget.snapshot().getSuccessCount());
+    }
+
+    @Test
+    public void testBalanceIsCapped() {
+        RetryBudget.configure(1.0);
+        RetryBudget budget = newBudget();
+        for (int i = 0; i < 1000; i++) {
+            budget.deposit();
+        }
+        assertEquals(100.0, budget.snapshot().getBalance(), 0.001);
+    }
+
+    @Test
+    public void testMetricsListsEveryService() {
+        RetryBudget budget = newBudget();
+        budget.deposit();
+        String serviceKey = "retryBudgetTest" + (nextService - 1) + ":1.0:default";
+        assertEquals(1, RetryBudget.metrics().get(serviceKey).getSuccessCount());
+        // 日志输出不改变指标
+        RetryBudget.logMetrics();
+        RetryBudget.logMetrics();
+        assertEquals(1, budget.snapshot().getSuccessCount());
+    }
+
+    @Test
+    public void testRetryPolicyRecordsSuccess() {
+        RetryBudget budget = newBudget();
+        RetryPolicy retryPolicy = new RetryPolicy(3, 10L, 20L, budget);
+        retryPolicy.onSuccess();
+        assertEquals(1, budget.snapshot().getSuccessCount());
+    }
+
+    @Test
+    public void testRetrySchedulerOnlyConsumesBudget() throws Exception {
+        // 成功调用由调用方统一记录，重试调度只消耗预算，避免经过重试的调用重复存入
+        RetryBudget budget = newBudget();
+        RetryPolicy retryPolicy = new RetryPolicy(3, 10L, 20L, budget);
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> result = RetryScheduler.retry(timeout -> {
+            if (calls.incrementAndGet() == 1) {
+                CompletableFuture<String> failed = new CompletableFuture<>();
+                failed.completeExceptionally(new IOException("连接已关闭"));
+                return failed;
+            }
+            return CompletableFuture.completedFuture("ok");
+        }, retryPolicy, System.nanoTime() + TimeUnit.SECONDS.toNanos(5));
+        assertEquals("ok", result.get(5, TimeUnit.SECONDS));
+
+        RetryBudget.Metrics metrics = budget.snapshot();
+        assertEquals(1, metrics.getRetryCount());
+        assertEquals(0, metrics.getSuccessCount());
+    }
+}
@@ -0,0 +1,62 @@
+package com.github.rpc.common.retry;
+
+import com.github.rpc.enums.ResponseCodeEnum;
+import com.github.rpc.exception.BizException;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
+/**
+ * 重试策略单元测试：指数退避、封顶与抖动范围，可重试异常的判断
+ */
+public class RetryPolicyTest {
+
+    private static void assertBackoffBetween(RetryPolicy retryPolicy, int attemptNumber, long min, long max) {
+        for (int i = 0; i < 200; i++) {
+            long delay = retryPolicy.backoffMillis(attemptNumber);
+            assertTrue("第 " + attemptNumber + " 次退避过短: " + delay, delay >= min);
+            assertTrue("第 " + attemptNumber + " 次退避过长: " + delay, delay <= max);
+        }
+    }
+
+    @Test
+    public void testExponentialBackoffWithJitter() {
+        RetryPolicy retryPolicy = new RetryPolicy(5, 100L, 400L, null);
+        // 每次在 [一半, 全部] 之间随机
+        assertBackoffBetween(retryPolicy, 1, 50L, 100L);
+        assertBackoffBetween(retryPolicy, 2, 100L, 200L);
+        assertBackoffBetween(retryPolicy, 3, 200L, 400L);
+        // 超过上限后封顶
+        assertBackoffBetween(retryPolicy, 4, 200L, 400L);
+        assertBackoffBetween(retryPolicy, 100, 200L, 400L);
+    }
+
+    @Test
+    public void testZeroBaseDelay() {
+        RetryPolicy retryPolicy = new RetryPolicy(3, 0L, 0L, null);
+        assertEquals(0L, retryPolicy.backoffMillis(1));
+        assertEquals(0L, retryPolicy.backoffMillis(3));
+    }
+
+    @Test
+    public void testInvalidArgumentsAreClamped() {
+        RetryPolicy retryPolicy = new RetryPolicy(0, -10L, -20L, null);
+        assertEquals(1, retryPolicy.getMaxAttempts());
+        assertEquals(0L, retryPolicy.getBaseDelayMillis());
+        assertEquals(0L, retryPolicy.getMaxDelayMillis());
+    }
+
+    @Test
+    public void testRetryable() {
+        RetryPolicy retryPolicy = new RetryPolicy(3, 10L, 100L, null);
+        assertTrue(retryPolicy.isRetryable(new IOException("连接已关闭")));
+        assertTrue(retryPolicy.isRetryable(new TimeoutException("请求超时")));
+        assertTrue(retryPolicy.isRetryable(new IllegalStateException("服务端异常")));
+        // 熔断器拒绝与受检业务异常不重试
+        assertFalse(retryPolicy.isRetryable(new BizException(ResponseCodeEnum.CIRCUIT_BREAKER_OPEN)));
+        assertFalse(retryPolicy.isRetryable(new Exception("业务异常")));
+    }
+}
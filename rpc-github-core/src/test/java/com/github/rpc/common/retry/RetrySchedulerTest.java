@@ -0,0 +1,133 @@
+package com.github.rpc.common.retry;
+
+import com.github.rpc.enums.ResponseCodeEnum;
+import com.github.rpc.exception.BizException;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 非阻塞重试单元测试：退避重试、截止时间、每次尝试的超时时间与不可重试的异常
+ */
+public class RetrySchedulerTest {
+
+    /**
+     * 每次尝试收到的超时时间
+     */
+    private final List<Long> attemptTimeouts = new CopyOnWriteArrayList<>();
+
+    private static long deadlineAfter(long millis) {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable e) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
+    }
+
+    /**
+     * 前 failures 次尝试以给定异常失败，之后成功
+     */
+    private CompletableFuture<String> attempt(AtomicInteger calls, int failures, Throwable e, long timeoutMillis) {
+        attemptTimeouts.add(timeoutMillis);
+        return calls.incrementAndGet() <= failures ? failed(e) : CompletableFuture.completedFuture("ok");
+    }
+
+    private static Throwable cause(CompletableFuture<?> future) throws InterruptedException {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("应以异常结束");
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        } catch (TimeoutException e) {
+            throw new AssertionError("重试未结束", e);
+        }
+    }
+
+    @Test
+    public void testRetryUntilSuccess() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        RetryPolicy retryPolicy = new RetryPolicy(3, 10L, 20L, null);
+        CompletableFuture<String> result = RetryScheduler.retry(
+                timeout -> attempt(calls, 2, new IOException("连接已关闭"), timeout), retryPolicy, deadlineAfter(5000));
+        assertEquals("ok", result.get(5, TimeUnit.SECONDS));
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void testStopAfterMaxAttempts() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        IOException error = new IOException("连接已关闭");
+        RetryPolicy retryPolicy = new RetryPolicy(3, 10L, 20L, null);
+        CompletableFuture<String> result = RetryScheduler.retry(
+                timeout -> attempt(calls, Integer.MAX_VALUE, error, timeout), retryPolicy, deadlineAfter(5000));
+        assertSame(error, cause(result));
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void testNonRetryableFailsImmediately() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        BizException error = new BizException(ResponseCodeEnum.CIRCUIT_BREAKER_OPEN);
+        RetryPolicy retryPolicy = new RetryPolicy(3, 10L, 20L, null);
+        CompletableFuture<String> result = RetryScheduler.retry(
+                timeout -> attempt(calls, Integer.MAX_VALUE, error, timeout), retryPolicy, deadlineAfter(5000));
+        assertSame(error, cause(result));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testNoRetryWhenBackoffPassesDeadline() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        IOException error = new IOException("连接已关闭");
+        // 退避至少 100ms，截止时间只剩 50ms
+        RetryPolicy retryPolicy = new RetryPolicy(3, 200L, 200L, null);
+        CompletableFuture<String> result = RetryScheduler.retry(
+                timeout -> attempt(calls, Integer.MAX_VALUE, error, timeout), retryPolicy, deadlineAfter(50));
+        assertSame(error, cause(result));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testAttemptTimeoutWithinRemainingDeadline() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        RetryPolicy retryPolicy = new RetryPolicy(3, 100L, 100L, null);
+        CompletableFuture<String> result = RetryScheduler.retry(
+                timeout -> attempt(calls, 1, new IOException("连接已关闭"), timeout), retryPolicy, deadlineAfter(1000));
+        assertEquals("ok", result.get(5, TimeUnit.SECONDS));
+
+        assertEquals(2, attemptTimeouts.size());
+        assertTrue(attemptTimeouts.get(0) <= 1000L);
+        // 第二次尝试的超时时间不超过剩余时间减去退避（至少 50ms）
+        assertTrue("重试超时时间未扣除退避: " + attemptTimeouts,
+                attemptTimeouts.get(1) <= attemptTimeouts.get(0) - 50L);
+        assertTrue(attemptTimeouts.get(1) > 0);
+    }
+
+    @Test
+    public void testCancelStopsRetrying() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> running = new CompletableFuture<>();
+        RetryPolicy retryPolicy = new RetryPolicy(3, 10L, 20L, null);
+        CompletableFuture<String> result = RetryScheduler.retry(timeout -> {
+            calls.incrementAndGet();
+            return running;
+        }, retryPolicy, deadlineAfter(5000));
+
+        result.cancel(false);
+        assertTrue(running.isCancelled());
+        Thread.sleep(50);
+        assertEquals(1, calls.get());
+    }
+}
@@ -0,0 +1,138 @@
+package com.github.rpc.common.serializer;
+
+import com.github.rpc.model.RpcRequest;
+import com.github.rpc.model.RpcResponse;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * JSON 序列化器单元测试：请求与响应按类型流式解析的往返结果
+ */
+public class JsonSerializerTest {
+
+    private final JsonSerializer serializer = new JsonSerializer();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Address {
+
+        private String city;
+
+        private int zipCode;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class User {
+
+        private String name;
+
+        private Integer age;
+
+        private Address address;
+
+        private List<String> tags;
+    }
+
+    @Test
+    public void testRequestWithNullArgs() throws Exception {
+        RpcRequest rpcRequest = request(new Class<?>[]{String.class, User.class}, null);
+        RpcRequest decoded = roundTrip(rpcRequest, RpcRequest.class);
+        assertNull(decoded.getArgs());
+        assertArrayEquals(rpcRequest.getParameterTypes(), decoded.getParameterTypes());
+
+        // 参数数组中的 null 元素，包括基本类型参数
+        rpcRequest = request(new Class<?>[]{String.class, int.class, User.class}, new Object[]{null, null, null});
+        decoded = roundTrip(rpcRequest, RpcRequest.class);
+        assertArrayEquals(new Object[]{null, null, null}, decoded.getArgs());
+    }
+
+    @Test
+    public void testRequestWithPrimitiveAndBoxedArgs() throws Exception {
+        Class<?>[] parameterTypes = {int.class, long.class, double.class, boolean.class,
+                Integer.class, Long.class, Double.class, Boolean.class, String.class};
+        Object[] args = {1, 2L, 3.5D, true, 4, 5L, 6.25D, false, "orca"};
+        RpcRequest decoded = roundTrip(request(parameterTypes, args), RpcRequest.class);
+        assertArrayEquals(parameterTypes, decoded.getParameterTypes());
+        // 按参数类型解析，long 不会被解析成 Integer
+        assertArrayEquals(args, decoded.getArgs());
+        assertEquals(Long.class, decoded.getArgs()[1].getClass());
+        assertEquals(Long.class, decoded.getArgs()[5].getClass());
+    }
+
+    @Test
+    public void testRequestWithNestedObject() throws Exception {
+        User user = new User("vik", 18, new Address("hangzhou", 310000), Arrays.asList("a", "b"));
+        RpcRequest decoded = roundTrip(request(new Class<?>[]{User.class}, new Object[]{user}), RpcRequest.class);
+        assertEquals(user, decoded.getArgs()[0]);
+        assertEquals("com.github.rpc.example.UserService", decoded.getServiceName());
+        assertEquals("getUser", decoded.getMethodName());
+    }
+
+    @Test
+    public void testRequestFieldsInUnexpectedOrder() throws Exception {
+        // args 在 parameterTypes 之前，且带有未知字段
+        String json = "{\"args\":[7,{\"name\":\"vik\",\"age\":null,\"address\":{\"city\":\"hz\",\"zipCode\":1},\"tags\":null}],"
+                + "\"unknown\":{\"nested\":[1,2,3]},"
+                + "\"methodName\":\"getUser\","
+                + "\"parameterTypes\":[\"long\",\"" + User.class.getName() + "\"],"
+                + "\"serviceName\":\"com.github.rpc.example.UserService\"}";
+        RpcRequest decoded = serializer.deserialize(json.getBytes(StandardCharsets.UTF_8), RpcRequest.class);
+        assertEquals("getUser", decoded.getMethodName());
+        assertEquals(7L, decoded.getArgs()[0]);
+        assertEquals(new User("vik", null, new Address("hz", 1), null), decoded.getArgs()[1]);
+    }
+
+    @Test
+    public void testResponseRoundTrip() throws Exception {
+        User user = new User("vik", 18, new Address("hangzhou", 310000), Arrays.asList("a", "b"));
+        RpcResponse decoded = roundTrip(RpcResponse.builder().data(user).dataType(User.class).message("ok").build(), RpcResponse.class);
+        assertEquals(user, decoded.getData());
+        assertEquals(User.class, decoded.getDataType());
+        assertEquals("ok", decoded.getMessage());
+
+        decoded = roundTrip(RpcResponse.builder().data(42L).dataType(long.class).message("ok").build(), RpcResponse.class);
+        assertEquals(42L, decoded.getData());
+
+        // void 方法
+        decoded = roundTrip(RpcResponse.builder().dataType(void.class).message("ok").build(), RpcResponse.class);
+        assertNull(decoded.getData());
+    }
+
+    @Test
+    public void testResponseFieldsInUnexpectedOrder() throws Exception {
+        String json = "{\"message\":\"ok\",\"data\":{\"city\":\"hz\",\"zipCode\":2},\"dataType\":\"" + Address.class.getName() + "\"}";
+        RpcResponse decoded = serializer.deserialize(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)), RpcResponse.class);
+        assertEquals(new Address("hz", 2), decoded.getData());
+        assertEquals("ok", decoded.getMessage());
+    }
+
+    private <T> T roundTrip(T object, Class<T> type) throws Exception {
+        byte[] bytes = serializer.serialize(object);
+        T fromBytes = serializer.deserialize(bytes, type);
+        // 两种反序列化入口结果一致
+        assertEquals(fromBytes, serializer.deserialize(ByteBuffer.wrap(bytes), type));
+        return fromBytes;
+    }
+
+    private static RpcRequest request(Class<?>[] parameterTypes, Object[] args) {
+        return RpcRequest.builder()
+                .serviceName("com.github.rpc.example.UserService")
+                .methodName("getUser")
+                .serviceVersion("1.0")
+                .parameterTypes(parameterTypes)
+                .args(args)
+                .build();
+    }
+}
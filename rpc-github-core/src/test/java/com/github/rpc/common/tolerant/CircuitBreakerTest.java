@@ -0,0 +1,177 @@
+package com.github.rpc.common.tolerant;
+
+import com.github.rpc.config.CircuitBreakerConfig;
+import com.github.rpc.model.dto.ServiceMetaInfoDTO;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.Assert.*;
+
+/**
+ * 熔断器单元测试：失败率打开、打开超时、半开试探的成功与失败、试探名额
+ */
+public class CircuitBreakerTest {
+
+    private static final long OPEN_MILLIS = 100L;
+
+    private static final int HALF_OPEN_CALLS = 2;
+
+    private static int nextPort = 20000;
+
+    private ServiceMetaInfoDTO serviceMetaInfo;
+
+    private CircuitBreaker circuitBreaker;
+
+    @Before
+    public void setUp() {
+        CircuitBreakerConfig config = new CircuitBreakerConfig();
+        config.setWindowSize(10);
+        config.setMinimumCalls(4);
+        config.setFailureRateThreshold(50);
+        config.setOpenMillis(OPEN_MILLIS);
+        config.setHalfOpenCalls(HALF_OPEN_CALLS);
+        CircuitBreaker.configure(config);
+        // 每个用例使用不同的节点，互不影响
+        serviceMetaInfo = new ServiceMetaInfoDTO();
+        serviceMetaInfo.setServiceName("testService");
+        serviceMetaInfo.setServiceHost("localhost");
+        serviceMetaInfo.setServicePort(nextPort++);
+        circuitBreaker = CircuitBreaker.of(serviceMetaInfo);
+    }
+
+    @After
+    public void tearDown() {
+        CircuitBreaker.remove(serviceMetaInfo.getServiceNodeKey());
+        CircuitBreaker.configure(new CircuitBreakerConfig());
+    }
+
+    private void call(Throwable error) {
+        assertTrue(circuitBreaker.tryAcquire());
+        circuitBreaker.onComplete(System.nanoTime(), error);
+    }
+
+    private void trip() {
+        call(null);
+        call(null);
+        call(new IOException("连接已关闭"));
+        call(new IOException("连接已关闭"));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    public void testOpensWhenFailureRateReached() {
+        trip();
+        assertFalse(circuitBreaker.isCallPermitted());
+        assertFalse(circuitBreaker.tryAcquire());
+        try {
+            circuitBreaker.acquirePermission();
+            fail("熔断器打开时应拒绝调用");
+        } catch (RuntimeException expected) {
+            // 熔断器拒绝
+        }
+    }
+
+    @Test
+    public void testStaysClosedBelowMinimumCalls() {
+        call(new IOException("连接已关闭"));
+        call(new IOException("连接已关闭"));
+        call(new IOException("连接已关闭"));
+        assertTrue(circuitBreaker.isCallPermitted());
+        assertTrue(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    public void testHalfOpenAfterOpenTimeout() {
+        trip();
+        assertFalse(circuitBreaker.isCallPermitted());
+        sleep(OPEN_MILLIS + 50);
+        assertTrue(circuitBreaker.isCallPermitted());
+        assertTrue(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    public void testHalfOpenProbeLimit() {
+        trip();
+        sleep(OPEN_MILLIS + 50);
+        for (int i = 0; i < HALF_OPEN_CALLS; i++) {
+            assertTrue(circuitBreaker.tryAcquire());
+        }
+        // 试探名额用完，结果返回前不再放行
+        assertFalse(circuitBreaker.tryAcquire());
+        assertFalse(circuitBreaker.isCallPermitted());
+    }
+
+    @Test
+    public void testHalfOpenProbeSuccessCloses() {
+        trip();
+        sleep(OPEN_MILLIS + 50);
+        for (int i = 0; i < HALF_OPEN_CALLS; i++) {
+            assertTrue(circuitBreaker.tryAcquire());
+        }
+        for (int i = 0; i < HALF_OPEN_CALLS; i++) {
+            circuitBreaker.onComplete(System.nanoTime(), null);
+        }
+        // 已关闭且窗口已清空，一次失败不会再次打开
+        call(new IOException("连接已关闭"));
+        for (int i = 0; i < 10; i++) {
+            assertTrue(circuitBreaker.tryAcquire());
+        }
+    }
+
+    @Test
+    public void testHalfOpenProbeFailureReopens() {
+        trip();
+        sleep(OPEN_MILLIS + 50);
+        assertTrue(circuitBreaker.tryAcquire());
+        circuitBreaker.onComplete(System.nanoTime(), new IOException("连接已关闭"));
+        assertFalse(circuitBreaker.isCallPermitted());
+        assertFalse(circuitBreaker.tryAcquire());
+
+        // 重新打开后再次等待超时才放行
+        sleep(OPEN_MILLIS + 50);
+        assertTrue(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    public void testCancelledProbeReturnsPermit() {
+        trip();
+        sleep(OPEN_MILLIS + 50);
+        for (int i = 0; i < HALF_OPEN_CALLS; i++) {
+            assertTrue(circuitBreaker.tryAcquire());
+        }
+        circuitBreaker.onComplete(System.nanoTime(), new CancellationException());
+        assertTrue(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    public void testRemoveDiscardsState() {
+        trip();
+        CircuitBreaker.remove(serviceMetaInfo.getServiceNodeKey());
+        CircuitBreaker fresh = CircuitBreaker.of(serviceMetaInfo);
+        assertNotSame(circuitBreaker, fresh);
+        assertTrue(fresh.tryAcquire());
+    }
+
+    @Test
+    public void testDisabled() {
+        CircuitBreakerConfig config = new CircuitBreakerConfig();
+        config.setEnabled(false);
+        CircuitBreaker.configure(config);
+        for (int i = 0; i < 10; i++) {
+            circuitBreaker.onComplete(System.nanoTime(), new IOException("连接已关闭"));
+        }
+        assertTrue(circuitBreaker.isCallPermitted());
+        assertTrue(circuitBreaker.tryAcquire());
+    }
+}
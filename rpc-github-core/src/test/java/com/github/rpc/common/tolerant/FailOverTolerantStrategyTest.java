@@ -0,0 +1,161 @@
+package com.github.rpc.common.tolerant;
+
+import com.github.rpc.common.tolerant.impl.FailOverTolerantStrategy;
+import com.github.rpc.constants.TolerantStrategyConstant;
+import com.github.rpc.enums.ResponseCodeEnum;
+import com.github.rpc.exception.BizException;
+import com.github.rpc.model.RpcResponse;
+import com.github.rpc.model.dto.ServiceMetaInfoDTO;
+import org.junit.Test;
+
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
+/**
+ * 故障转移单元测试：超时只对幂等方法转移，请求未发出的失败总是转移，过了截止时间不再转移
+ */
+public class FailOverTolerantStrategyTest {
+
+    private final FailOverTolerantStrategy strategy = new FailOverTolerantStrategy();
+
+    private final List<ServiceMetaInfoDTO> instances = Arrays.asList(instance(8080), instance(8081), instance(8082));
+
+    /**
+     * 已调用过的节点端口
+     */
+    private final List<Integer> sentPorts = new ArrayList<>();
+
+    private static ServiceMetaInfoDTO instance(int port) {
+        ServiceMetaInfoDTO serviceMetaInfo = new ServiceMetaInfoDTO();
+        serviceMetaInfo.setServiceName("testService");
+        serviceMetaInfo.setServiceHost("localhost");
+        serviceMetaInfo.setServicePort(port);
+        return serviceMetaInfo;
+    }
+
+    private Map<String, Object> context(boolean idempotent, RequestSender requestSender) {
+        Map<String, Object> context = new HashMap<>();
+        context.put(TolerantStrategyConstant.CONTEXT_SERVICE_LIST, instances);
+        context.put(TolerantStrategyConstant.CONTEXT_SELECTED_SERVICE, instances.get(0));
+        context.put(TolerantStrategyConstant.CONTEXT_REQUEST_PARAMS, new HashMap<String, Object>());
+        context.put(TolerantStrategyConstant.CONTEXT_REQUEST_SENDER, requestSender);
+        context.put(TolerantStrategyConstant.CONTEXT_MAX_ATTEMPTS, 2);
+        context.put(TolerantStrategyConstant.CONTEXT_IDEMPOTENT, idempotent);
+        return context;
+    }
+
+    private RequestSender succeed() {
+        return serviceMetaInfo -> {
+            sentPorts.add(serviceMetaInfo.getServicePort());
+            RpcResponse rpcResponse = new RpcResponse();
+            rpcResponse.setData(serviceMetaInfo.getServicePort());
+            return rpcResponse;
+        };
+    }
+
+    private RequestSender failing(Exception e) {
+        return serviceMetaInfo -> {
+            sentPorts.add(serviceMetaInfo.getServicePort());
+            throw e;
+        };
+    }
+
+    @Test
+    public void testTimeoutOfNonIdempotentMethodDoesNotFailOver() {
+        TimeoutException timeout = new TimeoutException("请求超时");
+        try {
+            strategy.doTolerant(context(false, succeed()), timeout);
+            fail("非幂等方法超时后不应转移");
+        } catch (BizException e) {
+            assertSame(timeout, e.getCause());
+        }
+        assertTrue(sentPorts.isEmpty());
+    }
+
+    @Test
+    public void testTimeoutOfIdempotentMethodFailsOver() {
+        RpcResponse rpcResponse = strategy.doTolerant(context(true, succeed()), new TimeoutException("请求超时"));
+        assertNotEquals(8080, rpcResponse.getData());
+        assertEquals(1, sentPorts.size());
+    }
+
+    @Test
+    public void testConnectFailureAlwaysFailsOver() {
+        // 连接失败时请求没有发出，非幂等方法也可以转移
+        RpcResponse rpcResponse = strategy.doTolerant(context(false, succeed()),
+                new RuntimeException(new ConnectException("Connection refused")));
+        assertNotEquals(8080, rpcResponse.getData());
+    }
+
+    @Test
+    public void testCircuitBreakerOpenAlwaysFailsOver() {
+        RpcResponse rpcResponse = strategy.doTolerant(context(false, succeed()),
+                new BizException(ResponseCodeEnum.CIRCUIT_BREAKER_OPEN));
+        assertNotEquals(8080, rpcResponse.getData());
+    }
+
+    @Test
+    public void testNonIdempotentStopsAfterUncertainFailure() {
+        // 转移后的请求超时，结果不确定，不再继续转移
+        TimeoutException timeout = new TimeoutException("请求超时");
+        try {
+            strategy.doTolerant(context(false, failing(timeout)), new ConnectException("Connection refused"));
+            fail("应抛出最后一次的异常");
+        } catch (BizException e) {
+            assertSame(timeout, e.getCause());
+        }
+        assertEquals(1, sentPorts.size());
+    }
+
+    @Test
+    public void testIdempotentTriesUpToMaxAttempts() {
+        try {
+            strategy.doTolerant(context(true, failing(new TimeoutException("请求超时"))), new TimeoutException("请求超时"));
+            fail("全部节点失败时应抛出异常");
+        } catch (BizException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        assertEquals(2, sentPorts.size());
+        assertFalse(sentPorts.contains(8080));
+    }
+
+    @Test
+    public void testNoFailOverAfterDeadline() {
+        Map<String, Object> context = context(true, succeed());
+        context.put(TolerantStrategyConstant.CONTEXT_DEADLINE_NANOS, System.nanoTime() - 1L);
+        TimeoutException timeout = new TimeoutException("请求超时");
+        try {
+            strategy.doTolerant(context, timeout);
+            fail("过了截止时间不应转移");
+        } catch (BizException e) {
+            assertSame(timeout, e.getCause());
+        }
+        assertTrue(sentPorts.isEmpty());
+    }
+
+    @Test
+    public void testFailOverStopsOnceDeadlinePasses() {
+        Map<String, Object> context = context(true, serviceMetaInfo -> {
+            sentPorts.add(serviceMetaInfo.getServicePort());
+            // 本次转移耗尽了剩余时间
+            Thread.sleep(20L);
+            throw new TimeoutException("请求超时");
+        });
+        context.put(TolerantStrategyConstant.CONTEXT_DEADLINE_NANOS, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10L));
+        try {
+            strategy.doTolerant(context, new TimeoutException("请求超时"));
+            fail("全部转移失败时应抛出异常");
+        } catch (BizException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        assertEquals(1, sentPorts.size());
+    }
+}
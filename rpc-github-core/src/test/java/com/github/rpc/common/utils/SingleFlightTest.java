@@ -0,0 +1,131 @@
+package com.github.rpc.common.utils;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * SingleFlight 单元测试：并发合并、异常传递、完成后释放 key
+ */
+public class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    @Test
+    public void testConcurrentCallsShareOneLoad() throws Exception {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            results.add(executor.submit(() -> singleFlight.call("key", () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                release.await();
+                return 42;
+            })));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            CountDownLatch arrived = new CountDownLatch(CALLERS - 1);
+            for (int i = 1; i < CALLERS; i++) {
+                results.add(executor.submit(() -> {
+                    arrived.countDown();
+                    return singleFlight.call("key", () -> {
+                        loads.incrementAndGet();
+                        return -1;
+                    });
+                }));
+            }
+            // 其余调用在加载完成前到达，都应等待同一个结果
+            assertTrue(arrived.await(5, TimeUnit.SECONDS));
+            Thread.sleep(100L);
+            assertTrue(singleFlight.isRunning("key"));
+            release.countDown();
+            for (Future<Integer> result : results) {
+                assertEquals(Integer.valueOf(42), result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testExceptionPropagatesToAllWaiters() throws Exception {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CompletableFuture<Integer> async = singleFlight.callAsync("key", () -> {
+                release.await();
+                throw new IOException("registry unavailable");
+            }, executor);
+            assertTrue(singleFlight.isRunning("key"));
+            // 同步调用加入进行中的加载，收到原始异常
+            Future<?> waiter = executor.submit(() -> {
+                try {
+                    singleFlight.call("key", () -> -1);
+                    fail("应抛出加载异常");
+                } catch (IOException e) {
+                    assertEquals("registry unavailable", e.getMessage());
+                }
+                return null;
+            });
+            Thread.sleep(100L);
+            release.countDown();
+            waiter.get(5, TimeUnit.SECONDS);
+            try {
+                async.get(5, TimeUnit.SECONDS);
+                fail("应抛出加载异常");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IOException);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testKeyReleasedAfterCompletion() throws Exception {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        assertEquals(Integer.valueOf(1), singleFlight.call("key", () -> 1));
+        assertFalse(singleFlight.isRunning("key"));
+        // 下一次调用重新加载，不复用上次的结果
+        assertEquals(Integer.valueOf(2), singleFlight.call("key", () -> 2));
+
+        try {
+            singleFlight.call("key", () -> {
+                throw new IllegalStateException("boom");
+            });
+            fail("应抛出加载异常");
+        } catch (IllegalStateException e) {
+            assertEquals("boom", e.getMessage());
+        }
+        assertFalse(singleFlight.isRunning("key"));
+        assertEquals(Integer.valueOf(3), singleFlight.call("key", () -> 3));
+    }
+
+    @Test
+    public void testAsyncKeyReleasedWhenExecutorRejects() {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        CompletableFuture<Integer> future = singleFlight.callAsync("key", () -> 1, command -> {
+            throw new RejectedExecutionException("full");
+        });
+        assertTrue(future.isCompletedExceptionally());
+        assertFalse(singleFlight.isRunning("key"));
+    }
+}
@@ -0,0 +1,184 @@
+package com.github.rpc.model;
+
+import com.github.rpc.model.dto.ServiceMetaInfoDTO;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * 注册中心缓存单元测试：实时数据与旧数据（快照文件 / 清空前的列表）的取舍
+ */
+public class RegistryServiceMultiCacheTest {
+
+    private static final String SERVICE_KEY = "userService:1.0:default";
+
+    private static ServiceMetaInfoDTO instance(int port) {
+        ServiceMetaInfoDTO serviceMetaInfo = new ServiceMetaInfoDTO();
+        serviceMetaInfo.setServiceName("userService");
+        serviceMetaInfo.setServiceHost("localhost");
+        serviceMetaInfo.setServicePort(port);
+        return serviceMetaInfo;
+    }
+
+    private static RegistryServiceMultiCache cacheWithSnapshot() {
+        RegistryServiceMultiCache cache = new RegistryServiceMultiCache();
+        Map<String, List<ServiceMetaInfoDTO>> services = new HashMap<>();
+        services.put(SERVICE_KEY, Arrays.asList(instance(8080), instance(8081)));
+        cache.loadStaleCache(services);
+        return cache;
+    }
+
+    @Test
+    public void testLiveDataReplacesStaleData() {
+        RegistryServiceMultiCache cache = cacheWithSnapshot();
+        assertNull(cache.readCache(SERVICE_KEY));
+        assertEquals(2, cache.readStaleCache(SERVICE_KEY).size());
+
+        cache.writeCache(SERVICE_KEY, Collections.singletonList(instance(9090)));
+        assertEquals(1, cache.readCache(SERVICE_KEY).size());
+        assertNull(cache.readStaleCache(SERVICE_KEY));
+    }
+
+    @Test
+    public void testEmptyLiveListIsAuthoritative() {
+        RegistryServiceMultiCache cache = cacheWithSnapshot();
+        // 服务缩容到 0：空列表就是实时数据，不回退到快照
+        cache.writeCache(SERVICE_KEY, Collections.emptyList());
+        assertTrue(cache.readCache(SERVICE_KEY).isEmpty());
+        assertNull(cache.readStaleCache(SERVICE_KEY));
+
+        cache.clearCache(SERVICE_KEY);
+        assertNull(cache.readCache(SERVICE_KEY));
+        assertNull(cache.readStaleCache(SERVICE_KEY));
+    }
+
+    @Test
+    public void testInstancesRemovedToZeroThenCleared() {
+        RegistryServiceMultiCache cache = new RegistryServiceMultiCache();
+        ServiceMetaInfoDTO instance = instance(8080);
+        cache.writeCache(SERVICE_KEY, Collections.singletonList(instance));
+        cache.removeInstance(SERVICE_KEY, instance.getServiceNodeKey(), 0L);
+        assertTrue(cache.readCache(SERVICE_KEY).isEmpty());
+
+        cache.clearCache(SERVICE_KEY);
+        assertNull(cache.readStaleCache(SERVICE_KEY));
+    }
+
+    @Test
+    public void testClearNonEmptyLiveListKeepsItAsStale() {
+        RegistryServiceMultiCache cache = new RegistryServiceMultiCache();
+        cache.writeCache(SERVICE_KEY, Arrays.asList(instance(8080), instance(8081)));
+        List<ServiceMetaInfoDTO> live = cache.readCache(SERVICE_KEY);
+
+        cache.clearCache(SERVICE_KEY);
+        assertNull(cache.readCache(SERVICE_KEY));
+        assertSame(live, cache.readStaleCache(SERVICE_KEY));
+    }
+
+    @Test
+    public void testExportOnlyIncludesLiveEntries() {
+        RegistryServiceMultiCache cache = cacheWithSnapshot();
+        assertTrue(cache.export().isEmpty());
+
+        cache.writeCache("orderService:1.0:default", Collections.singletonList(instance(7070)));
+        cache.writeCache("emptyService:1.0:default", Collections.emptyList());
+        Map<String, List<ServiceMetaInfoDTO>> exported = cache.export();
+        assertEquals(Collections.singleton("orderService:1.0:default"), exported.keySet());
+    }
+
+    /**
+     * 记录下线节点和地址的回调
+     */
+    private static class RecordingListener implements RegistryServiceMultiCache.EvictionListener {
+
+        private final List<String> removedNodeKeys = new ArrayList<>();
+
+        private final List<String> removedAddresses = new ArrayList<>();
+
+        @Override
+        public void onNodeRemoved(String serviceNodeKey) {
+            removedNodeKeys.add(serviceNodeKey);
+        }
+
+        @Override
+        public void onAddressRemoved(String address) {
+            removedAddresses.add(address);
+        }
+    }
+
+    @Test
+    public void testRemoveInstanceEvictsAddress() {
+        RecordingListener listener = new RecordingListener();
+        RegistryServiceMultiCache cache = new RegistryServiceMultiCache(listener);
+        cache.writeCache(SERVICE_KEY, Arrays.asList(instance(8080), instance(8081)));
+        assertTrue(listener.removedAddresses.isEmpty());
+
+        cache.removeInstance(SERVICE_KEY, instance(8080).getServiceNodeKey(), 0L);
+        assertEquals(Collections.singletonList(instance(8080).getServiceNodeKey()), listener.removedNodeKeys);
+        assertEquals(Collections.singletonList("localhost:8080"), listener.removedAddresses);
+
+        // 不存在的实例不触发回调
+        cache.removeInstance(SERVICE_KEY, instance(8080).getServiceNodeKey(), 0L);
+        assertEquals(1, listener.removedAddresses.size());
+    }
+
+    @Test
+    public void testWriteCacheEvictsDroppedInstances() {
+        RecordingListener listener = new RecordingListener();
+        RegistryServiceMultiCache cache = new RegistryServiceMultiCache(listener);
+        cache.writeCache(SERVICE_KEY, Arrays.asList(instance(8080), instance(8081)));
+
+        cache.writeCache(SERVICE_KEY, Arrays.asList(instance(8081), instance(8082)));
+        assertEquals(Collections.singletonList(instance(8080).getServiceNodeKey()), listener.removedNodeKeys);
+        assertEquals(Collections.singletonList("localhost:8080"), listener.removedAddresses);
+    }
+
+    @Test
+    public void testLiveDataEvictsStaleOnlyInstances() {
+        RecordingListener listener = new RecordingListener();
+        RegistryServiceMultiCache cache = new RegistryServiceMultiCache(listener);
+        Map<String, List<ServiceMetaInfoDTO>> services = new HashMap<>();
+        services.put(SERVICE_KEY, Arrays.asList(instance(8080), instance(8081)));
+        cache.loadStaleCache(services);
+
+        cache.writeCache(SERVICE_KEY, Collections.singletonList(instance(8081)));
+        assertEquals(Collections.singletonList("localhost:8080"), listener.removedAddresses);
+    }
+
+    @Test
+    public void testAddressSharedByAnotherServiceIsKept() {
+        RecordingListener listener = new RecordingListener();
+        RegistryServiceMultiCache cache = new RegistryServiceMultiCache(listener);
+        ServiceMetaInfoDTO order = instance(8080);
+        order.setServiceName("orderService");
+        cache.writeCache(SERVICE_KEY, Collections.singletonList(instance(8080)));
+        cache.writeCache("orderService:1.0:default", Collections.singletonList(order));
+
+        // 同一提供者上的另一个服务仍在使用该地址，只丢弃节点
+        cache.removeInstance(SERVICE_KEY, instance(8080).getServiceNodeKey(), 0L);
+        assertEquals(Collections.singletonList(instance(8080).getServiceNodeKey()), listener.removedNodeKeys);
+        assertTrue(listener.removedAddresses.isEmpty());
+
+        cache.writeCache("orderService:1.0:default", Collections.emptyList());
+        assertEquals(Collections.singletonList("localhost:8080"), listener.removedAddresses);
+    }
+
+    @Test
+    public void testClearCacheKeepsAddressAsStale() {
+        RecordingListener listener = new RecordingListener();
+        RegistryServiceMultiCache cache = new RegistryServiceMultiCache(listener);
+        cache.writeCache(SERVICE_KEY, Collections.singletonList(instance(8080)));
+
+        // 清空后旧数据仍可能被使用，不丢弃统计
+        cache.clearCache(SERVICE_KEY);
+        assertTrue(listener.removedNodeKeys.isEmpty());
+        assertTrue(listener.removedAddresses.isEmpty());
+    }
+}
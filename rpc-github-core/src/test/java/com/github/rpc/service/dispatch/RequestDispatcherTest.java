@@ -0,0 +1,96 @@
+package com.github.rpc.service.dispatch;
+
+import com.github.rpc.common.registry.localcache.ServiceMethodInvoker;
+import com.github.rpc.constants.DispatchModeConstant;
+import com.github.rpc.enums.ResponseCodeEnum;
+import com.github.rpc.exception.BizException;
+import com.github.rpc.model.RpcResponse;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * 服务端派发单元测试：服务级线程池互相隔离、线程池排满后拒绝并返回 PROVIDER_BUSY
+ * 独立线程池按服务名全局缓存，每个用例使用不同的服务名
+ */
+public class RequestDispatcherTest {
+
+    @RpcDispatch(mode = DispatchModeConstant.SERVICE, threads = 1, queueSize = 1)
+    public static class DedicatedService {
+
+        public String call() {
+            return "ok";
+        }
+    }
+
+    private static ServiceMethodInvoker invoker(String serviceName) throws Exception {
+        return new ServiceMethodInvoker(1, serviceName, DedicatedService.class.getMethod("call"), new DedicatedService());
+    }
+
+    @Test
+    public void testFullServiceExecutorRejectsWithoutAffectingOthers() throws Exception {
+        ServiceMethodInvoker slow = invoker("bulkheadSlowService");
+        ServiceMethodInvoker fast = invoker("bulkheadFastService");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // 占住唯一的线程，再排满长度为 1 的队列
+            assertTrue(RequestDispatcher.dispatch(slow, () -> {
+                started.countDown();
+                awaitQuietly(release);
+            }));
+            assertTrue(started.await(1, TimeUnit.SECONDS));
+            assertTrue(RequestDispatcher.dispatch(slow, () -> { }));
+
+            AtomicBoolean rejectedRan = new AtomicBoolean();
+            assertFalse(RequestDispatcher.dispatch(slow, () -> rejectedRan.set(true)));
+
+            // 其他服务使用自己的线程池，不受影响
+            CountDownLatch fastRan = new CountDownLatch(1);
+            assertTrue(RequestDispatcher.dispatch(fast, fastRan::countDown));
+            assertTrue(fastRan.await(1, TimeUnit.SECONDS));
+
+            release.countDown();
+            CountDownLatch drained = new CountDownLatch(1);
+            // 队列腾空后重新接受请求，被拒绝的任务没有被执行
+            assertTrue(dispatchEventually(slow, drained::countDown));
+            assertTrue(drained.await(1, TimeUnit.SECONDS));
+            assertFalse(rejectedRan.get());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testRejectedResponseCarriesProviderBusy() {
+        RpcResponse rpcResponse = RequestDispatcher.rejectedResponse();
+        assertNull(rpcResponse.getData());
+        assertEquals(ResponseCodeEnum.PROVIDER_BUSY.getErrorMessage(), rpcResponse.getMessage());
+        assertTrue(rpcResponse.getException() instanceof BizException);
+        assertEquals(ResponseCodeEnum.PROVIDER_BUSY.getErrorCode(),
+                ((BizException) rpcResponse.getException()).getErrorCode());
+    }
+
+    private static boolean dispatchEventually(ServiceMethodInvoker invoker, Runnable task) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 1000L;
+        while (System.currentTimeMillis() < deadline) {
+            if (RequestDispatcher.dispatch(invoker, task)) {
+                return true;
+            }
+            Thread.sleep(10L);
+        }
+        return false;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.github.rpc.service.web;
+
+import com.github.rpc.RpcTestSupport;
+import com.github.rpc.common.registry.localcache.LocalRegistry;
+import com.github.rpc.common.utils.MethodSignatureUtils;
+import com.github.rpc.constants.DispatchModeConstant;
+import com.github.rpc.constants.RpcLoadConstant;
+import com.github.rpc.model.RpcRequest;
+import com.github.rpc.model.RpcResponse;
+import com.github.rpc.model.dto.ServiceMetaInfoDTO;
+import com.github.rpc.service.dispatch.RpcDispatch;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 协议版本协商端到端测试：握手后请求按版本 2 发送，超时时间随请求到达服务端，
+ * 在服务端排队超过超时时间的请求不再执行；按版本 1 发送时服务端不知道超时时间，仍会执行
+ */
+public class ProtocolVersionNegotiationTest {
+
+    private static final String SERVICE_VERSION = "1.0";
+
+    private static final String SERVICE_KEY = ServiceMetaInfoDTO.buildKey(QueueService.class.getName(),
+            RpcLoadConstant.DEFAULT_SERVICE_GROUP, SERVICE_VERSION);
+
+    private static final CountDownLatch STARTED = new CountDownLatch(1);
+
+    private static final CountDownLatch RELEASE = new CountDownLatch(1);
+
+    private static final AtomicInteger RECORDED = new AtomicInteger();
+
+    /**
+     * 单线程服务级线程池，block 占住线程时其余请求在服务端排队
+     */
+    @RpcDispatch(mode = DispatchModeConstant.SERVICE, threads = 1, queueSize = 8)
+    public static class QueueService {
+
+        public String block() throws InterruptedException {
+            STARTED.countDown();
+            RELEASE.await(5, TimeUnit.SECONDS);
+            return "released";
+        }
+
+        public int record() {
+            return RECORDED.incrementAndGet();
+        }
+    }
+
+    @BeforeClass
+    public static void setUp() {
+        RpcTestSupport.init();
+        LocalRegistry.register(SERVICE_KEY, QueueService.class, new QueueService());
+    }
+
+    @Test
+    public void testExpiredRequestIsDroppedAfterHandshake() throws Exception {
+        awaitHandshake();
+        try {
+            CompletableFuture<RpcResponse> blocked = VertxTcpClient.doRequestAsync(request("block"),
+                    signature("block"), provider(), 5000L);
+            assertTrue(STARTED.await(2, TimeUnit.SECONDS));
+
+            // 排在 block 之后，客户端 100ms 后放弃等待
+            CompletableFuture<RpcResponse> expired = VertxTcpClient.doRequestAsync(request("record"),
+                    signature("record"), provider(), 100L);
+            expired.handle((response, e) -> null).get(2, TimeUnit.SECONDS);
+            assertTrue(expired.isCompletedExceptionally());
+            RpcTestSupport.sleep(100L);
+            RELEASE.countDown();
+            assertEquals("released", blocked.get(2, TimeUnit.SECONDS).getData());
+
+            // 同一线程池中后到的请求执行时，排队已超时的请求已被跳过
+            RpcResponse recorded = VertxTcpClient.doRequestAsync(request("record"), signature("record"), provider(), 2000L)
+                    .get(3, TimeUnit.SECONDS);
+            assertNull(recorded.getException());
+            assertEquals(1, recorded.getData());
+            assertEquals(1, RECORDED.get());
+        } finally {
+            RELEASE.countDown();
+        }
+    }
+
+    /**
+     * 服务名故意写错的请求只能按方法 id 调用成功，成功即表示握手响应已被客户端处理，协议版本同时已升级
+     */
+    private static void awaitHandshake() throws Exception {
+        RpcRequest probe = RpcRequest.builder()
+                .serviceName("com.github.rpc.NotRegisteredService")
+                .methodName("record")
+                .parameterTypes(new Class<?>[0])
+                .build();
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (System.currentTimeMillis() < deadline) {
+            RpcResponse rpcResponse = VertxTcpClient.doRequestAsync(probe, signature("record"), provider(), 1000L)
+                    .get(2, TimeUnit.SECONDS);
+            if (rpcResponse.getException() == null) {
+                // 探测请求执行了一次 record，计数归零
+                RECORDED.set(0);
+                return;
+            }
+            RpcTestSupport.sleep(20L);
+        }
+        fail("握手未完成");
+    }
+
+    private static RpcRequest request(String methodName) {
+        return RpcRequest.builder()
+                .serviceName(QueueService.class.getName())
+                .serviceVersion(SERVICE_VERSION)
+                .methodName(methodName)
+                .parameterTypes(new Class<?>[0])
+                .build();
+    }
+
+    private static String signature(String methodName) {
+        return MethodSignatureUtils.signature(SERVICE_KEY, methodName, new Class<?>[0]);
+    }
+
+    /**
+     * 连接池按 host:port 区分，使用与其他用例不同的 host 建立新连接，握手时本服务已注册
+     */
+    private static ServiceMetaInfoDTO provider() {
+        ServiceMetaInfoDTO serviceMetaInfo = new ServiceMetaInfoDTO();
+        serviceMetaInfo.setServiceName(QueueService.class.getName());
+        serviceMetaInfo.setServiceVersion(SERVICE_VERSION);
+        serviceMetaInfo.setServiceHost("127.0.0.1");
+        serviceMetaInfo.setServicePort(RpcTestSupport.getTcpPort());
+        return serviceMetaInfo;
+    }
+}
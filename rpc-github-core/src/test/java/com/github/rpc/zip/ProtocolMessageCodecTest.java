@@ -0,0 +1,113 @@
+package com.github.rpc.zip;
+
+import com.github.rpc.constants.ProtocolConstant;
+import com.github.rpc.enums.ProtocolMessageDTOSerializerEnum;
+import com.github.rpc.enums.ProtocolMessageTypeEnum;
+import com.github.rpc.model.RpcRequest;
+import com.github.rpc.model.dto.ProtocolMessageDTO;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.vertx.core.buffer.Buffer;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 协议编解码单元测试：版本 2 扩展区的往返、版本 1 消息的兼容与未知扩展项
+ */
+public class ProtocolMessageCodecTest {
+
+    private static ProtocolMessageDTO<RpcRequest> buildMessage(byte version, Long timeoutMillis) {
+        RpcRequest rpcRequest = new RpcRequest();
+        rpcRequest.setServiceName("com.github.rpc.example.UserService");
+        rpcRequest.setMethodName("getUser");
+        rpcRequest.setServiceVersion("1.0");
+        rpcRequest.setParameterTypes(new Class<?>[]{String.class, Integer.class});
+        rpcRequest.setArgs(new Object[]{"orca", 42});
+
+        ProtocolMessageDTO.MessageHeader header = new ProtocolMessageDTO.MessageHeader();
+        header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+        header.setVersion(version);
+        header.setSerializer((byte) ProtocolMessageDTOSerializerEnum.KRYO.getType().intValue());
+        header.setType((byte) ProtocolMessageTypeEnum.REQUEST.getType());
+        header.setStatus((byte) 0);
+        header.setRequestId(1L);
+        header.setTimeoutMillis(timeoutMillis);
+        return new ProtocolMessageDTO<>(header, rpcRequest);
+    }
+
+    private static byte[] encode(ProtocolMessageDTO<?> message) throws Exception {
+        ByteBuf pooled = ProtocolMessageEncoder.encodeToByteBuf(message);
+        try {
+            return ByteBufUtil.getBytes(pooled);
+        } finally {
+            pooled.release();
+        }
+    }
+
+    private static void assertBody(ProtocolMessageDTO<?> decoded) {
+        RpcRequest rpcRequest = (RpcRequest) decoded.getBody();
+        assertEquals("getUser", rpcRequest.getMethodName());
+        assertArrayEquals(new Object[]{"orca", 42}, rpcRequest.getArgs());
+    }
+
+    @Test
+    public void testTimeoutExtensionRoundTrip() throws Exception {
+        byte[] bytes = encode(buildMessage(ProtocolConstant.PROTOCOL_VERSION_V2, 1500L));
+        ProtocolMessageDTO<?> decoded = ProtocolMessageDTODecoder.decode(Buffer.buffer(bytes));
+        assertEquals(ProtocolConstant.PROTOCOL_VERSION_V2, decoded.getHeader().getVersion());
+        assertEquals(Long.valueOf(1500L), decoded.getHeader().getTimeoutMillis());
+        assertBody(decoded);
+    }
+
+    @Test
+    public void testV1FrameDecodedByV2Decoder() throws Exception {
+        // 版本 1 即使设置了超时时间也不写扩展区，消息体紧跟消息头
+        byte[] bytes = encode(buildMessage(ProtocolConstant.PROTOCOL_VERSION, 1500L));
+        byte[] withoutTimeout = encode(buildMessage(ProtocolConstant.PROTOCOL_VERSION, null));
+        assertArrayEquals(withoutTimeout, bytes);
+
+        ProtocolMessageDTO<?> decoded = ProtocolMessageDTODecoder.decode(Buffer.buffer(bytes));
+        assertEquals(ProtocolConstant.PROTOCOL_VERSION, decoded.getHeader().getVersion());
+        assertNull(decoded.getHeader().getTimeoutMillis());
+        assertBody(decoded);
+    }
+
+    @Test
+    public void testV1IsSentByDefault() {
+        assertEquals(1, ProtocolConstant.PROTOCOL_VERSION);
+        assertFalse(ProtocolMessageEncoder.hasExtension(buildMessage(ProtocolConstant.PROTOCOL_VERSION, 1500L).getHeader()));
+    }
+
+    @Test
+    public void testV2FrameWithoutExtensionItems() throws Exception {
+        byte[] bytes = encode(buildMessage(ProtocolConstant.PROTOCOL_VERSION_V2, null));
+        // 扩展区只有长度 0
+        assertEquals(0, Buffer.buffer(bytes).getShort(ProtocolConstant.MESSAGE_HEADER_LENGTH));
+        ProtocolMessageDTO<?> decoded = ProtocolMessageDTODecoder.decode(Buffer.buffer(bytes));
+        assertNull(decoded.getHeader().getTimeoutMillis());
+        assertBody(decoded);
+    }
+
+    @Test
+    public void testUnknownExtensionItemSkipped() throws Exception {
+        byte[] bytes = encode(buildMessage(ProtocolConstant.PROTOCOL_VERSION_V2, 1500L));
+        // 扩展区长度之后的第一个字节是扩展项的键，改成未知的键
+        bytes[ProtocolConstant.MESSAGE_HEADER_LENGTH + Short.BYTES] = 0x7F;
+        ProtocolMessageDTO<?> decoded = ProtocolMessageDTODecoder.decode(Buffer.buffer(bytes));
+        assertNull(decoded.getHeader().getTimeoutMillis());
+        assertBody(decoded);
+    }
+
+    @Test
+    public void testBufferAndByteBufEncodingMatch() throws Exception {
+        for (byte version : new byte[]{ProtocolConstant.PROTOCOL_VERSION, ProtocolConstant.PROTOCOL_VERSION_V2}) {
+            ProtocolMessageDTO<RpcRequest> message = buildMessage(version, 1500L);
+            byte[] bytes = encode(message);
+            assertArrayEquals(ProtocolMessageEncoder.encode(message).getBytes(), bytes);
+            // bodyLength 包含扩展区
+            assertEquals(bytes.length - ProtocolConstant.MESSAGE_HEADER_LENGTH,
+                    Buffer.buffer(bytes).getInt(ProtocolConstant.MESSAGE_HEADER_LENGTH - Integer.BYTES));
+        }
+    }
+}
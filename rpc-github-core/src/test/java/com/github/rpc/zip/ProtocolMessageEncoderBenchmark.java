@@ -0,0 +1,97 @@
+package com.github.rpc.zip;
+
+import com.github.rpc.constants.ProtocolConstant;
+import com.github.rpc.enums.ProtocolMessageDTOSerializerEnum;
+import com.github.rpc.enums.ProtocolMessageTypeEnum;
+import com.github.rpc.model.RpcRequest;
+import com.github.rpc.model.dto.ProtocolMessageDTO;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.vertx.core.buffer.Buffer;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * 编码器分配量对比：原先的 Buffer 拼接 与 单次编码到池化直接内存
+ * 统计的是当前线程在堆上的分配字节数；默认不随单元测试执行，使用 mvn test -P benchmark 运行
+ */
+@Slf4j
+public class ProtocolMessageEncoderBenchmark {
+
+    private static final int WARMUP = 20_000;
+
+    private static final int ITERATIONS = 100_000;
+
+    @Test
+    public void testKryoEncodeAllocation() throws Exception {
+        compare(ProtocolMessageDTOSerializerEnum.KRYO);
+    }
+
+    @Test
+    public void testJsonEncodeAllocation() throws Exception {
+        compare(ProtocolMessageDTOSerializerEnum.JSON);
+    }
+
+    private void compare(ProtocolMessageDTOSerializerEnum serializerEnum) throws Exception {
+        ProtocolMessageDTO<RpcRequest> message = buildMessage(serializerEnum);
+
+        // 两种方式编码结果必须一致
+        Buffer legacy = ProtocolMessageEncoder.encode(message);
+        ByteBuf pooled = ProtocolMessageEncoder.encodeToByteBuf(message);
+        try {
+            assertArrayEquals(legacy.getBytes(), ByteBufUtil.getBytes(pooled));
+            assertEquals(pooled.readableBytes() - ProtocolConstant.MESSAGE_HEADER_LENGTH,
+                    pooled.getInt(ProtocolConstant.MESSAGE_HEADER_LENGTH - 4));
+        } finally {
+            pooled.release();
+        }
+
+        for (int i = 0; i < WARMUP; i++) {
+            ProtocolMessageEncoder.encode(message);
+            ProtocolMessageEncoder.encodeToByteBuf(message).release();
+        }
+
+        long legacyBytes = allocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            ProtocolMessageEncoder.encode(message);
+        }
+        legacyBytes = allocatedBytes() - legacyBytes;
+
+        long pooledBytes = allocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            ProtocolMessageEncoder.encodeToByteBuf(message).release();
+        }
+        pooledBytes = allocatedBytes() - pooledBytes;
+
+        log.info("[{}] 消息长度 {} 字节, 每条消息堆分配: Buffer 拼接 {} 字节, 池化单次编码 {} 字节",
+                serializerEnum.getValue(), legacy.length(), legacyBytes / ITERATIONS, pooledBytes / ITERATIONS);
+        assertTrue(pooledBytes < legacyBytes);
+    }
+
+    private static ProtocolMessageDTO<RpcRequest> buildMessage(ProtocolMessageDTOSerializerEnum serializerEnum) {
+        RpcRequest rpcRequest = new RpcRequest();
+        rpcRequest.setServiceName("com.github.rpc.example.UserService");
+        rpcRequest.setMethodName("getUser");
+        rpcRequest.setServiceVersion("1.0");
+        rpcRequest.setParameterTypes(new Class<?>[]{String.class, Integer.class});
+        rpcRequest.setArgs(new Object[]{"orca", 42});
+
+        ProtocolMessageDTO.MessageHeader header = new ProtocolMessageDTO.MessageHeader();
+        header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+        header.setVersion(ProtocolConstant.PROTOCOL_VERSION);
+        header.setSerializer((byte) serializerEnum.getType().intValue());
+        header.setType((byte) ProtocolMessageTypeEnum.REQUEST.getType());
+        header.setStatus((byte) 0);
+        header.setRequestId(1L);
+        return new ProtocolMessageDTO<>(header, rpcRequest);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
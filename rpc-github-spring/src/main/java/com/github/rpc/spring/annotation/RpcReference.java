@@ -3,6 +3,7 @@ package com.github.rpc.spring.annotation;
 import com.github.rpc.constants.LoadBalancerConstant;
 import com.github.rpc.constants.RetryStrategyConstant;
 import com.github.rpc.constants.RpcLoadConstant;
+import com.github.rpc.constants.TolerantStrategyConstant;
 
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
@@ -36,7 +37,7 @@ public @interface RpcReference {
     /**
      * 容错策略
      */
-    String tolerantStrategy() default "failsafe";
+    String tolerantStrategy() default TolerantStrategyConstant.FAIL_SAFE;
 
     /**
      * 模拟调用
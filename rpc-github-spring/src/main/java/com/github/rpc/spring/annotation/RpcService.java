@@ -21,7 +21,7 @@ public @interface RpcService {
     String serviceVersion() default RpcLoadConstant.DEFAULT_SERVICE_VERSION;
 
     //分组 默认为空
-    String serviceGroup() default "default";
+    String serviceGroup() default RpcLoadConstant.DEFAULT_SERVICE_GROUP;
 
     /**
      * 权重（用于负载均衡）
@@ -2,7 +2,9 @@ package com.github.rpc.spring.bootstrap;
 
 import com.github.rpc.RpcApplication;
 import com.github.rpc.config.GlobalRpcConfig;
+import com.github.rpc.constants.TransportConstant;
 import com.github.rpc.service.web.VertxHttpServer;
+import com.github.rpc.service.web.VertxTcpServer;
 import com.github.rpc.spring.annotation.EnableRpc;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
@@ -33,10 +35,17 @@ public class RpcInitBootstrap implements ImportBeanDefinitionRegistrar {
 
         // 启动服务器
         if (needServer) {
-            //VertxHttpServer
-            VertxHttpServer server = new VertxHttpServer();
-            server.doStart(rpcConfig.getServerPort());
-            log.info("VertxHttpServer started on port {}", rpcConfig.getServerPort());
+            if (TransportConstant.HTTP.equals(rpcConfig.getTransport())) {
+                //VertxHttpServer
+                VertxHttpServer server = new VertxHttpServer();
+                server.doStart(rpcConfig.getServerPort());
+                log.info("VertxHttpServer started on port {}", rpcConfig.getServerPort());
+            } else {
+                // 默认使用 TCP 长连接协议
+                VertxTcpServer server = new VertxTcpServer();
+                server.doStart(rpcConfig.getServerPort());
+                log.info("VertxTcpServer started on port {}", rpcConfig.getServerPort());
+            }
         } else {
             log.warn("默认不启动Server服务");
         }
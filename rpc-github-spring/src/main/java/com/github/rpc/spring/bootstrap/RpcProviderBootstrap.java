@@ -10,10 +10,21 @@ import com.github.rpc.spring.annotation.RpcService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 @Slf4j
 //bean初始化进行处理
-public class RpcProviderBootstrap implements BeanPostProcessor {
+public class RpcProviderBootstrap implements BeanPostProcessor, ApplicationListener<ContextRefreshedEvent> {
+
+    /**
+     * 已导出但尚未注册到注册中心的服务
+     */
+    private final List<ServiceMetaInfoDTO> pendingServiceMetaInfoList = Collections.synchronizedList(new ArrayList<>());
 
     /**
      * Bean 初始化后执行，注册服务 每个bean处理逻辑
@@ -59,14 +70,12 @@ public class RpcProviderBootstrap implements BeanPostProcessor {
 
 
             try {
-                // 3. 注册到本地注册表（用于本地调用）
-                LocalRegistry.register(serviceKey, beanClass);
+                // 3. 注册到本地注册表（用于本地调用），直接复用 Spring 单例 Bean 生成方法调用器
+                LocalRegistry.register(serviceKey, beanClass, bean);
                 log.info("✅ 本地注册 RPC 服务: {} -> {}", serviceKey, beanClass.getName());
 
-                // 4. 注册到注册中心（如 Nacos/ZooKeeper）
+                // 4. 记录待注册的服务，容器刷新完成后统一注册到注册中心（如 Nacos/ZooKeeper）
                 GlobalRpcConfig rpcConfig = RpcApplication.getRpcConfig();
-                Registry registry = RegistryFactory.getInstance(rpcConfig.getRegistryConfig().getRegistry());
-                //
                 ServiceMetaInfoDTO serviceMetaInfo = new ServiceMetaInfoDTO();
                 serviceMetaInfo.setServiceName(interfaceClass.getName());
                 serviceMetaInfo.setServiceVersion(serviceVersion);
@@ -75,8 +84,7 @@ public class RpcProviderBootstrap implements BeanPostProcessor {
                 serviceMetaInfo.setServicePort(rpcConfig.getServerPort()); // 服务端口
                 serviceMetaInfo.setWeight(rpcService.weight());
                 //不设置序列化器 因为传输信息 包含序列化器信息 自动处理
-                registry.register(serviceMetaInfo);
-                log.info("🌐 已注册服务到注册中心: {}", serviceMetaInfo);
+                pendingServiceMetaInfoList.add(serviceMetaInfo);
 
             } catch (Exception e) {
                 log.error("【RPC 服务注册失败】服务: {}", serviceKey, e);
@@ -87,4 +95,30 @@ public class RpcProviderBootstrap implements BeanPostProcessor {
         // 返回原始 bean（Spring 容器继续使用）
         return bean;
     }
+
+    /**
+     * 容器刷新完成后批量注册本节点的所有服务，支持租约的注册中心只需一个租约和一次写入
+     *
+     * @param event
+     */
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        List<ServiceMetaInfoDTO> serviceMetaInfoList;
+        synchronized (pendingServiceMetaInfoList) {
+            if (pendingServiceMetaInfoList.isEmpty()) {
+                return;
+            }
+            serviceMetaInfoList = new ArrayList<>(pendingServiceMetaInfoList);
+            pendingServiceMetaInfoList.clear();
+        }
+        GlobalRpcConfig rpcConfig = RpcApplication.getRpcConfig();
+        Registry registry = RegistryFactory.getInstance(rpcConfig.getRegistryConfig().getRegistry());
+        try {
+            registry.registerBatch(serviceMetaInfoList);
+            log.info("🌐 已注册 {} 个服务到注册中心", serviceMetaInfoList.size());
+        } catch (Exception e) {
+            log.error("【RPC 服务注册失败】服务: {}", serviceMetaInfoList, e);
+            throw new RuntimeException("Failed to register RPC services", e);
+        }
+    }
 }